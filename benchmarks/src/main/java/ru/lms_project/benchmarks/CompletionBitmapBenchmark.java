@@ -0,0 +1,145 @@
+package ru.lms_project.benchmarks;
+
+import com.lms.progressService.dto.CompletedLessonsDto;
+import com.lms.progressService.model.CourseLessonOrdinal;
+import com.lms.progressService.model.CourseProgressSummary;
+import com.lms.progressService.model.CourseProgressSummaryId;
+import com.lms.progressService.repository.CourseLessonOrdinalRepository;
+import com.lms.progressService.repository.CourseProgressSummaryRepository;
+import com.lms.progressService.service.CompletionBitmaps;
+import com.lms.progressService.service.LessonOrdinals;
+import com.lms.progressService.service.ProgressService;
+import org.openjdk.jmh.annotations.*;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completion bitmaps of {@code users} students in one course of {@code lessons} lessons. Each student has finished
+ * a random prefix of the course with about 5% of the lessons skipped. The setup prints the bitmap footprint,
+ * the benchmarks run the real {@link CompletionBitmaps} and {@link ProgressService} code over in-memory stubs:
+ * recording one completion, listing a student's completed lessons, and the lessons completed by a whole group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompletionBitmapBenchmark {
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"200"})
+    public int lessons;
+
+    @Param({"30"})
+    public int groupSize;
+
+    private final UUID courseId = UUID.randomUUID();
+    private UUID[] lessonIds;
+    private UUID[] userIds;
+    private byte[][] bitmaps;
+    private CompletionBitmaps completionBitmaps;
+    private ProgressService progressService;
+    private Random random;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+        lessonIds = new UUID[lessons];
+        List<CourseLessonOrdinal> ordinals = new ArrayList<>(lessons);
+        for (int i = 0; i < lessons; i++) {
+            lessonIds[i] = UUID.randomUUID();
+            ordinals.add(new CourseLessonOrdinal(courseId, lessonIds[i], i));
+        }
+
+        userIds = new UUID[users];
+        bitmaps = new byte[users][];
+        Map<CourseProgressSummaryId, CourseProgressSummary> summaries = new HashMap<>(users * 2);
+        long serializedBytes = 0;
+        long heapBytes = 0;
+        long completedLessons = 0;
+        for (int u = 0; u < users; u++) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            int reached = random.nextInt(lessons + 1);
+            for (int i = 0; i < reached; i++) {
+                if (random.nextInt(100) >= 5) {
+                    bitmap.add(i);
+                }
+            }
+            bitmap.runOptimize();
+            ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+            bitmap.serialize(buffer);
+
+            userIds[u] = UUID.randomUUID();
+            bitmaps[u] = buffer.array();
+            summaries.put(new CourseProgressSummaryId(userIds[u], courseId), summary(u));
+            serializedBytes += bitmaps[u].length;
+            heapBytes += bitmap.getLongSizeInBytes();
+            completedLessons += bitmap.getLongCardinality();
+        }
+        System.out.printf("%n%d users x %d lessons: %d completed lessons, bitmaps %d bytes serialized "
+                        + "(%.1f per user), %d bytes deserialized (%.1f per user)%n",
+                users, lessons, completedLessons, serializedBytes, (double) serializedBytes / users,
+                heapBytes, (double) heapBytes / users);
+
+        LessonOrdinals lessonOrdinals = new LessonOrdinals(RepositoryStubs.stub(CourseLessonOrdinalRepository.class,
+                Map.of("findByCourseId", args -> ordinals)), 16);
+        // the bitmaps are never missing here, so lesson_progress is not read
+        completionBitmaps = new CompletionBitmaps(null, lessonOrdinals);
+        progressService = new ProgressService(null,
+                RepositoryStubs.stub(CourseProgressSummaryRepository.class, Map.of("findAllById", args -> {
+                    List<CourseProgressSummary> found = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        found.add(summaries.get(id));
+                    }
+                    return found;
+                })),
+                null, null, null, completionBitmaps, null);
+    }
+
+    private CourseProgressSummary summary(int user) {
+        CourseProgressSummary summary = new CourseProgressSummary();
+        summary.setUserId(userIds[user]);
+        summary.setCourseId(courseId);
+        summary.setTotalLessons(lessons);
+        summary.setCompletedBitmap(bitmaps[user]);
+        return summary;
+    }
+
+    private int nextUser() {
+        next = next + 1 == users ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public CourseProgressSummary markCompleted() {
+        CourseProgressSummary summary = summary(nextUser());
+        completionBitmaps.markCompleted(summary, List.of(lessonIds[random.nextInt(lessons)]), (long) lessons);
+        return summary;
+    }
+
+    @Benchmark
+    public List<UUID> completedLessons() {
+        return completionBitmaps.completedLessonIds(summary(nextUser()));
+    }
+
+    @Benchmark
+    public CompletedLessonsDto groupIntersection() {
+        List<UUID> group = new ArrayList<>(groupSize);
+        int first = nextUser();
+        for (int i = 0; i < groupSize; i++) {
+            group.add(userIds[(first + i * 7919) % users]);
+        }
+        return progressService.getLessonsCompletedByAll(courseId, group);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.lms_project.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lms.courseService.dto.CreateCourseResponse;
+import com.lms.courseService.mapper.CourseMapper;
+import com.lms.courseService.model.Course;
+import com.lms.courseService.model.CourseStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.lms_project.coursestructure.cache.SharedCacheTier;
+import ru.lms_project.coursestructure.cache.StructureCache;
+import ru.lms_project.coursestructure.dto.ModuleDto;
+import ru.lms_project.coursestructure.dto.ModuleLessonCount;
+import ru.lms_project.coursestructure.model.Module;
+import ru.lms_project.coursestructure.repository.LessonRepository;
+import ru.lms_project.coursestructure.repository.ModuleRepository;
+import ru.lms_project.coursestructure.service.ModuleService;
+import ru.lms_project.groupservice.dto.GroupDto;
+import ru.lms_project.groupservice.model.Group;
+import ru.lms_project.groupservice.repository.GroupRepository;
+import ru.lms_project.groupservice.service.GroupService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of list endpoints. Repositories are in-memory stubs, so the numbers are
+ * the per-request cost of the mapping code itself (including merging the grouped lesson counts in ModuleService).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DtoMapperBenchmark {
+    @Param({"50"})
+    public int size;
+
+    private GroupService groupService;
+    private ModuleService moduleService;
+    private Course course;
+
+    @Setup
+    public void setUp() {
+        List<Group> groups = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Group group = new Group();
+            group.setId(UUID.randomUUID());
+            group.setName("Group " + i);
+            group.setDescription("Description of group " + i);
+            group.setTeacherId(UUID.randomUUID());
+            group.setCourseId(UUID.randomUUID());
+            group.setCreatedAt(LocalDateTime.now());
+            group.setUpdatedAt(LocalDateTime.now());
+            groups.add(group);
+        }
+        groupService = new GroupService(RepositoryStubs.stub(GroupRepository.class,
+                Map.of("findAllByOrderByIdAsc", args -> groups)), null);
+
+        List<Module> modules = new ArrayList<>(size);
+        List<ModuleLessonCount> lessonCounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Module module = new Module();
+            module.setId("module-" + i);
+            module.setCourseId("course-1");
+            module.setTitle("Module " + i);
+            module.setOrderIndex(i);
+            modules.add(module);
+            lessonCounts.add(new ModuleLessonCount(module.getId(), 10L));
+        }
+        moduleService = new ModuleService(
+                RepositoryStubs.stub(ModuleRepository.class, Map.of("findByCourseIdOrderByOrderIndexAsc", args -> modules)),
+                RepositoryStubs.stub(LessonRepository.class, Map.of("countLessonsByModuleIdIn", args -> lessonCounts)),
+                null, // stats are only touched on writes
+                passThroughCache());
+
+        List<String> students = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            students.add(UUID.randomUUID().toString());
+        }
+        course = new Course("course-1", "Java", "Java for beginners", students, 40, CourseStatus.IN_PROGRESS);
+    }
+
+    /**
+     * Structure cache that keeps nothing, so every call still runs the loader.
+     */
+    static StructureCache passThroughCache() {
+        return new StructureCache(0, Duration.ZERO, Duration.ZERO, (SharedCacheTier) null,
+                new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    @Benchmark
+    public List<GroupDto> groupServiceToDto() {
+        return groupService.getAllGroups(null, size).items();
+    }
+
+    @Benchmark
+    public List<ModuleDto> moduleServiceToDto() {
+        return moduleService.getModulesByCourseId("course-1");
+    }
+
+    @Benchmark
+    public CreateCourseResponse courseMapperToResponse() {
+        return CourseMapper.toResponse(course);
+    }
+}
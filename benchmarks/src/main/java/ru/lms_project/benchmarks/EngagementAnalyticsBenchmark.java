@@ -0,0 +1,111 @@
+package ru.lms_project.benchmarks;
+
+import com.lms.progressService.dto.TopCoursesDto;
+import com.lms.progressService.dto.UniqueViewersDto;
+import com.lms.progressService.model.EngagementSketch;
+import com.lms.progressService.repository.EngagementSketchRepository;
+import com.lms.progressService.service.CountMinSketch;
+import com.lms.progressService.service.EngagementAnalytics;
+import com.lms.progressService.service.HyperLogLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EngagementAnalytics}: recording one lesson view into the in-memory sketches, and the two dashboard
+ * queries over a week of stored daily sketches (a lesson with {@code viewersPerDay} viewers a day, course
+ * activity of {@code eventsPerDay} events a day over {@code courses} courses with a skewed distribution).
+ * The repository is an in-memory stub, so the query numbers are deserialization and merging only.
+ * The setup prints the stored size of one day of each sketch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EngagementAnalyticsBenchmark {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Param({"20000"})
+    public int viewersPerDay;
+
+    @Param({"5000"})
+    public int courses;
+
+    @Param({"200000"})
+    public int eventsPerDay;
+
+    private final UUID lessonId = UUID.randomUUID();
+    private UUID[] lessonPool;
+    private UUID[] coursePool;
+    private EngagementAnalytics analytics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        coursePool = new UUID[courses];
+        for (int i = 0; i < courses; i++) {
+            coursePool[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        lessonPool = new UUID[10_000];
+        for (int i = 0; i < lessonPool.length; i++) {
+            lessonPool[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        List<EngagementSketch> viewers = new ArrayList<>();
+        List<EngagementSketch> activity = new ArrayList<>();
+        for (int day = 0; day < 7; day++) {
+            HyperLogLog lessonViewers = new HyperLogLog();
+            for (int i = 0; i < viewersPerDay; i++) {
+                lessonViewers.add(new UUID(random.nextLong(), random.nextLong()));
+            }
+            CountMinSketch courseActivity = new CountMinSketch();
+            for (int i = 0; i < eventsPerDay; i++) {
+                // square of a uniform value: the first courses get most of the events
+                double skewed = random.nextDouble();
+                courseActivity.add(coursePool[(int) (skewed * skewed * courses)], 1);
+            }
+            LocalDate bucket = MONDAY.plusDays(day);
+            viewers.add(new EngagementSketch(EngagementSketch.Kind.LESSON_VIEWERS, lessonId, bucket,
+                    lessonViewers.serialize(), LocalDateTime.now()));
+            activity.add(new EngagementSketch(EngagementSketch.Kind.COURSE_ACTIVITY, EngagementSketch.ALL_COURSES, bucket,
+                    courseActivity.serialize(), LocalDateTime.now()));
+        }
+        System.out.printf("%nstored bytes per day: lesson viewers %d, course activity %d%n",
+                viewers.get(0).getData().length, activity.get(0).getData().length);
+
+        EngagementSketchRepository repository = RepositoryStubs.stub(EngagementSketchRepository.class,
+                Map.of("findByKindAndSubjectIdAndBucketBetween",
+                        args -> args[0] == EngagementSketch.Kind.COURSE_ACTIVITY ? activity : viewers));
+        // the TransactionTemplate is only used by flush(), which never runs here
+        analytics = new EngagementAnalytics(repository, null, new SimpleMeterRegistry(), 64, 50_000, 100, 92, 400);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        analytics.record(new UUID(random.nextLong(), random.nextLong()),
+                lessonPool[random.nextInt(lessonPool.length)], coursePool[random.nextInt(coursePool.length)]);
+    }
+
+    @Benchmark
+    public UniqueViewersDto weekLessonViewers() {
+        return analytics.lessonViewers(lessonId, MONDAY, MONDAY.plusDays(6));
+    }
+
+    @Benchmark
+    public TopCoursesDto weekTopCourses() {
+        return analytics.topCourses(MONDAY, MONDAY.plusDays(6), 10);
+    }
+}
@@ -0,0 +1,193 @@
+package ru.lms_project.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lms.progressService.ProgressServiceApplication;
+import com.lms.progressService.dto.LessonProgressDto;
+import com.lms.progressService.service.GroupProgressMatrixService;
+import com.lms.progressService.service.ProgressService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Completion grid of a group of {@code students} over a course of {@code lessons} lessons against a real PostgreSQL
+ * (same {@code LMS_BENCH_JDBC_*} variables as {@link ProgressBatchBenchmark}). Every student has finished a random
+ * prefix of the course with about 10% of the lessons skipped. {@code matrix} is the group matrix endpoint
+ * (lesson list from the course tree, one query streamed as JSON to a counting stream), {@code perStudent} is what a teacher's page does today:
+ * one {@link ProgressService#getCourseProgress} per student, each reply serialized as JSON.
+ * groupservice and the course tree of course-structure-service are stubs on a local port; the seeded rows are
+ * deleted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class GroupMatrixBenchmark {
+
+    @Param({"500"})
+    public int students;
+
+    @Param({"300"})
+    public int lessons;
+
+    private HttpServer groupStub;
+    private ConfigurableApplicationContext context;
+    private ProgressService progressService;
+    private GroupProgressMatrixService matrixService;
+    private ObjectMapper objectMapper;
+    private final UUID groupId = UUID.randomUUID();
+    private final UUID courseId = UUID.randomUUID();
+    private final List<UUID> studentIds = new ArrayList<>();
+    private final List<UUID> lessonIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        for (int i = 0; i < students; i++) {
+            studentIds.add(UUID.randomUUID());
+        }
+        for (int i = 0; i < lessons; i++) {
+            lessonIds.add(UUID.randomUUID());
+        }
+
+        String group = "{\"id\":\"" + groupId + "\",\"name\":\"Benchmark\",\"courseId\":\"" + courseId + "\"}";
+        String members = studentIds.stream().map(id -> "\"" + id + "\"").collect(Collectors.joining(",", "[", "]"));
+        String tree = "{\"courseId\":\"" + courseId + "\",\"modules\":[{\"id\":\"module\",\"lessons\":"
+                + lessonIds.stream().map(id -> "{\"id\":\"" + id + "\"}").collect(Collectors.joining(",", "[", "]"))
+                + "}]}";
+        // without TCP_NODELAY every stub reply waits for the client's delayed ACK (~40 ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        groupStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        groupStub.createContext("/api/v1/groups/", exchange ->
+                reply(exchange, exchange.getRequestURI().getPath().endsWith("/members") ? members : group));
+        groupStub.createContext("/api/v1/courses/", exchange -> reply(exchange, tree));
+        groupStub.start();
+
+        context = new SpringApplicationBuilder(ProgressServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.config.name=progress-benchmark",
+                        "spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration",
+                        "spring.datasource.url=" + env("LMS_BENCH_JDBC_URL", "jdbc:postgresql://localhost:5432/lms_db"),
+                        "spring.datasource.username=" + env("LMS_BENCH_JDBC_USER", "lms_user"),
+                        "spring.datasource.password=" + env("LMS_BENCH_JDBC_PASSWORD", "lms_password"),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.open-in-view=false",
+                        "spring.jpa.properties.hibernate.jdbc.time_zone=UTC",
+                        "course-structure.base-url=http://localhost:" + groupStub.getAddress().getPort(),
+                        "group-service.base-url=http://localhost:" + groupStub.getAddress().getPort())
+                .run();
+        progressService = context.getBean(ProgressService.class);
+        matrixService = context.getBean(GroupProgressMatrixService.class);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Random random = new Random(42);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (UUID student : studentIds) {
+            int reached = random.nextInt(lessons + 1);
+            for (int i = 0; i < reached; i++) {
+                if (random.nextInt(100) >= 10) {
+                    rows.add(new Object[]{UUID.randomUUID(), student, lessonIds.get(i), courseId, now, now});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO lesson_progress (id, user_id, lesson_id, course_id, completed,"
+                + " completed_at, last_accessed_at) VALUES (?, ?, ?, ?, true, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE lesson_progress");
+
+        CountingStream matrixBytes = new CountingStream();
+        matrixService.write(matrixService.build(groupId, null).orElseThrow(), matrixBytes);
+        CountingStream perStudentBytes = new CountingStream();
+        for (UUID student : studentIds) {
+            objectMapper.writeValue(perStudentBytes, progressService.getCourseProgress(student, courseId));
+        }
+        System.out.printf("%n%d completed lessons; matrix reply %d bytes, %d per-student replies %d bytes%n",
+                rows.size(), matrixBytes.count, students, perStudentBytes.count);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM lesson_progress WHERE course_id = ?", courseId);
+        context.close();
+        groupStub.stop(0);
+    }
+
+    @Benchmark
+    public long matrix() throws IOException {
+        CountingStream out = new CountingStream();
+        matrixService.write(matrixService.build(groupId, null).orElseThrow(), out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long perStudent() throws IOException {
+        CountingStream out = new CountingStream();
+        Map<UUID, Integer> columns = new HashMap<>();
+        List<BitSet> grid = new ArrayList<>(students);
+        for (UUID student : studentIds) {
+            List<LessonProgressDto> progress = progressService.getCourseProgress(student, courseId);
+            objectMapper.writeValue(out, progress);
+            BitSet completed = new BitSet();
+            for (LessonProgressDto lesson : progress) {
+                if (Boolean.TRUE.equals(lesson.getCompleted())) {
+                    completed.set(columns.computeIfAbsent(lesson.getLessonId(), id -> columns.size()));
+                }
+            }
+            grid.add(completed);
+        }
+        return out.count + grid.size();
+    }
+
+    private static void reply(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        return System.getenv().getOrDefault(name, defaultValue);
+    }
+
+    private static final class CountingStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.lms_project.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import ru.lms_project.notificationservice.dto.NotificationDto;
+import ru.lms_project.notificationservice.model.NotificationType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of list responses, configured like the Spring Boot default mapper
+ * (ISO dates, java.time support).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonSerializationBenchmark {
+    @Param({"20", "200"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<NotificationDto> notifications;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, NotificationDto.class));
+
+        NotificationType[] types = NotificationType.values();
+        notifications = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            notifications.add(NotificationDto.builder()
+                    .id(UUID.randomUUID().toString())
+                    .type(types[i % types.length])
+                    .title("Notification " + i)
+                    .message("You have been enrolled in course #" + i)
+                    .isRead(i % 3 == 0)
+                    .createdAt(LocalDateTime.now().minusMinutes(i))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] notificationList() throws Exception {
+        return writer.writeValueAsBytes(notifications);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.lms_project.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import ru.lms_project.authservice.service.TokenService;
+import ru.lms_project.common.security.JwtTokenProvider;
+import ru.lms_project.common.security.ParsedToken;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of access-token parsing.
+ * {@code parserPerCall} reproduces the old code path that built a new {@link JwtParser} for every token,
+ * {@code sharedParser} is the parser built once, the other two go through the real services.
+ * Run with {@code gradle :benchmarks:jmh -Pjmh.include=JwtParse}; the gc profiler reports {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class JwtParseBenchmark {
+    static final String SECRET = "benchmark-secret-benchmark-secret-123456";
+    static final String ISSUER = "lms-auth";
+    static final String AUDIENCE = "lms-api";
+
+    private SecretKey key;
+    private JwtParser sharedParser;
+    private TokenService tokenService;
+    private JwtTokenProvider tokenProvider;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        sharedParser = Jwts.parser()
+                .verifyWith(key)
+                .requireIssuer(ISSUER)
+                .clockSkewSeconds(60)
+                .build();
+
+        tokenService = new TokenService(SECRET, ISSUER, AUDIENCE, Duration.ofHours(1), Duration.ofDays(14));
+        // verified-token cache disabled so every call does the full signature and claims check
+        tokenProvider = new JwtTokenProvider(SECRET, ISSUER, AUDIENCE, 0);
+        accessToken = tokenService.generateAccessToken(UUID.randomUUID(), List.of("STUDENT", "ADMIN"));
+    }
+
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parser()
+                .verifyWith(key)
+                .requireIssuer(ISSUER)
+                .clockSkewSeconds(60)
+                .build()
+                .parseSignedClaims(accessToken)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return sharedParser.parseSignedClaims(accessToken).getPayload();
+    }
+
+    @Benchmark
+    public ParsedToken jwtTokenProvider() {
+        return tokenProvider.parseAccessToken(accessToken);
+    }
+
+    @Benchmark
+    public Object tokenServiceParseAccess() {
+        return tokenService.parseAccess(accessToken);
+    }
+}
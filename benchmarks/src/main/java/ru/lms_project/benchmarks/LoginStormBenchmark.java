@@ -0,0 +1,220 @@
+package ru.lms_project.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import ru.lms_project.authservice.AuthserviceApplication;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of authservice over HTTP: latency of {@code /refresh} from one client while {@code loginClients}
+ * other clients send {@code /login} with a BCrypt(12) password as fast as they get answers (after a 503 they
+ * wait for Retry-After, like a well-behaved client). Tomcat runs 50 threads, the hashing queue holds 16.
+ * {@code hashingThreads=0} is the hashing pool sized to the cores; {@code 1000} gives every request its own
+ * hashing thread, which is how login behaved when BCrypt ran on the request thread.
+ * Refresh sessions live in PostgreSQL (same {@code LMS_BENCH_JDBC_*} variables as {@link ProgressBatchBenchmark})
+ * and are deleted afterwards; userservice is a stub on a local port. The teardown prints the login outcomes,
+ * how long a request held its database connection, how often refresh found the user status cached and the
+ * userservice calls made through the shared HTTP client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class LoginStormBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"0", "100"})
+    public int loginClients;
+
+    @Param({"0", "1000"})
+    public int hashingThreads;
+
+    /** Added to every userservice reply. */
+    @Param({"0"})
+    public int userServiceDelayMs;
+
+    private final UUID userId = UUID.randomUUID();
+    private final String email = "storm-" + userId + "@example.com";
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong loggedIn = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private HttpServer userStub;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private ExecutorService storm;
+    private volatile boolean storming;
+    private String refreshToken;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String user = objectMapper.writeValueAsString(objectMapper.createObjectNode()
+                .put("id", userId.toString())
+                .put("email", email)
+                .put("passwordHash", new BCryptPasswordEncoder(12).encode(PASSWORD))
+                .put("role", "STUDENT")
+                .put("active", true));
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        userStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        userStub.setExecutor(Executors.newCachedThreadPool());
+        userStub.createContext("/api/v1/users/", exchange -> {
+            try {
+                Thread.sleep(userServiceDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            reply(exchange, user);
+        });
+        userStub.start();
+
+        context = new SpringApplicationBuilder(AuthserviceApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(
+                        "spring.config.name=auth-benchmark",
+                        "spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration",
+                        "server.port=0",
+                        "server.tomcat.threads.max=50",
+                        "spring.datasource.url=" + env("LMS_BENCH_JDBC_URL", "jdbc:postgresql://localhost:5432/lms_db"),
+                        "spring.datasource.username=" + env("LMS_BENCH_JDBC_USER", "lms_user"),
+                        "spring.datasource.password=" + env("LMS_BENCH_JDBC_PASSWORD", "lms_password"),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.open-in-view=false",
+                        "spring.jpa.properties.hibernate.jdbc.time_zone=UTC",
+                        "auth.tokens.issuer=http://localhost",
+                        "auth.tokens.audience=lms-api",
+                        "auth.tokens.access.ttl=15m",
+                        "auth.tokens.refresh.ttl=14d",
+                        "auth.tokens.secret=" + JwtParseBenchmark.SECRET,
+                        "auth.userservice.base-url=http://localhost:" + userStub.getAddress().getPort() + "/api/v1/users",
+                        "auth.password-hashing.threads=" + hashingThreads,
+                        "auth.password-hashing.queue-capacity=16",
+                        "logging.level.root=WARN")
+                .run();
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/v1/auth";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        refreshToken = post("/login", login()).body().get("refreshToken").asText();
+
+        storming = true;
+        storm = Executors.newFixedThreadPool(Math.max(1, loginClients));
+        for (int i = 0; i < loginClients; i++) {
+            storm.submit(this::loginLoop);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        storming = false;
+        storm.shutdownNow();
+        storm.awaitTermination(1, TimeUnit.MINUTES);
+        System.out.printf("%nlogins during the run: %d ok, %d rejected with 503, %d failed%n",
+                loggedIn.get(), rejected.get(), failed.get());
+        Timer usage = context.getBean(MeterRegistry.class).get("hikaricp.connections.usage").timer();
+        System.out.printf("database connection held %.2f ms on average, %.2f ms at most (%d checkouts)%n",
+                usage.mean(TimeUnit.MILLISECONDS), usage.max(TimeUnit.MILLISECONDS), usage.count());
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        Timer age = registry.get("auth.user_status.cache.age").timer();
+        System.out.printf("user status cache: %.1f%% hits, %d userservice calls, served entries %.0f ms old on average, %.0f ms at most%n",
+                registry.get("auth.user_status.cache.hit.ratio").gauge().value() * 100,
+                registry.get("auth.user_status.cache.load").timer().count(),
+                age.mean(TimeUnit.MILLISECONDS), age.max(TimeUnit.MILLISECONDS));
+        for (Timer calls : registry.find("lms.http.client.calls").tag("client", "userservice").timers()) {
+            System.out.printf("userservice %s %s: %d calls, %.2f ms on average, %.2f ms at most%n",
+                    calls.getId().getTag("method"), calls.getId().getTag("outcome"), calls.count(),
+                    calls.mean(TimeUnit.MILLISECONDS), calls.max(TimeUnit.MILLISECONDS));
+        }
+        context.getBean(JdbcTemplate.class).update("DELETE FROM refresh_token_session WHERE user_id = ?", userId);
+        context.close();
+        userStub.stop(0);
+    }
+
+    @Benchmark
+    public String refresh() throws Exception {
+        Reply reply = post("/refresh", objectMapper.createObjectNode().put("oldRefreshToken", refreshToken).toString());
+        if (reply.status() != 200) {
+            throw new IllegalStateException("refresh failed: " + reply.status() + " " + reply.body());
+        }
+        refreshToken = reply.body().get("refreshToken").asText();
+        return refreshToken;
+    }
+
+    private void loginLoop() {
+        String body = login();
+        while (storming) {
+            try {
+                Reply reply = post("/login", body);
+                if (reply.status() == 200) {
+                    loggedIn.incrementAndGet();
+                } else if (reply.status() == 503) {
+                    rejected.incrementAndGet();
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(Long.parseLong(reply.retryAfter())));
+                } else {
+                    failed.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    private String login() {
+        return objectMapper.createObjectNode().put("email", email).put("password", PASSWORD).toString();
+    }
+
+    private Reply post(String path, String json) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new Reply(response.statusCode(), objectMapper.readTree(response.body()),
+                response.headers().firstValue("Retry-After").orElse("1"));
+    }
+
+    private static void reply(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        return System.getenv().getOrDefault(name, defaultValue);
+    }
+
+    private record Reply(int status, JsonNode body, String retryAfter) {
+    }
+}
@@ -0,0 +1,166 @@
+package ru.lms_project.benchmarks;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import ru.lms_project.coursestructure.dto.ModuleDto;
+import ru.lms_project.coursestructure.model.Lesson;
+import ru.lms_project.coursestructure.model.LessonType;
+import ru.lms_project.coursestructure.model.Module;
+import ru.lms_project.coursestructure.repository.LessonRepository;
+import ru.lms_project.coursestructure.repository.ModuleRepository;
+import ru.lms_project.coursestructure.service.ModuleService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listing the modules of one course with lesson counts, against a real MongoDB
+ * ({@code LMS_BENCH_MONGO_URI}, default {@code mongodb://localhost:27017}).
+ * {@code perModuleLessonQueries} is the old path (one lessons query per module, full documents),
+ * {@code groupedLessonCount} is {@link ModuleService#getModulesByCourseId}.
+ * Round-trips and reply bytes per operation are printed after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ModuleListingBenchmark {
+    private static final String COURSE_ID = "bench-course";
+    private static final Set<String> READ_COMMANDS = Set.of("find", "aggregate", "getMore", "count");
+
+    @Param({"10", "100", "1000"})
+    public int modules;
+
+    @Param({"8"})
+    public int lessonsPerModule;
+
+    @Param({"2048"})
+    public int contentBytes;
+
+    private final LongAdder roundTrips = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder operations = new LongAdder();
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ModuleRepository moduleRepository;
+    private LessonRepository lessonRepository;
+    private ModuleService moduleService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String uri = System.getenv().getOrDefault("LMS_BENCH_MONGO_URI", "mongodb://localhost:27017");
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .addCommandListener(new TrafficListener())
+                .build());
+        mongoTemplate = new MongoTemplate(client, "lms_benchmarks");
+        mongoTemplate.dropCollection(Module.class);
+        mongoTemplate.dropCollection(Lesson.class);
+
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        moduleRepository = factory.getRepository(ModuleRepository.class);
+        lessonRepository = factory.getRepository(LessonRepository.class);
+        // the listing path does not touch course stats, they are only maintained on writes
+        moduleService = new ModuleService(moduleRepository, lessonRepository, null, DtoMapperBenchmark.passThroughCache());
+
+        mongoTemplate.indexOps(Module.class).createIndex(new Index("courseId", Sort.Direction.ASC));
+        mongoTemplate.indexOps(Lesson.class).createIndex(new Index("moduleId", Sort.Direction.ASC));
+
+        String content = "x".repeat(contentBytes);
+        List<Module> moduleDocs = new ArrayList<>(modules);
+        for (int i = 0; i < modules; i++) {
+            Module module = new Module();
+            module.setCourseId(COURSE_ID);
+            module.setTitle("Module " + i);
+            module.setOrderIndex(i);
+            moduleDocs.add(module);
+        }
+        moduleDocs = new ArrayList<>(mongoTemplate.insertAll(moduleDocs));
+
+        List<Lesson> lessonDocs = new ArrayList<>(modules * lessonsPerModule);
+        for (Module module : moduleDocs) {
+            for (int j = 0; j < lessonsPerModule; j++) {
+                Lesson lesson = new Lesson();
+                lesson.setModuleId(module.getId());
+                lesson.setTitle("Lesson " + j);
+                lesson.setContent(content);
+                lesson.setType(LessonType.TEXT);
+                lesson.setDuration(10);
+                lesson.setOrderIndex(j);
+                lessonDocs.add(lesson);
+            }
+        }
+        mongoTemplate.insertAll(lessonDocs);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTraffic() {
+        roundTrips.reset();
+        bytesRead.reset();
+        operations.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printTraffic() {
+        long ops = Math.max(1, operations.sum());
+        System.out.printf("%n  modules=%d: %.1f round-trips/op, %.0f reply bytes/op%n",
+                modules, (double) roundTrips.sum() / ops, (double) bytesRead.sum() / ops);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Benchmark
+    public long perModuleLessonQueries() {
+        operations.increment();
+        long total = 0;
+        for (Module module : moduleRepository.findByCourseIdOrderByOrderIndexAsc(COURSE_ID)) {
+            total += lessonRepository.findByModuleIdOrderByOrderIndexAsc(module.getId()).size();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public List<ModuleDto> groupedLessonCount() {
+        operations.increment();
+        return moduleService.getModulesByCourseId(COURSE_ID);
+    }
+
+    private class TrafficListener implements CommandListener {
+        private final BsonDocumentCodec codec = new BsonDocumentCodec();
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (READ_COMMANDS.contains(event.getCommandName())) {
+                roundTrips.increment();
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            if (READ_COMMANDS.contains(event.getCommandName())) {
+                bytesRead.add(new RawBsonDocument(event.getResponse(), codec).getByteBuffer().remaining());
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ru.lms_project.benchmarks;
+
+import com.lms.progressService.ProgressServiceApplication;
+import com.lms.progressService.dto.LessonCompletionItem;
+import com.lms.progressService.dto.LessonCompletionResultDto;
+import com.lms.progressService.dto.LessonProgressDto;
+import com.lms.progressService.service.ProgressService;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaying {@code lessons} completions of one student against a real PostgreSQL
+ * ({@code LMS_BENCH_JDBC_URL}, default {@code jdbc:postgresql://localhost:5432/lms_db}, user and password from
+ * {@code LMS_BENCH_JDBC_USER} / {@code LMS_BENCH_JDBC_PASSWORD}).
+ * {@code singleCalls} is what an offline client does today (one {@link ProgressService#completeLessonProgress}
+ * per lesson), {@code batchCall} is one {@link ProgressService#completeLessonsBatch}.
+ * The lesson total is served by a stub of course-structure-service on a local port.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProgressBatchBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int lessons;
+
+    private HttpServer structureStub;
+    private ConfigurableApplicationContext context;
+    private ProgressService progressService;
+    private UUID userId;
+    private UUID courseId;
+    private List<LessonCompletionItem> items;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        structureStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        structureStub.createContext("/api/v1/courses/", exchange -> {
+            byte[] body = ("{\"totalLessons\":" + lessons + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        structureStub.start();
+
+        context = new SpringApplicationBuilder(ProgressServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                // other services on the benchmark classpath ship their own application.properties
+                .properties(
+                        "spring.config.name=progress-benchmark",
+                        "spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration",
+                        "spring.datasource.url=" + env("LMS_BENCH_JDBC_URL", "jdbc:postgresql://localhost:5432/lms_db"),
+                        "spring.datasource.username=" + env("LMS_BENCH_JDBC_USER", "lms_user"),
+                        "spring.datasource.password=" + env("LMS_BENCH_JDBC_PASSWORD", "lms_password"),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.open-in-view=false",
+                        "spring.jpa.properties.hibernate.jdbc.time_zone=UTC",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "progress.batch.max-items=1000",
+                        "course-structure.base-url=http://localhost:" + structureStub.getAddress().getPort())
+                .run();
+        progressService = context.getBean(ProgressService.class);
+
+        userId = UUID.randomUUID();
+        courseId = UUID.randomUUID();
+        items = new ArrayList<>(lessons);
+        for (int i = 0; i < lessons; i++) {
+            items.add(new LessonCompletionItem(UUID.randomUUID(), courseId, null));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM lesson_progress WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM course_progress_summary WHERE user_id = ?", userId);
+        context.close();
+        structureStub.stop(0);
+    }
+
+    @Benchmark
+    public LessonProgressDto singleCalls() {
+        LessonProgressDto last = null;
+        for (LessonCompletionItem item : items) {
+            last = progressService.completeLessonProgress(userId, item.getLessonId(), item.getCourseId(), null);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public List<LessonCompletionResultDto> batchCall() {
+        return progressService.completeLessonsBatch(userId, items, null);
+    }
+
+    private static String env(String name, String defaultValue) {
+        return System.getenv().getOrDefault(name, defaultValue);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.lms_project.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories, so service-level benchmarks measure
+ * the mapping code and not a database driver.
+ */
+final class RepositoryStubs {
+    private RepositoryStubs() {}
+
+    static <T> T stub(Class<T> repositoryType, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(
+                repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType},
+                (self, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(self);
+                            case "equals" -> self == args[0];
+                            default -> repositoryType.getSimpleName() + " stub";
+                        };
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+                });
+        return repositoryType.cast(proxy);
+    }
+}
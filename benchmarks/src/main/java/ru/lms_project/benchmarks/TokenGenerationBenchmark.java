@@ -0,0 +1,70 @@
+package ru.lms_project.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.lms_project.authservice.service.AuthServiceImpl;
+import ru.lms_project.authservice.service.TokenService;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing on login/refresh: access and refresh token signing and the refresh-token hash
+ * that is stored in refresh_token_session.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class TokenGenerationBenchmark {
+    // hashRefresh is a private helper of AuthServiceImpl; a method handle keeps the call direct
+    private static final MethodHandle HASH_REFRESH;
+
+    static {
+        try {
+            HASH_REFRESH = MethodHandles.privateLookupIn(AuthServiceImpl.class, MethodHandles.lookup())
+                    .findVirtual(AuthServiceImpl.class, "hashRefresh", MethodType.methodType(String.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private TokenService tokenService;
+    private AuthServiceImpl authService;
+    private UUID userId;
+    private UUID sessionId;
+    private List<String> roles;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService(JwtParseBenchmark.SECRET, JwtParseBenchmark.ISSUER, JwtParseBenchmark.AUDIENCE,
+                Duration.ofMinutes(15), Duration.ofDays(14));
+        authService = new AuthServiceImpl(null, tokenService, null, null, null);
+        userId = UUID.randomUUID();
+        sessionId = UUID.randomUUID();
+        roles = List.of("STUDENT");
+        refreshToken = tokenService.generateRefreshToken(userId, sessionId);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return tokenService.generateAccessToken(userId, roles);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return tokenService.generateRefreshToken(userId, sessionId);
+    }
+
+    @Benchmark
+    public String hashRefresh() throws Throwable {
+        return (String) HASH_REFRESH.invokeExact(authService, refreshToken);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.lms_project.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import ru.lms_project.common.security.UserPrincipal;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserPrincipal#getAuthorities()} is called by Spring Security on every authorization check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserPrincipalBenchmark {
+    private UserPrincipal singleRole;
+    private UserPrincipal severalRoles;
+
+    @Setup
+    public void setUp() {
+        singleRole = new UserPrincipal(UUID.randomUUID(), List.of("STUDENT"));
+        severalRoles = new UserPrincipal(UUID.randomUUID(), List.of("STUDENT", "TEACHER", "ROLE_ADMIN"));
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> singleRole() {
+        return singleRole.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> severalRoles() {
+        return severalRoles.getAuthorities();
+    }
+}
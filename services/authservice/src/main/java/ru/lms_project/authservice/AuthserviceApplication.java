@@ -4,7 +4,10 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = {
+		"ru.lms_project.authservice",
+		"ru.lms_project.common.http"
+})
 @EnableJpaAuditing
 public class AuthserviceApplication {
 
@@ -0,0 +1,120 @@
+package ru.lms_project.authservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Subscribes to the user events channel. The connection is opened on a background thread after the first
+ * {@link #subscribe}, so authservice starts without Redis; a failed attempt is repeated every
+ * {@link #RECONNECT_INTERVAL}. Once connected, Lettuce reconnects and subscribes again by itself.
+ * Events published while there is no connection are lost.
+ */
+@Slf4j
+public class RedisUserEventChannel implements UserEventChannel, AutoCloseable {
+
+    static final Duration RECONNECT_INTERVAL = Duration.ofSeconds(5);
+
+    private final RedisClient client;
+    private final ScheduledExecutorService connector;
+    private final String channel;
+    private final ObjectMapper objectMapper;
+    private final List<Consumer<UserChangedEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile StatefulRedisPubSubConnection<String, String> connection;
+
+    public RedisUserEventChannel(String url, Duration timeout, String channel, ObjectMapper objectMapper) {
+        RedisURI uri = RedisURI.create(url);
+        uri.setTimeout(timeout);
+        this.client = RedisClient.create(uri);
+        this.client.setOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                .build());
+        this.channel = channel;
+        this.objectMapper = objectMapper;
+        this.connector = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "redis-user-events-connect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void subscribe(Consumer<UserChangedEvent> listener) {
+        listeners.add(listener);
+        if (started.compareAndSet(false, true)) {
+            connector.execute(this::connect);
+        }
+    }
+
+    boolean isConnected() {
+        return connection != null;
+    }
+
+    @Override
+    public void close() {
+        connector.shutdownNow();
+        StatefulRedisPubSubConnection<String, String> current = connection;
+        if (current != null) {
+            current.close();
+        }
+        client.shutdown();
+    }
+
+    private void connect() {
+        StatefulRedisPubSubConnection<String, String> opened = null;
+        try {
+            opened = client.connectPubSub();
+            opened.addListener(new RedisPubSubAdapter<>() {
+                @Override
+                public void message(String from, String message) {
+                    if (channel.equals(from)) {
+                        dispatch(message);
+                    }
+                }
+            });
+            opened.sync().subscribe(channel);
+            if (connector.isShutdown()) {
+                opened.close();
+                return;
+            }
+            connection = opened;
+            log.info("Subscribed to user events on {}", channel);
+        } catch (RuntimeException e) {
+            if (opened != null) {
+                opened.close();
+            }
+            log.warn("Cannot subscribe to user events, cached statuses expire by TTL only, retrying in {}: {}",
+                    RECONNECT_INTERVAL, e.getMessage());
+            if (!connector.isShutdown()) {
+                connector.schedule(this::connect, RECONNECT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void dispatch(String message) {
+        try {
+            UserChangedEvent event = objectMapper.readValue(message, UserChangedEvent.class);
+            for (Consumer<UserChangedEvent> listener : listeners) {
+                listener.accept(event);
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring user event {}", message, e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.lms_project.authservice.cache;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Published by userservice after a user is deactivated, reactivated, changes role or is deleted.
+ */
+public record UserChangedEvent(UUID userId, String change, Instant changedAt) {
+}
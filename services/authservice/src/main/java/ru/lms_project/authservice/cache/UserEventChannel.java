@@ -0,0 +1,12 @@
+package ru.lms_project.authservice.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Channel of user changes from userservice (Redis pub/sub). Delivery is best effort:
+ * a missed event only means the cached status lives until its TTL.
+ */
+public interface UserEventChannel {
+
+    void subscribe(Consumer<UserChangedEvent> listener);
+}
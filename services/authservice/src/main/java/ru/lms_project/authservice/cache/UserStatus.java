@@ -0,0 +1,7 @@
+package ru.lms_project.authservice.cache;
+
+/**
+ * What refresh needs to know about a user. A user that userservice does not know is inactive.
+ */
+public record UserStatus(boolean active, String role) {
+}
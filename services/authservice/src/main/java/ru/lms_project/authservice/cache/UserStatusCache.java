@@ -0,0 +1,159 @@
+package ru.lms_project.authservice.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import ru.lms_project.authservice.dto.UserDto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Short-lived cache of {@code active} and {@code role} per user, read on every refresh instead of calling
+ * userservice. userservice publishes changes to {@link UserEventChannel} and the entry is dropped at once;
+ * without the channel (or if an event is lost) an entry is served for at most {@code auth.user-status.cache.ttl}.
+ * Concurrent misses for one user wait for a single userservice call, made outside the cache's locks.
+ */
+@Component
+@Slf4j
+public class UserStatusCache {
+
+    private final AsyncCache<UUID, Entry> cache;
+    private final RestTemplate restTemplate;
+    private final String userServiceUrl;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    private final Timer loadTimer;
+    private final Timer servedAge;
+    private final Timer invalidationLag;
+
+    @Autowired
+    public UserStatusCache(RestTemplate restTemplate,
+                           MeterRegistry meterRegistry,
+                           ObjectProvider<UserEventChannel> channel,
+                           @Value("${auth.userservice.base-url}") String userServiceUrl,
+                           @Value("${auth.user-status.cache.max-size:100000}") long maxSize,
+                           @Value("${auth.user-status.cache.ttl:PT30S}") Duration ttl) {
+        this(restTemplate, meterRegistry, channel.getIfAvailable(), userServiceUrl, maxSize, ttl);
+    }
+
+    public UserStatusCache(RestTemplate restTemplate, MeterRegistry meterRegistry, UserEventChannel channel,
+                           String userServiceUrl, long maxSize, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        this.restTemplate = restTemplate;
+        this.userServiceUrl = userServiceUrl;
+
+        hits = requests(meterRegistry, "hit");
+        misses = requests(meterRegistry, "miss");
+        Gauge.builder("auth.user_status.cache.hit.ratio", this, UserStatusCache::hitRatio)
+                .description("Share of refreshes that did not call userservice")
+                .register(meterRegistry);
+        Gauge.builder("auth.user_status.cache.size", cache, c -> c.synchronous().estimatedSize())
+                .register(meterRegistry);
+        loadTimer = Timer.builder("auth.user_status.cache.load")
+                .description("userservice call on a cache miss")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        servedAge = Timer.builder("auth.user_status.cache.age")
+                .description("Age of the cached status when it was served")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        invalidations = Counter.builder("auth.user_status.invalidations")
+                .description("User change events received from userservice")
+                .register(meterRegistry);
+        invalidationLag = Timer.builder("auth.user_status.invalidation.lag")
+                .description("Time from the change in userservice to the cache entry being dropped")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        if (channel != null) {
+            channel.subscribe(this::invalidate);
+        }
+    }
+
+    public UserStatus get(UUID userId) {
+        CompletableFuture<Entry> loading = new CompletableFuture<>();
+        CompletableFuture<Entry> cached = cache.get(userId, (id, executor) -> loading);
+        if (cached != loading) {
+            hits.increment();
+            Entry entry = join(cached);
+            servedAge.record(Duration.between(entry.loadedAt(), Instant.now()));
+            return entry.status();
+        }
+
+        misses.increment();
+        try {
+            Entry entry = new Entry(loadTimer.record(() -> fetch(userId)), Instant.now());
+            loading.complete(entry);
+            return entry.status();
+        } catch (RuntimeException e) {
+            // a failed future is removed by the cache, the next refresh asks userservice again
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(UserChangedEvent event) {
+        cache.synchronous().invalidate(event.userId());
+        invalidations.increment();
+        if (event.changedAt() != null) {
+            invalidationLag.record(Duration.between(event.changedAt(), Instant.now()).abs());
+        }
+        log.debug("Dropped cached status of user {} after {}", event.userId(), event.change());
+    }
+
+    private UserStatus fetch(UUID userId) {
+        try {
+            UserDto user = restTemplate.getForObject(userServiceUrl + "/" + userId, UserDto.class);
+            if (user == null) {
+                return new UserStatus(false, null);
+            }
+            return new UserStatus(Boolean.TRUE.equals(user.getActive()), user.getRole());
+        } catch (HttpClientErrorException.NotFound e) {
+            return new UserStatus(false, null);
+        }
+    }
+
+    private static Entry join(CompletableFuture<Entry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("auth.user_status.cache.requests")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record Entry(UserStatus status, Instant loadedAt) {
+    }
+}
@@ -2,18 +2,15 @@ package ru.lms_project.authservice.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import ru.lms_project.common.http.DownstreamClients;
 
 @Configuration
 public class HttpClientsConfig {
 
+    // pool, timeouts, retry and circuit breaker: lms.http-clients.userservice.*
     @Bean
-    public RestTemplate restTemplate() {
-        var factory = new HttpComponentsClientHttpRequestFactory();
-        factory.setConnectTimeout(2000);
-        factory.setReadTimeout(3000);
-
-        return new RestTemplate(factory);
+    public RestTemplate restTemplate(DownstreamClients downstreamClients) {
+        return downstreamClients.restTemplate("userservice");
     }
 }
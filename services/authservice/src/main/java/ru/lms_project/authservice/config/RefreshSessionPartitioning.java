@@ -0,0 +1,246 @@
+package ru.lms_project.authservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Range-partitions refresh_token_session by month of {@code expires}, so sessions that expired long ago are
+ * removed by dropping their partition instead of deleting and vacuuming rows. Runs after Hibernate has updated
+ * the schema and skips the conversion if the table is already partitioned.
+ *
+ * <p>The conversion copies existing rows in one transaction under an ACCESS EXCLUSIVE lock, so logins and
+ * refreshes wait for it: convert a large table in a maintenance window. Unique keys of a partitioned table
+ * must contain the partition key, so the primary key becomes (id, expires) and token_hash is only unique together
+ * with expires: the database no longer enforces unique hashes (they are SHA-256 of tokens with a random id).
+ * Session lookups by id also filter by expires, the {@code exp} of the token, so they read one partition.
+ *
+ * <p>Every day (and at startup) partitions are created {@code months-ahead} months in advance and partitions
+ * that ended before {@code auth.sessions.purge.grace} ago are dropped. Creating a partition locks the parent
+ * table; an expired one is first detached with {@code DETACH PARTITION ... CONCURRENTLY}, which only blocks other
+ * DDL, and then dropped as a plain table. Both give up after {@code lock-timeout} and try again on the next run;
+ * a detach that was interrupted is finished with {@code DETACH PARTITION ... FINALIZE}, and a partition that was
+ * detached but not dropped is dropped by name.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.sessions.partitioning.enabled", havingValue = "true")
+public class RefreshSessionPartitioning implements SmartInitializingSingleton {
+
+    static final String TABLE = "refresh_token_session";
+    private static final String OLD_TABLE = TABLE + "_unpartitioned";
+    private static final Pattern PARTITION = Pattern.compile(TABLE + "_(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final Duration grace;
+    private final Duration lockTimeout;
+    private final Counter droppedRows;
+
+    public RefreshSessionPartitioning(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${auth.sessions.partitioning.months-ahead:2}") int monthsAhead,
+                                      @Value("${auth.sessions.purge.grace:P1D}") Duration grace,
+                                      @Value("${auth.sessions.partitioning.lock-timeout:PT5S}") Duration lockTimeout) {
+        if (monthsAhead < 1) {
+            throw new IllegalArgumentException("auth.sessions.partitioning.months-ahead must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.grace = grace;
+        this.lockTimeout = lockTimeout;
+        this.droppedRows = Counter.builder("auth.sessions.purged")
+                .description("Expired refresh sessions removed")
+                .tag("method", "drop_partition")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+        maintain();
+    }
+
+    /**
+     * @return {@code true} if this call converted the table
+     */
+    public boolean migrate() {
+        Boolean migrated = transactionTemplate.execute(status -> {
+            String kind = relationKind();
+            if (kind == null || "p".equals(kind)) {
+                return false;
+            }
+            // check again under the lock: another instance may have converted the table meanwhile
+            jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+            if ("p".equals(relationKind())) {
+                return false;
+            }
+
+            Timestamp oldest = jdbcTemplate.queryForObject("SELECT min(expires) FROM " + TABLE, Timestamp.class);
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            YearMonth first = oldest == null ? current : YearMonth.from(oldest.toInstant().atOffset(ZoneOffset.UTC));
+            if (first.isAfter(current)) {
+                first = current;
+            }
+
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + OLD_TABLE);
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + OLD_TABLE + " INCLUDING DEFAULTS)"
+                    + " PARTITION BY RANGE (expires)");
+            for (YearMonth month = first; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+                jdbcTemplate.execute(createPartition(month));
+            }
+            int rows = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + OLD_TABLE);
+            jdbcTemplate.execute("DROP TABLE " + OLD_TABLE);
+
+            // constraints and indexes after the copy: faster than maintaining them on every insert
+            jdbcTemplate.execute("ALTER TABLE " + TABLE
+                    + " ADD CONSTRAINT refresh_token_session_pkey PRIMARY KEY (id, expires),"
+                    + " ADD CONSTRAINT uk_refresh_session_token_hash UNIQUE (token_hash, expires)");
+            jdbcTemplate.execute("CREATE INDEX idx_refresh_session_user_status ON " + TABLE + " (user_id, status)");
+            jdbcTemplate.execute("CREATE INDEX idx_refresh_session_expires ON " + TABLE + " (expires)");
+            jdbcTemplate.execute("ANALYZE " + TABLE);
+            log.info("Table {} is range-partitioned by expires (monthly since {}), {} rows moved", TABLE, first, rows);
+            return true;
+        });
+        return Boolean.TRUE.equals(migrated);
+    }
+
+    @Scheduled(cron = "${auth.sessions.partitioning.cron:0 15 3 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!"p".equals(relationKind())) {
+            return;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            String sql = createPartition(month);
+            withLockTimeout("create partition for " + month, () -> jdbcTemplate.execute(sql));
+        }
+
+        Instant cutoff = Instant.now().minus(grace);
+        for (Partition partition : partitions()) {
+            YearMonth month = month(partition.name());
+            if (month != null && !start(month.plusMonths(1)).isAfter(cutoff)) {
+                drop(partition);
+            }
+        }
+    }
+
+    /**
+     * DETACH ... CONCURRENTLY cannot run in a transaction block, so this uses one connection in autocommit
+     * mode; maintain() is never called inside a transaction.
+     */
+    private void drop(Partition partition) {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET lock_timeout = '" + lockTimeout.toMillis() + "ms'");
+                    try {
+                        if (partition.state() == DetachState.ATTACHED) {
+                            statement.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name()
+                                    + " CONCURRENTLY");
+                        } else if (partition.state() == DetachState.PENDING) {
+                            statement.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name()
+                                    + " FINALIZE");
+                        }
+                        long rows;
+                        try (ResultSet count = statement.executeQuery("SELECT count(*) FROM " + partition.name())) {
+                            count.next();
+                            rows = count.getLong(1);
+                        }
+                        statement.execute("DROP TABLE " + partition.name());
+                        droppedRows.increment(rows);
+                        log.info("Dropped partition {} with {} expired refresh sessions", partition.name(), rows);
+                    } finally {
+                        statement.execute("RESET lock_timeout");
+                    }
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not drop partition {} of {}, will retry on the next run: {}",
+                    partition.name(), TABLE, e.getMessage());
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_%04d_%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    static String createPartition(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + start(month) + "') TO ('" + start(month.plusMonths(1)) + "')";
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private static YearMonth month(String partition) {
+        Matcher m = PARTITION.matcher(partition);
+        return m.matches() ? YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))) : null;
+    }
+
+    private void withLockTimeout(String action, Runnable work) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeout.toMillis() + "ms'");
+                work.run();
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not {} of {}, will retry on the next run: {}", action, TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Monthly tables of the current schema, attached or not: a partition that was detached but not dropped
+     * is no longer in pg_inherits.
+     */
+    private List<Partition> partitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname::text AS name, i.inhdetachpending AS pending"
+                        + " FROM pg_class c LEFT JOIN pg_inherits i ON i.inhrelid = c.oid AND i.inhparent = to_regclass(?)"
+                        + " WHERE c.relkind = 'r' AND c.relnamespace = current_schema()::regnamespace"
+                        + " AND c.relname ~ ? ORDER BY c.relname",
+                (rs, rowNum) -> {
+                    boolean pending = rs.getBoolean("pending");
+                    DetachState state = rs.wasNull() ? DetachState.DETACHED
+                            : pending ? DetachState.PENDING : DetachState.ATTACHED;
+                    return new Partition(rs.getString("name"), state);
+                },
+                TABLE, "^" + PARTITION.pattern() + "$");
+    }
+
+    private enum DetachState { ATTACHED, PENDING, DETACHED }
+
+    private record Partition(String name, DetachState state) {
+    }
+
+    private String relationKind() {
+        return jdbcTemplate.queryForObject(
+                "SELECT (SELECT relkind FROM pg_class WHERE oid = to_regclass(?))::text", String.class, TABLE);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.lms_project.authservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.lms_project.authservice.cache.RedisUserEventChannel;
+
+import java.time.Duration;
+
+@Configuration
+public class UserStatusCacheConfig {
+
+    // without this bean cached user statuses are only dropped by TTL
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "auth.user-status.events.redis.enabled", havingValue = "true")
+    public RedisUserEventChannel redisUserEventChannel(
+            @Value("${auth.user-status.events.redis.url:redis://localhost:6379}") String url,
+            @Value("${auth.user-status.events.redis.timeout:PT0.2S}") Duration timeout,
+            @Value("${auth.user-status.events.redis.channel:lms:user-events}") String channel,
+            ObjectMapper objectMapper
+    ) {
+        return new RedisUserEventChannel(url, timeout, channel, objectMapper);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.lms_project.authservice.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.client.HttpClientErrorException;
 import ru.lms_project.authservice.dto.ApiError;
 import ru.lms_project.authservice.dto.ErrorResponse;
+import ru.lms_project.common.http.DownstreamUnavailableException;
 
 import java.util.Set;
 
@@ -23,6 +25,20 @@ public class AuthExceptionHandler {
         return ResponseEntity.status(status).body(new ApiError(code, detail));
     }
 
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ApiError> handleHashingRejected(PasswordHashingRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(new ApiError("server_busy", ex.getMessage()));
+    }
+
+    @ExceptionHandler(DownstreamUnavailableException.class)
+    public ResponseEntity<ApiError> handleDownstreamUnavailable(DownstreamUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(new ApiError(ex.getClient() + "_unavailable", ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiError> handleValidation(MethodArgumentNotValidException ex){
         return ResponseEntity.badRequest().body(new ApiError("bad_request", "Validation failed"));
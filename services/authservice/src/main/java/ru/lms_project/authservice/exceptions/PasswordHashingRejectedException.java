@@ -0,0 +1,15 @@
+package ru.lms_project.authservice.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class PasswordHashingRejectedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(Duration retryAfter) {
+        super("Too many logins in progress, retry later");
+        this.retryAfter = retryAfter;
+    }
+}
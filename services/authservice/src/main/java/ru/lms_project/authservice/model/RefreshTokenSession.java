@@ -2,6 +2,7 @@ package ru.lms_project.authservice.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.PartitionKey;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -10,7 +11,15 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "refresh_token_session")
+@Table(
+        name = "refresh_token_session",
+        uniqueConstraints = @UniqueConstraint(name = "uk_refresh_session_token_hash", columnNames = "token_hash"),
+        indexes = {
+                @Index(name = "idx_refresh_session_user_status", columnList = "user_id, status"),
+                // RefreshSessionPurger finds expired sessions by expires < cutoff
+                @Index(name = "idx_refresh_session_expires", columnList = "expires")
+        }
+)
 @Data
 @EntityListeners(AuditingEntityListener.class)
 public class RefreshTokenSession {
@@ -20,13 +29,15 @@ public class RefreshTokenSession {
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
-    @Column(name = "token_hash", unique = true, nullable = false)
+    @Column(name = "token_hash", nullable = false)
     private String tokenHash;
 
     @CreatedDate
     @Column(name = "created_date", nullable = false)
     private Instant createdDate;
 
+    // with range partitioning on, Hibernate adds expires to UPDATE/DELETE by id so they hit one partition
+    @PartitionKey
     @Column(name = "expires", nullable = false)
     private Instant expires;
 
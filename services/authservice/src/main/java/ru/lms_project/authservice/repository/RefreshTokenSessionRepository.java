@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import ru.lms_project.authservice.model.RefreshTokenSession;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,6 +16,9 @@ public interface RefreshTokenSessionRepository extends JpaRepository<RefreshToke
 
     Optional<RefreshTokenSession> findByTokenHash(String tokenHash);
 
+    // expires is the partition key: with it the lookup reads one partition instead of all of them
+    Optional<RefreshTokenSession> findByIdAndExpires(UUID id, Instant expires);
+
     List<RefreshTokenSession> findAllByUserId(UUID userId);
 
     void deleteByTokenHash(String tokenHash);
@@ -41,13 +45,67 @@ public interface RefreshTokenSessionRepository extends JpaRepository<RefreshToke
     """)
     int markActiveAsAlreadyUsed(@Param("sid") UUID sid);
 
+    /**
+     * Refresh rotation in one statement (PostgreSQL): marks session {@code sid} as used if it is still active,
+     * unexpired and matches the token hash and user, and in the same statement inserts the new session.
+     * {@code expires} is the {@code exp} of the presented token, which a session stores exactly, so the update
+     * touches one partition when the table is partitioned.
+     *
+     * @return 1 if the session was rotated, 0 if it was not valid (the caller looks up why)
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query(value = """
+        with used as (
+            update refresh_token_session
+               set status = 'ALREADY_USED'
+             where id = :sid
+               and expires = :expires
+               and user_id = :userId
+               and token_hash = :tokenHash
+               and status = 'ACTIVE'
+               and expires > :now
+            returning user_id
+        )
+        insert into refresh_token_session (id, user_id, token_hash, created_date, expires, status)
+        select :newSid, user_id, :newTokenHash, :now, :newExpires, 'ACTIVE'
+          from used
+    """, nativeQuery = true)
+    int rotate(@Param("sid") UUID sid,
+               @Param("expires") Instant expires,
+               @Param("userId") UUID userId,
+               @Param("tokenHash") String tokenHash,
+               @Param("now") Instant now,
+               @Param("newSid") UUID newSid,
+               @Param("newTokenHash") String newTokenHash,
+               @Param("newExpires") Instant newExpires);
+
+    /**
+     * Deletes up to {@code limit} sessions that expired before {@code cutoff}, in its own transaction,
+     * so row locks are held for one chunk only.
+     *
+     * @return number of deleted sessions; less than {@code limit} means nothing is left to purge
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Transactional
+    @Query(value = """
+        delete from refresh_token_session
+         where expires < :cutoff
+           and id in (select id
+                        from refresh_token_session
+                       where expires < :cutoff
+                       limit :limit)
+    """, nativeQuery = true)
+    int deleteExpiredBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Transactional
     @Query("""
         update RefreshTokenSession s
            set s.status = ru.lms_project.authservice.model.RefreshTokenStatus.EXPIRED
          where s.id = :sid
+           and s.expires = :expires
            and s.status = ru.lms_project.authservice.model.RefreshTokenStatus.ACTIVE
     """)
-    int expireIfActive(@Param("sid") UUID sid);
+    int expireIfActive(@Param("sid") UUID sid, @Param("expires") Instant expires);
 }
@@ -5,11 +5,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import ru.lms_project.authservice.cache.UserStatus;
+import ru.lms_project.authservice.cache.UserStatusCache;
 import ru.lms_project.authservice.dto.*;
 import ru.lms_project.authservice.exceptions.TokenValidationException;
 import ru.lms_project.authservice.model.RefreshTokenSession;
@@ -20,7 +21,6 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 
@@ -31,10 +31,8 @@ public class AuthServiceImpl implements AuthService {
     private final RefreshTokenSessionRepository refreshTokenSessionRepository;
     private final TokenService tokenService;
     private final RestTemplate restTemplate;
-    private final BCryptPasswordEncoder passwordEncoder;
-
-    @Value("${auth.tokens.refresh.ttl}")
-    private Duration refreshTtl;
+    private final PasswordHasher passwordHasher;
+    private final UserStatusCache userStatusCache;
 
     @Value("${auth.userservice.base-url}")
     private String userServiceUrl;
@@ -48,7 +46,7 @@ public class AuthServiceImpl implements AuthService {
         if (user == null) throw new TokenValidationException("invalid_credentials");
         if (user.getActive() == null || !user.getActive()) throw new TokenValidationException("user_inactive");
 
-        if (!passwordEncoder.matches(raw, user.getPasswordHash())) {
+        if (!passwordHasher.matches(raw, user.getPasswordHash())) {
             throw new TokenValidationException("invalid_credentials");
         }
 
@@ -57,7 +55,8 @@ public class AuthServiceImpl implements AuthService {
         UUID sessionId = UUID.randomUUID();
 
         String access = tokenService.generateAccessToken(userId, roles);
-        String refresh = tokenService.generateRefreshToken(userId, sessionId);
+        Instant expires = tokenService.refreshExpiry();
+        String refresh = tokenService.generateRefreshToken(userId, sessionId, expires);
 
         String tokenHash = hashRefresh(refresh);
         RefreshTokenSession s = new RefreshTokenSession();
@@ -65,7 +64,7 @@ public class AuthServiceImpl implements AuthService {
         s.setUserId(userId);
         s.setTokenHash(tokenHash);
         s.setStatus(RefreshTokenStatus.ACTIVE);
-        s.setExpires(Instant.now().plus(refreshTtl));
+        s.setExpires(expires);
         refreshTokenSessionRepository.save(s);
 
         return new LoginResponse(access, refresh);
@@ -87,7 +86,7 @@ public class AuthServiceImpl implements AuthService {
             throw new TokenValidationException(getUserByEmailOrNull(email).toString());
         }
 
-        String hash = passwordEncoder.encode(password);
+        String hash = passwordHasher.encode(password);
         String role = "USER";
 
         UserCreateRequest create = new UserCreateRequest(
@@ -104,7 +103,8 @@ public class AuthServiceImpl implements AuthService {
         UUID createdId = createUserInUserService(create);
         UUID sessionId = UUID.randomUUID();
         String access = tokenService.generateAccessToken(createdId, roles);
-        String refresh = tokenService.generateRefreshToken(createdId, sessionId);
+        Instant expires = tokenService.refreshExpiry();
+        String refresh = tokenService.generateRefreshToken(createdId, sessionId, expires);
         String tokenHash = hashRefresh(refresh);
 
         RefreshTokenSession s = new RefreshTokenSession();
@@ -112,71 +112,53 @@ public class AuthServiceImpl implements AuthService {
         s.setUserId(createdId);
         s.setTokenHash(tokenHash);
         s.setStatus(RefreshTokenStatus.ACTIVE);
-        s.setExpires(Instant.now().plus(refreshTtl));
+        s.setExpires(expires);
         refreshTokenSessionRepository.save(s);
 
         return new LoginResponse(access, refresh);
     }
 
+    /**
+     * No transaction around the whole method: the user status is read first (usually from
+     * {@link UserStatusCache}), without a database connection, and the session check, consume and new session
+     * insert are one statement ({@code rotate}).
+     */
     @Override
-    @Transactional
     public LoginResponse refreshToken(RefreshRequest oldToken) {
         ParsedRefresh oldTokenParsed = tokenService.parseRefresh(oldToken.getOldRefreshToken());
-        RefreshTokenSession rts = refreshTokenSessionRepository.findById(oldTokenParsed.getSessionId())
-                .orElseThrow(() -> new TokenValidationException("invalid_sid"));
+        UUID userId = oldTokenParsed.getUserId();
 
-        if (rts.getExpires().isBefore(Instant.now())) {
-            throw new TokenValidationException("expired_refresh");
-        }
-        if (rts.getStatus() != RefreshTokenStatus.ACTIVE) {
-            throw new TokenValidationException("invalid_refresh");
-        }
-
-        String tokenHash = hashRefresh(oldToken.getOldRefreshToken());
-        if (!tokenHash.equals(rts.getTokenHash())) {
-            throw new TokenValidationException("invalid_refresh_hash");
-        }
-        if (!rts.getUserId().equals(oldTokenParsed.getUserId())) {
-            throw new TokenValidationException("sid_user_mismatch");
-        }
-
-        String url = userServiceUrl + "/" + oldTokenParsed.getUserId();
-        UserDto userInfo = restTemplate.getForObject(url, UserDto.class);
-        if (userInfo == null || userInfo.getActive() == null || !userInfo.getActive()) {
+        UserStatus userStatus = userStatusCache.get(userId);
+        if (!userStatus.active()) {
             throw new TokenValidationException("user_inactive");
         }
-        List<String> roles = List.of(userInfo.getRole());
+        List<String> roles = List.of(userStatus.role());
 
-        int updated = refreshTokenSessionRepository.markActiveAsAlreadyUsed(oldTokenParsed.getSessionId());
-        if (updated != 1) {
-            throw new TokenValidationException("refresh_reuse_detected");
+        String tokenHash = hashRefresh(oldToken.getOldRefreshToken());
+        UUID newSessionId = UUID.randomUUID();
+        Instant newExpires = tokenService.refreshExpiry();
+        String newRefresh = tokenService.generateRefreshToken(userId, newSessionId, newExpires);
+        Instant now = Instant.now();
+
+        int rotated = refreshTokenSessionRepository.rotate(oldTokenParsed.getSessionId(),
+                oldTokenParsed.getExpiresAt(), userId, tokenHash, now, newSessionId, hashRefresh(newRefresh), newExpires);
+        if (rotated != 1) {
+            throw new TokenValidationException(rotationFailure(oldTokenParsed, tokenHash, now));
         }
 
-        UUID newSessionId = UUID.randomUUID();
-        String newRefresh = tokenService.generateRefreshToken(oldTokenParsed.getUserId(), newSessionId);
-        String newHash = hashRefresh(newRefresh);
-
-        RefreshTokenSession newSession = new RefreshTokenSession();
-        newSession.setId(newSessionId);
-        newSession.setUserId(oldTokenParsed.getUserId());
-        newSession.setTokenHash(newHash);
-        newSession.setStatus(RefreshTokenStatus.ACTIVE);
-        newSession.setExpires(Instant.now().plus(refreshTtl));
-        refreshTokenSessionRepository.save(newSession);
-
-        String newAccess = tokenService.generateAccessToken(oldTokenParsed.getUserId(), roles);
+        String newAccess = tokenService.generateAccessToken(userId, roles);
         return new LoginResponse(newAccess, newRefresh);
     }
 
     @Override
     public void logout(RefreshRequest request) {
         ParsedRefresh oldTokenParsed = tokenService.parseRefresh(request.getOldRefreshToken());
-        RefreshTokenSession rts = refreshTokenSessionRepository.findById(oldTokenParsed.getSessionId())
-                .orElseThrow(() -> new TokenValidationException("invalid_sid"));
-
-        int expire = refreshTokenSessionRepository.expireIfActive(rts.getId());
+        int expire = refreshTokenSessionRepository.expireIfActive(oldTokenParsed.getSessionId(),
+                oldTokenParsed.getExpiresAt());
         if (expire != 1) {
-            throw new TokenValidationException("logout_reuse_detected");
+            boolean exists = refreshTokenSessionRepository.findByIdAndExpires(oldTokenParsed.getSessionId(),
+                    oldTokenParsed.getExpiresAt()).isPresent();
+            throw new TokenValidationException(exists ? "logout_reuse_detected" : "invalid_sid");
         }
     }
 
@@ -186,6 +168,31 @@ public class AuthServiceImpl implements AuthService {
         refreshTokenSessionRepository.revokeAllActiveByUserId(request.getUserId());
     }
 
+    private String rotationFailure(ParsedRefresh parsed, String tokenHash, Instant now) {
+        RefreshTokenSession rts = refreshTokenSessionRepository
+                .findByIdAndExpires(parsed.getSessionId(), parsed.getExpiresAt()).orElse(null);
+        if (rts == null) {
+            return "invalid_sid";
+        }
+        if (rts.getExpires().isBefore(now)) {
+            return "expired_refresh";
+        }
+        if (rts.getStatus() == RefreshTokenStatus.ALREADY_USED) {
+            // also the loser of two concurrent refreshes with the same token
+            return "refresh_reuse_detected";
+        }
+        if (rts.getStatus() != RefreshTokenStatus.ACTIVE) {
+            return "invalid_refresh";
+        }
+        if (!tokenHash.equals(rts.getTokenHash())) {
+            return "invalid_refresh_hash";
+        }
+        if (!rts.getUserId().equals(parsed.getUserId())) {
+            return "sid_user_mismatch";
+        }
+        return "invalid_refresh";
+    }
+
     private String hashRefresh(String refreshToken) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
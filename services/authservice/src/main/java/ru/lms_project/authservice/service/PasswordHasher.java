@@ -0,0 +1,128 @@
+package ru.lms_project.authservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import ru.lms_project.authservice.exceptions.PasswordHashingRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a fixed pool instead of the request thread. A hash costs a few hundred milliseconds of CPU,
+ * so at most {@code threads} run at once and at most {@code queue-capacity} wait; anything beyond that is
+ * rejected right away, which leaves the remaining Tomcat threads free for refresh and logout.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public PasswordHasher(BCryptPasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${auth.password-hashing.threads:0}") int threads,
+                          @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${auth.password-hashing.retry-after:PT1S}") Duration retryAfter) {
+        this.passwordEncoder = passwordEncoder;
+        this.retryAfter = retryAfter;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.password_hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password_hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes being computed")
+                .register(meterRegistry);
+        encodeTimer = Timer.builder("auth.password_hashing.duration")
+                .tag("operation", "encode")
+                .description("CPU time of one BCrypt hash")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        matchTimer = Timer.builder("auth.password_hashing.duration")
+                .tag("operation", "matches")
+                .description("CPU time of one BCrypt hash")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        queueWait = Timer.builder("auth.password_hashing.queue.wait")
+                .description("Time a hash waited for a hashing thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        rejected = Counter.builder("auth.password_hashing.rejected")
+                .description("Logins and registrations rejected with 503 because the hashing queue was full")
+                .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer timer, Callable<T> hash) {
+        long submitted = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long started = System.nanoTime();
+                queueWait.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return hash.call();
+                } finally {
+                    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfter);
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException(retryAfter);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
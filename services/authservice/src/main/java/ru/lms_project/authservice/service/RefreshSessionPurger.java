@@ -0,0 +1,138 @@
+package ru.lms_project.authservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.lms_project.authservice.repository.RefreshTokenSessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes refresh sessions that expired more than {@code auth.sessions.purge.grace} ago. A session is only
+ * needed until its token expires (after that the token is rejected by its own exp claim, reuse detection
+ * included), so expired rows of any status can go.
+ * <p>
+ * Rows are deleted in chunks of {@code batch-size}, each in its own transaction with a pause in between,
+ * so refresh and logout never wait long for the purge; a run stops after {@code max-duration}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "auth.sessions.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class RefreshSessionPurger {
+
+    private static final String TABLE_STATS = """
+            select coalesce(sum(pg_total_relation_size(c.oid)), 0), coalesce(sum(greatest(c.reltuples, 0)), 0)
+              from pg_class c
+             where c.oid = to_regclass('refresh_token_session')
+                or c.oid in (select inhrelid from pg_inherits where inhparent = to_regclass('refresh_token_session'))
+            """;
+
+    private final RefreshTokenSessionRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration grace;
+    private final int batchSize;
+    private final Duration pause;
+    private final Duration maxDuration;
+
+    private final Counter purged;
+    private final Timer batchTimer;
+    private final AtomicLong tableBytes = new AtomicLong(-1);
+    private final AtomicLong tableRows = new AtomicLong(-1);
+
+    @Autowired
+    public RefreshSessionPurger(RefreshTokenSessionRepository repository,
+                                JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${auth.sessions.purge.grace:P1D}") Duration grace,
+                                @Value("${auth.sessions.purge.batch-size:1000}") int batchSize,
+                                @Value("${auth.sessions.purge.pause:PT0.05S}") Duration pause,
+                                @Value("${auth.sessions.purge.max-duration:PT1M}") Duration maxDuration) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("auth.sessions.purge.batch-size must be positive");
+        }
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.grace = grace;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.maxDuration = maxDuration;
+
+        purged = Counter.builder("auth.sessions.purged")
+                .description("Expired refresh sessions removed")
+                .tag("method", "delete")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("auth.sessions.purge.batch")
+                .description("One chunk of the purge, i.e. how long its row locks were held")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("auth.sessions.table.size", tableBytes, AtomicLong::get)
+                .description("refresh_token_session with indexes and partitions, as of the last purge")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("auth.sessions.table.rows", tableRows, AtomicLong::get)
+                .description("Estimated rows in refresh_token_session, as of the last purge")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${auth.sessions.purge.initial-delay:PT5M}",
+            fixedDelayString = "${auth.sessions.purge.interval:PT1H}"
+    )
+    public void scheduledPurge() {
+        purge();
+    }
+
+    /**
+     * @return number of deleted sessions
+     */
+    public long purge() {
+        Instant cutoff = Instant.now().minus(grace);
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        long total = 0;
+        int batches = 0;
+        try {
+            while (true) {
+                Integer deleted = batchTimer.record(() -> repository.deleteExpiredBefore(cutoff, batchSize));
+                batches++;
+                total += deleted;
+                purged.increment(deleted);
+                if (deleted < batchSize) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    log.info("Refresh session purge stopped after {}, the rest is left for the next run", maxDuration);
+                    break;
+                }
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        updateTableStats();
+        log.info("Purged {} refresh sessions expired before {} in {} batches", total, cutoff, batches);
+        return total;
+    }
+
+    private void updateTableStats() {
+        try {
+            jdbcTemplate.query(TABLE_STATS, rs -> {
+                tableBytes.set(rs.getLong(1));
+                tableRows.set(rs.getLong(2));
+            });
+        } catch (DataAccessException e) {
+            // PostgreSQL catalogs; other databases (H2 in tests) have no size to report
+            log.debug("Refresh session table size is not available: {}", e.getMessage());
+        }
+    }
+}
@@ -8,11 +8,13 @@ import org.springframework.stereotype.Service;
 import ru.lms_project.authservice.dto.ParsedAccess;
 import ru.lms_project.authservice.dto.ParsedRefresh;
 import ru.lms_project.authservice.exceptions.TokenValidationException;
+import ru.lms_project.common.security.JwtClaimsValidator;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -27,6 +29,10 @@ public class TokenService {
 
     private final Duration refreshTtl;
 
+    private final JwtParser parser;
+
+    private final JwtClaimsValidator claimsValidator;
+
     public TokenService(
             @Value("${auth.tokens.secret}") String secret,
             @Value("${auth.tokens.issuer}") String issuer,
@@ -51,6 +57,13 @@ public class TokenService {
         }
         key = Keys.hmacShaKeyFor(keyBytes);
 
+        // built once: JwtParser is immutable and safe to share between request threads
+        parser = Jwts.parser()
+                .verifyWith(key)
+                .requireIssuer(issuer)
+                .clockSkewSeconds(60)
+                .build();
+        claimsValidator = new JwtClaimsValidator(audience, TokenValidationException::new);
     }
 
     public String generateAccessToken(UUID userId, List<String> roles) {
@@ -71,8 +84,14 @@ public class TokenService {
     }
 
     public String generateRefreshToken(UUID userId, UUID sessionId) {
+        return generateRefreshToken(userId, sessionId, refreshExpiry());
+    }
+
+    /**
+     * The session row stores the same {@code exp}, so a refresh can look the session up by it.
+     */
+    public String generateRefreshToken(UUID userId, UUID sessionId, Instant exp) {
         Instant now = Instant.now();
-        Instant exp = now.plus(refreshTtl);
 
         if(userId == null) {
             throw new IllegalArgumentException("userId is null");
@@ -93,160 +112,48 @@ public class TokenService {
                 .compact();
     }
 
+    /**
+     * Expiry of a refresh token issued now, in whole seconds like the {@code exp} claim.
+     */
+    public Instant refreshExpiry() {
+        return Instant.now().plus(refreshTtl).truncatedTo(ChronoUnit.SECONDS);
+    }
+
     public ParsedAccess parseAccess(String token) {
-        if (token == null) {
-            throw new TokenValidationException("invalid_token");
-        }
-    
-        String bearerToken = token.trim();
-        if (bearerToken.regionMatches(true, 0, "Bearer ", 0, 7)) {
-            bearerToken = bearerToken.substring(7).trim();
-        }
-    
-        Claims claims;
-        try {
-            claims = Jwts.parser()
-                    .verifyWith(key)
-                    .requireIssuer(issuer)
-                    .clockSkewSeconds(60)
-                    .build()
-                    .parseSignedClaims(bearerToken)
-                    .getPayload();
-        } catch (ExpiredJwtException e) {
-            throw new TokenValidationException("expired_token");
-        } catch (JwtException e) {
-            throw new TokenValidationException("invalid_token");
-        }
-    
-        Object aud = claims.getAudience();
-        boolean audienceOk = false;
-        if (aud instanceof String) {
-            audienceOk = audience.equals(aud);
-        } else if (aud instanceof Collection<?>) {
-            for (Object x : (Collection<?>) aud) {
-                if (audience.equals(String.valueOf(x))) {
-                    audienceOk = true;
-                    break;
-                }
-            }
-        }
-        if (!audienceOk) {
-            throw new TokenValidationException("invalid_audience");
-        }
-    
-        UUID userId;
-        try {
-            userId = UUID.fromString(claims.getSubject());
-        } catch (Exception e) {
-            throw new TokenValidationException("invalid_subject");
-        }
-    
-        Date expDate = claims.getExpiration();
-        if (expDate == null) {
-            throw new TokenValidationException("invalid_expiration");
-        }
-        Instant expiresAt = expDate.toInstant();
-    
-        String jti = claims.getId();
-        if (jti == null || jti.isEmpty()) {
-            throw new TokenValidationException("invalid_jti");
-        }
-    
-        Object rawRoles = claims.get("roles");
-        List<String> roles = new ArrayList<>();
-        if (rawRoles == null) {
-            throw new TokenValidationException("missing_roles");
-        } else if (rawRoles instanceof List<?>) {
-            for (Object item : (List<?>) rawRoles) {
-                if (!(item instanceof String)) {
-                    throw new TokenValidationException("invalid_roles");
-                }
-                String s = ((String) item).trim();
-                if (!s.isEmpty()) roles.add(s);
-            }
-        } else if (rawRoles instanceof String) {
-            for (String part : ((String) rawRoles).split(",")) {
-                String s = part.trim();
-                if (!s.isEmpty()) roles.add(s);
-            }
-        } else {
-            throw new TokenValidationException("invalid_roles");
-        }
-        if (roles.isEmpty()) {
-            throw new TokenValidationException("invalid_roles");
-        }
-    
+        Claims claims = parseClaims(token);
+
+        claimsValidator.requireAudience(claims);
+        UUID userId = claimsValidator.requireSubject(claims);
+        Instant expiresAt = claimsValidator.requireExpiration(claims);
+        String jti = claimsValidator.requireId(claims);
+        List<String> roles = claimsValidator.requireRoles(claims);
+
         return new ParsedAccess(userId, roles, expiresAt, jti);
     }
 
     public ParsedRefresh parseRefresh(String token) {
+        Claims claims = parseClaims(token);
+
+        claimsValidator.requireAudience(claims);
+        UUID userId = claimsValidator.requireSubject(claims);
+        UUID sessionId = claimsValidator.requireUuidClaim(claims, "sid", "invalid_sid");
+        Instant expiresAt = claimsValidator.requireExpiration(claims);
+        String jti = claimsValidator.requireId(claims);
+
+        return new ParsedRefresh(userId, sessionId, expiresAt, jti);
+    }
+
+    private Claims parseClaims(String token) {
         if (token == null) {
             throw new TokenValidationException("invalid_token");
         }
 
-        String bearerToken = token.trim();
-        if (bearerToken.regionMatches(true, 0, "Bearer ", 0, 7)) {
-            bearerToken = bearerToken.substring(7).trim();
-        }
-
-        Claims claims;
-
         try {
-            claims = Jwts.parser()
-            .verifyWith(key)
-            .requireIssuer(issuer)
-            .clockSkewSeconds(60)
-            .build()
-            .parseSignedClaims(bearerToken)
-            .getPayload();
+            return parser.parseSignedClaims(JwtClaimsValidator.stripBearer(token)).getPayload();
         } catch (ExpiredJwtException e) {
             throw new TokenValidationException("expired_token");
         } catch (JwtException e) {
             throw new TokenValidationException("invalid_token");
         }
-
-        Object aud = claims.getAudience();
-        boolean audienceOk = false;
-        if (aud instanceof String) {
-            audienceOk = audience.equals(aud);
-        } else if (aud instanceof Collection<?>) {
-            for (Object x : (Collection<?>) aud) {
-                if (audience.equals(String.valueOf(x))) {
-                    audienceOk = true;
-                    break;
-                }
-            }
-        }
-        if (!audienceOk) {
-            throw new TokenValidationException("invalid_audience");
-        }
-
-        UUID userId;
-        try {
-            userId = UUID.fromString(claims.getSubject());
-        } catch (Exception e) {
-            throw new TokenValidationException("invalid_subject");
-        }
-
-        UUID sessionId;
-        try {
-            String sid = claims.get("sid", String.class);
-            sessionId = UUID.fromString(sid);
-        } catch (Exception e) {
-            throw new TokenValidationException("invalid_sid");
-        }
-        
-        Date expDate = claims.getExpiration();
-        if (expDate == null) {
-            throw new TokenValidationException("invalid_expiration");
-        }
-        Instant expiresAt = expDate.toInstant();
-    
-        String jti = claims.getId();
-        if (jti == null || jti.isEmpty()) {
-            throw new TokenValidationException("invalid_jti");
-        }
-
-        return new ParsedRefresh(userId, sessionId, expiresAt, jti);
     }
 }
@@ -0,0 +1,22 @@
+package ru.lms_project.authservice.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Stands in for Redis pub/sub in tests: {@link #publish} is what userservice does after a change.
+ */
+class InMemoryUserEventChannel implements UserEventChannel {
+
+    private final List<Consumer<UserChangedEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void subscribe(Consumer<UserChangedEvent> listener) {
+        listeners.add(listener);
+    }
+
+    void publish(UserChangedEvent event) {
+        listeners.forEach(listener -> listener.accept(event));
+    }
+}
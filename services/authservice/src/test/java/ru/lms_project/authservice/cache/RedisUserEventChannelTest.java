@@ -0,0 +1,23 @@
+package ru.lms_project.authservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisUserEventChannelTest {
+
+    @Test
+    void subscribe_whenRedisIsDown_returnsWithoutWaitingForTheConnection() {
+        try (RedisUserEventChannel channel = new RedisUserEventChannel("redis://localhost:1", Duration.ofSeconds(2),
+                "lms:user-events", new ObjectMapper())) {
+            long started = System.nanoTime();
+            channel.subscribe(event -> { });
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(1)) < 0);
+            assertFalse(channel.isConnected());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.lms_project.authservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import ru.lms_project.authservice.dto.UserDto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserStatusCacheTest {
+
+    private static final String USERS_URL = "http://userservice/api/v1/users";
+
+    private final UUID userId = UUID.randomUUID();
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final InMemoryUserEventChannel channel = new InMemoryUserEventChannel();
+    private SimpleMeterRegistry meterRegistry;
+    private UserStatusCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserStatusCache(restTemplate, meterRegistry, channel, USERS_URL, 1000, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void get_callsUserServiceOnce() {
+        when(restTemplate.getForObject(USERS_URL + "/" + userId, UserDto.class)).thenReturn(user(true, "TEACHER"));
+
+        UserStatus first = cache.get(userId);
+        UserStatus second = cache.get(userId);
+
+        assertEquals(new UserStatus(true, "TEACHER"), first);
+        assertEquals(first, second);
+        verify(restTemplate, times(1)).getForObject(any(String.class), eq(UserDto.class));
+        assertEquals(0.5, meterRegistry.get("auth.user_status.cache.hit.ratio").gauge().value());
+        assertEquals(1, meterRegistry.get("auth.user_status.cache.age").timer().count());
+    }
+
+    @Test
+    void userChangedEvent_dropsEntryAtOnce() {
+        when(restTemplate.getForObject(USERS_URL + "/" + userId, UserDto.class))
+                .thenReturn(user(true, "TEACHER"), user(false, "TEACHER"));
+        cache.get(userId);
+
+        channel.publish(new UserChangedEvent(userId, "DEACTIVATED", Instant.now()));
+
+        assertFalse(cache.get(userId).active());
+        assertEquals(1.0, meterRegistry.get("auth.user_status.invalidations").counter().count());
+        assertEquals(1, meterRegistry.get("auth.user_status.invalidation.lag").timer().count());
+    }
+
+    @Test
+    void deletedUser_isInactive_andErrorsAreNotCached() {
+        when(restTemplate.getForObject(USERS_URL + "/" + userId, UserDto.class))
+                .thenThrow(new IllegalStateException("userservice is down"))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(userId));
+        assertEquals(new UserStatus(false, null), cache.get(userId));
+    }
+
+    private UserDto user(boolean active, String role) {
+        UserDto user = new UserDto();
+        user.setId(userId);
+        user.setActive(active);
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,154 @@
+package ru.lms_project.authservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lms_project.authservice.model.RefreshTokenSession;
+import ru.lms_project.authservice.model.RefreshTokenStatus;
+import ru.lms_project.authservice.repository.RefreshTokenSessionRepository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Range partitioning is PostgreSQL DDL, so this runs only against PostgreSQL:
+ * SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/lms_db ./gradlew :services:authservice:test
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.properties.hibernate.hbm2ddl.extra_physical_table_types=PARTITIONED TABLE",
+        "auth.sessions.partitioning.enabled=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RefreshSessionPartitioning.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+class RefreshSessionPartitioningTest {
+    @Autowired
+    RefreshSessionPartitioning partitioning;
+
+    @Autowired
+    RefreshTokenSessionRepository repository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM refresh_token_session WHERE user_id = ?", userId);
+    }
+
+    @Test
+    void migrate_movesRowsIntoMonthlyPartitions() {
+        Instant now = Instant.now();
+        Instant expires = now.plus(14, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        UUID current = session(expires);
+        // Given: the table is plain again, as before partitioning was turned on, with a session from months ago
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE refresh_token_session_plain AS SELECT * FROM refresh_token_session");
+            jdbcTemplate.execute("DROP TABLE refresh_token_session");
+            jdbcTemplate.execute("ALTER TABLE refresh_token_session_plain RENAME TO refresh_token_session");
+        });
+        Instant old = now.minus(100, ChronoUnit.DAYS);
+        jdbcTemplate.update("INSERT INTO refresh_token_session (id, user_id, token_hash, created_date, expires, status)"
+                        + " VALUES (?, ?, ?, ?, ?, 'EXPIRED')",
+                UUID.randomUUID(), userId, "old-" + userId, Timestamp.from(old), Timestamp.from(old));
+        long total = jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_token_session", Long.class);
+
+        boolean migrated = partitioning.migrate();
+
+        assertTrue(migrated);
+        assertFalse(partitioning.migrate());
+        assertEquals("r", jdbcTemplate.queryForObject(
+                "SELECT partstrat::text FROM pg_partitioned_table WHERE partrelid = 'refresh_token_session'::regclass",
+                String.class));
+        assertEquals(total, jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_token_session", Long.class));
+        assertTrue(exists(RefreshSessionPartitioning.partitionName(YearMonth.from(old.atOffset(ZoneOffset.UTC)))));
+        assertTrue(exists(RefreshSessionPartitioning.partitionName(YearMonth.now(ZoneOffset.UTC).plusMonths(2))));
+        assertTrue(exists("idx_refresh_session_expires"));
+
+        // rotation and logout-all work on the partitioned table
+        UUID next = UUID.randomUUID();
+        assertEquals(1, repository.rotate(current, expires, userId, "hash-" + current, now, next, "hash-" + next,
+                now.plus(14, ChronoUnit.DAYS)));
+        assertEquals(1, repository.revokeAllActiveByUserId(userId));
+        assertEquals(RefreshTokenStatus.REVOKED, repository.findById(next).orElseThrow().getStatus());
+
+        // a lookup by id and expires reads only the partition of that month
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM refresh_token_session WHERE id = ? AND expires = ?",
+                String.class, current, Timestamp.from(expires)));
+        YearMonth month = YearMonth.from(expires.atOffset(ZoneOffset.UTC));
+        assertTrue(plan.contains(RefreshSessionPartitioning.partitionName(month)), plan);
+        assertFalse(plan.contains(RefreshSessionPartitioning.partitionName(month.plusMonths(1))), plan);
+    }
+
+    @Test
+    void maintain_dropsPartitionsThatEndedBeforeGrace() {
+        partitioning.migrate();
+        YearMonth old = YearMonth.now(ZoneOffset.UTC).minusMonths(6);
+        String partition = RefreshSessionPartitioning.partitionName(old);
+        jdbcTemplate.execute(RefreshSessionPartitioning.createPartition(old));
+        session(old.atDay(10).atStartOfDay().toInstant(ZoneOffset.UTC));
+        double dropped = meterRegistry.get("auth.sessions.purged").tag("method", "drop_partition").counter().count();
+
+        partitioning.maintain();
+
+        assertFalse(exists(partition));
+        assertTrue(exists(RefreshSessionPartitioning.partitionName(YearMonth.now(ZoneOffset.UTC))));
+        assertEquals(dropped + 1,
+                meterRegistry.get("auth.sessions.purged").tag("method", "drop_partition").counter().count());
+    }
+
+    @Test
+    void maintain_dropsExpiredPartitionLeftDetached() {
+        partitioning.migrate();
+        YearMonth old = YearMonth.now(ZoneOffset.UTC).minusMonths(7);
+        String partition = RefreshSessionPartitioning.partitionName(old);
+        jdbcTemplate.execute(RefreshSessionPartitioning.createPartition(old));
+        // Given: an earlier run detached the partition but did not get to drop it
+        jdbcTemplate.execute("ALTER TABLE refresh_token_session DETACH PARTITION " + partition);
+
+        partitioning.maintain();
+
+        assertFalse(exists(partition));
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private UUID session(Instant expires) {
+        RefreshTokenSession s = new RefreshTokenSession();
+        s.setId(UUID.randomUUID());
+        s.setUserId(userId);
+        s.setTokenHash("hash-" + s.getId());
+        s.setStatus(RefreshTokenStatus.ACTIVE);
+        s.setExpires(expires);
+        return repository.saveAndFlush(s).getId();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.lms_project.authservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.lms_project.authservice.model.RefreshTokenSession;
+import ru.lms_project.authservice.model.RefreshTokenStatus;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link RefreshTokenSessionRepository#rotate} is PostgreSQL SQL (data-modifying CTE), so this runs only against
+ * PostgreSQL: SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/lms_db ./gradlew :services:authservice:test
+ */
+// the table may already be partitioned by RefreshSessionPartitioningTest in the same database
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.properties.hibernate.hbm2ddl.extra_physical_table_types=PARTITIONED TABLE"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+class RefreshTokenRotationTest {
+    @Autowired
+    RefreshTokenSessionRepository repository;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void rotate_consumesOnceAndInsertsNewSession() {
+        Instant now = Instant.now();
+        Instant expires = now.plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        UUID sid = session("hash-" + userId, expires);
+        UUID newSid = UUID.randomUUID();
+        UUID otherSid = UUID.randomUUID();
+        Instant newExpires = now.plus(14, ChronoUnit.DAYS);
+
+        int first = repository.rotate(sid, expires, userId, "hash-" + userId, now, newSid, "new-" + userId, newExpires);
+        int second = repository.rotate(sid, expires, userId, "hash-" + userId, now, otherSid, "other-" + userId, newExpires);
+
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals(RefreshTokenStatus.ALREADY_USED, repository.findById(sid).orElseThrow().getStatus());
+        RefreshTokenSession created = repository.findById(newSid).orElseThrow();
+        assertEquals(RefreshTokenStatus.ACTIVE, created.getStatus());
+        assertEquals(userId, created.getUserId());
+        assertEquals("new-" + userId, created.getTokenHash());
+        assertTrue(repository.findById(otherSid).isEmpty());
+    }
+
+    @Test
+    void rotate_rejectsWrongHashUserAndExpired() {
+        Instant now = Instant.now();
+        Instant expires = now.plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        Instant past = now.minus(1, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.SECONDS);
+        UUID sid = session("hash-" + userId, expires);
+        UUID expired = session("expired-" + userId, past);
+        Instant newExpires = now.plus(14, ChronoUnit.DAYS);
+
+        assertEquals(0, repository.rotate(sid, expires, userId, "forged", now, UUID.randomUUID(), "a-" + userId, newExpires));
+        assertEquals(0, repository.rotate(sid, expires, UUID.randomUUID(), "hash-" + userId, now, UUID.randomUUID(), "b-" + userId, newExpires));
+        assertEquals(0, repository.rotate(expired, past, userId, "expired-" + userId, now, UUID.randomUUID(), "c-" + userId, newExpires));
+        // a token whose exp does not match the session is rejected too
+        assertEquals(0, repository.rotate(sid, expires.plusSeconds(1), userId, "hash-" + userId, now, UUID.randomUUID(), "d-" + userId, newExpires));
+        assertEquals(RefreshTokenStatus.ACTIVE, repository.findById(sid).orElseThrow().getStatus());
+        assertEquals(2, repository.findAllByUserId(userId).size());
+    }
+
+    private UUID session(String tokenHash, Instant expires) {
+        RefreshTokenSession s = new RefreshTokenSession();
+        s.setId(UUID.randomUUID());
+        s.setUserId(userId);
+        s.setTokenHash(tokenHash);
+        s.setStatus(RefreshTokenStatus.ACTIVE);
+        s.setExpires(expires);
+        return repository.saveAndFlush(s).getId();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.lms_project.authservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import ru.lms_project.authservice.exceptions.PasswordHashingRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void encodeAndMatch_ok() {
+        passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(4), meterRegistry, 2, 4, Duration.ofSeconds(1));
+
+        String hash = passwordHasher.encode("password-123");
+
+        assertTrue(passwordHasher.matches("password-123", hash));
+        assertFalse(passwordHasher.matches("password-124", hash));
+        assertEquals(2, meterRegistry.get("auth.password_hashing.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void fullQueue_rejectsRightAway() throws Exception {
+        BCryptPasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        passwordHasher = new PasswordHasher(blocking, meterRegistry, 1, 1, Duration.ofSeconds(3));
+
+        // one hash running, one queued
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHasher.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHasher.encode("b"));
+        while (meterRegistry.get("auth.password_hashing.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingRejectedException ex = assertThrows(PasswordHashingRejectedException.class,
+                () -> passwordHasher.encode("c"));
+        assertEquals(Duration.ofSeconds(3), ex.getRetryAfter());
+        assertEquals(1.0, meterRegistry.get("auth.password_hashing.rejected").counter().count());
+
+        release.countDown();
+        assertNotNull(running.get(5, TimeUnit.SECONDS));
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.lms_project.authservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.lms_project.authservice.model.RefreshTokenSession;
+import ru.lms_project.authservice.model.RefreshTokenStatus;
+import ru.lms_project.authservice.repository.RefreshTokenSessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class RefreshSessionPurgerTest {
+    @Autowired
+    RefreshTokenSessionRepository repository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void purge_deletesOnlySessionsExpiredBeforeGrace_inBatches() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            session(RefreshTokenStatus.values()[i % RefreshTokenStatus.values().length], now.minus(3, ChronoUnit.DAYS));
+        }
+        UUID recentlyExpired = session(RefreshTokenStatus.ALREADY_USED, now.minus(1, ChronoUnit.HOURS));
+        UUID active = session(RefreshTokenStatus.ACTIVE, now.plus(14, ChronoUnit.DAYS));
+        RefreshSessionPurger purger = new RefreshSessionPurger(repository, jdbcTemplate, meterRegistry,
+                Duration.ofDays(1), 2, Duration.ZERO, Duration.ofMinutes(1));
+
+        long purged = purger.purge();
+
+        assertEquals(5, purged);
+        assertEquals(2, repository.count());
+        assertEquals(RefreshTokenStatus.ALREADY_USED, repository.findById(recentlyExpired).orElseThrow().getStatus());
+        assertEquals(RefreshTokenStatus.ACTIVE, repository.findById(active).orElseThrow().getStatus());
+        assertEquals(5, meterRegistry.get("auth.sessions.purged").tag("method", "delete").counter().count());
+        // 2 + 2 + 1: the short batch ends the run
+        assertEquals(3, meterRegistry.get("auth.sessions.purge.batch").timer().count());
+    }
+
+    private UUID session(RefreshTokenStatus status, Instant expires) {
+        RefreshTokenSession s = new RefreshTokenSession();
+        s.setId(UUID.randomUUID());
+        s.setUserId(UUID.randomUUID());
+        s.setTokenHash("hash-" + s.getId());
+        s.setStatus(status);
+        s.setExpires(expires);
+        return repository.saveAndFlush(s).getId();
+    }
+}
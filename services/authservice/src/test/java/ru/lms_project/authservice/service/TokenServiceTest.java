@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -52,4 +53,13 @@ class TokenServiceTest {
         assertNotNull(parsed.getJti());
     }
 
+    @Test
+    void generateRefresh_keepsGivenExpiry() {
+        Instant expires = tokenService.refreshExpiry();
+
+        String refresh = tokenService.generateRefreshToken(UUID.randomUUID(), UUID.randomUUID(), expires);
+
+        assertEquals(expires, tokenService.parseRefresh(refresh).getExpiresAt());
+    }
+
 }
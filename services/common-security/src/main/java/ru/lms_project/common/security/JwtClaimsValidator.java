@@ -0,0 +1,136 @@
+package ru.lms_project.common.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Claim checks shared by every service that reads tokens issued by authservice.
+ * Each failed check throws the exception built by {@code errorFactory} from the error code,
+ * so callers keep their own exception types.
+ */
+public class JwtClaimsValidator {
+    private final String audience;
+    private final Function<String, ? extends RuntimeException> errorFactory;
+
+    public JwtClaimsValidator(String audience, Function<String, ? extends RuntimeException> errorFactory) {
+        this.audience = audience;
+        this.errorFactory = errorFactory;
+    }
+
+    public static String stripBearer(String token) {
+        String bearerToken = token.trim();
+        if (bearerToken.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            bearerToken = bearerToken.substring(7).trim();
+        }
+        return bearerToken;
+    }
+
+    public void requireAudience(Claims claims) {
+        Collection<String> aud = claims.getAudience();
+        if (aud == null || !aud.contains(audience)) {
+            throw errorFactory.apply("invalid_audience");
+        }
+    }
+
+    public UUID requireSubject(Claims claims) {
+        return requireUuid(claims.getSubject(), "invalid_subject");
+    }
+
+    public UUID requireUuidClaim(Claims claims, String name, String errorCode) {
+        Object value = claims.get(name);
+        return requireUuid(value instanceof String s ? s : null, errorCode);
+    }
+
+    public Instant requireExpiration(Claims claims) {
+        Date expDate = claims.getExpiration();
+        if (expDate == null) {
+            throw errorFactory.apply("invalid_expiration");
+        }
+        return expDate.toInstant();
+    }
+
+    public String requireId(Claims claims) {
+        String jti = claims.getId();
+        if (jti == null || jti.isEmpty()) {
+            throw errorFactory.apply("invalid_jti");
+        }
+        return jti;
+    }
+
+    /**
+     * Accepts both a JSON array and a comma-separated string. Blank entries are skipped;
+     * an already clean array is copied without building an intermediate list.
+     */
+    public List<String> requireRoles(Claims claims) {
+        Object rawRoles = claims.get("roles");
+        if (rawRoles == null) {
+            throw errorFactory.apply("missing_roles");
+        }
+
+        List<String> roles;
+        if (rawRoles instanceof List<?> list) {
+            roles = rolesFromList(list);
+        } else if (rawRoles instanceof String s) {
+            roles = rolesFromString(s);
+        } else {
+            throw errorFactory.apply("invalid_roles");
+        }
+
+        if (roles.isEmpty()) {
+            throw errorFactory.apply("invalid_roles");
+        }
+        return roles;
+    }
+
+    private List<String> rolesFromList(List<?> list) {
+        boolean clean = true;
+        for (Object item : list) {
+            if (!(item instanceof String s)) {
+                throw errorFactory.apply("invalid_roles");
+            }
+            if (s.isEmpty() || Character.isWhitespace(s.charAt(0)) || Character.isWhitespace(s.charAt(s.length() - 1))) {
+                clean = false;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> strings = (List<String>) list;
+        if (clean) {
+            return List.copyOf(strings);
+        }
+
+        List<String> roles = new ArrayList<>(strings.size());
+        for (String item : strings) {
+            String s = item.trim();
+            if (!s.isEmpty()) roles.add(s);
+        }
+        return List.copyOf(roles);
+    }
+
+    private static List<String> rolesFromString(String value) {
+        List<String> roles = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String s = part.trim();
+            if (!s.isEmpty()) roles.add(s);
+        }
+        return List.copyOf(roles);
+    }
+
+    private UUID requireUuid(String value, String errorCode) {
+        if (value == null) {
+            throw errorFactory.apply(errorCode);
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw errorFactory.apply(errorCode);
+        }
+    }
+}
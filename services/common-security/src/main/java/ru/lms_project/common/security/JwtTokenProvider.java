@@ -3,6 +3,7 @@ package ru.lms_project.common.security;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,21 +13,24 @@ import ru.lms_project.common.security.exceptions.TokenValidationException;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.*;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtTokenProvider {
-    private SecretKey secretKey;
-    private String issuer;
-    private String audience;
+    private final JwtParser parser;
+    private final JwtClaimsValidator claimsValidator;
+    private final VerifiedTokenCache tokenCache;
 
     public JwtTokenProvider(
             @Value("${auth.tokens.secret}") String secret,
             @Value("${auth.tokens.issuer}") String issuer,
-            @Value("${auth.tokens.audience}") String audience
+            @Value("${auth.tokens.audience}") String audience,
+            @Value("${auth.tokens.cache.max-size:10000}") int cacheMaxSize
     ) {
-        this.issuer = issuer;
-        this.audience = audience;
+        this.claimsValidator = new JwtClaimsValidator(audience, TokenValidationException::new);
+        this.tokenCache = new VerifiedTokenCache(cacheMaxSize);
 
         byte[] keyBytes;
 
@@ -39,7 +43,14 @@ public class JwtTokenProvider {
         if (keyBytes.length < 32) {
             throw new IllegalArgumentException("secret length less than 32 bytes");
         }
-        secretKey = Keys.hmacShaKeyFor(keyBytes);
+        SecretKey secretKey = Keys.hmacShaKeyFor(keyBytes);
+
+        // JwtParser is immutable and thread-safe, so one instance serves all requests
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .requireIssuer(issuer)
+                .clockSkewSeconds(60)
+                .build();
     }
 
     public ParsedToken parseAccessToken(String token) {
@@ -47,84 +58,34 @@ public class JwtTokenProvider {
             throw new TokenValidationException("invalid_token");
         }
 
-        String bearerToken = token.trim();
-        if (bearerToken.regionMatches(true, 0, "Bearer ", 0, 7)) {
-            bearerToken = bearerToken.substring(7).trim();
+        String bearerToken = JwtClaimsValidator.stripBearer(token);
+
+        ParsedToken cached = tokenCache.get(bearerToken);
+        if (cached != null) {
+            return cached;
         }
 
         Claims claims;
         try {
-            claims = Jwts.parser()
-                    .verifyWith(secretKey)
-                    .requireIssuer(issuer)
-                    .clockSkewSeconds(60)
-                    .build()
-                    .parseSignedClaims(bearerToken)
-                    .getPayload();
+            claims = parser.parseSignedClaims(bearerToken).getPayload();
         } catch (ExpiredJwtException e) {
             throw new TokenValidationException("expired_token");
         } catch (JwtException e) {
             throw new TokenValidationException("invalid_token");
         }
 
-        Object aud = claims.getAudience();
-        boolean audienceOk = false;
-        if (aud instanceof String) {
-            audienceOk = audience.equals(aud);
-        } else if (aud instanceof Collection<?>) {
-            for (Object x : (Collection<?>) aud) {
-                if (audience.equals(String.valueOf(x))) {
-                    audienceOk = true;
-                    break;
-                }
-            }
-        }
-        if (!audienceOk) {
-            throw new TokenValidationException("invalid_audience");
-        }
-
-        UUID userId;
-        try {
-            userId = UUID.fromString(claims.getSubject());
-        } catch (Exception e) {
-            throw new TokenValidationException("invalid_subject");
-        }
-
-        Date expDate = claims.getExpiration();
-        if (expDate == null) {
-            throw new TokenValidationException("invalid_expiration");
-        }
-        Instant expiresAt = expDate.toInstant();
-
-        String jti = claims.getId();
-        if (jti == null || jti.isEmpty()) {
-            throw new TokenValidationException("invalid_jti");
-        }
+        claimsValidator.requireAudience(claims);
+        UUID userId = claimsValidator.requireSubject(claims);
+        Instant expiresAt = claimsValidator.requireExpiration(claims);
+        claimsValidator.requireId(claims);
+        List<String> roles = claimsValidator.requireRoles(claims);
 
-        Object rawRoles = claims.get("roles");
-        List<String> roles = new ArrayList<>();
-        if (rawRoles == null) {
-            throw new TokenValidationException("missing_roles");
-        } else if (rawRoles instanceof List<?>) {
-            for (Object item : (List<?>) rawRoles) {
-                if (!(item instanceof String)) {
-                    throw new TokenValidationException("invalid_roles");
-                }
-                String s = ((String) item).trim();
-                if (!s.isEmpty()) roles.add(s);
-            }
-        } else if (rawRoles instanceof String) {
-            for (String part : ((String) rawRoles).split(",")) {
-                String s = part.trim();
-                if (!s.isEmpty()) roles.add(s);
-            }
-        } else {
-            throw new TokenValidationException("invalid_roles");
-        }
-        if (roles.isEmpty()) {
-            throw new TokenValidationException("invalid_roles");
-        }
+        ParsedToken parsedToken = new ParsedToken(userId, roles);
+        tokenCache.put(bearerToken, parsedToken, expiresAt);
+        return parsedToken;
+    }
 
-        return new ParsedToken(userId, roles);
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
     }
 }
@@ -1,14 +1,20 @@
 package ru.lms_project.common.security;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
 import java.util.List;
 import java.util.UUID;
 
-@Data
-@AllArgsConstructor
+/**
+ * Immutable result of access token validation; instances are shared between requests through {@link VerifiedTokenCache}.
+ */
+@Value
 public class ParsedToken {
-    private UUID userId;
-    private List<String> roles;
+    UUID userId;
+    List<String> roles;
+
+    public ParsedToken(UUID userId, List<String> roles) {
+        this.userId = userId;
+        this.roles = roles == null ? List.of() : List.copyOf(roles);
+    }
 }
@@ -0,0 +1,134 @@
+package ru.lms_project.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of access tokens that already passed signature and claims validation.
+ * Entries are keyed by the SHA-256 digest of the raw token and are dropped at the token's {@code exp}.
+ */
+public class VerifiedTokenCache {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(int maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(int maxSize, Clock clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public ParsedToken get(String token) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (!clock.instant().isBefore(entry.expiresAt())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.token();
+    }
+
+    public void put(String token, ParsedToken parsedToken, Instant expiresAt) {
+        if (!isEnabled() || !clock.instant().isBefore(expiresAt)) {
+            return;
+        }
+
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+        entries.put(digest(token), new Entry(parsedToken, expiresAt));
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void makeRoom() {
+        Instant now = clock.instant();
+        entries.entrySet().removeIf(e -> {
+            boolean expired = !now.isBefore(e.getValue().expiresAt());
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        // Still full of live tokens: drop an arbitrary tenth so that the next puts do not rescan the whole map
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private record Entry(ParsedToken token, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,36 @@
+package ru.lms_project.common.security.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+import ru.lms_project.common.security.JwtTokenProvider;
+import ru.lms_project.common.security.VerifiedTokenCache;
+
+@Component
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class VerifiedTokenCacheMetrics implements MeterBinder {
+    private final VerifiedTokenCache tokenCache;
+
+    public VerifiedTokenCacheMetrics(JwtTokenProvider jwtTokenProvider) {
+        this.tokenCache = jwtTokenProvider.getTokenCache();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.tokens.cache.requests", tokenCache, VerifiedTokenCache::getHitCount)
+                .tag("result", "hit")
+                .description("Access token lookups served from the verified-token cache")
+                .register(registry);
+        FunctionCounter.builder("auth.tokens.cache.requests", tokenCache, VerifiedTokenCache::getMissCount)
+                .tag("result", "miss")
+                .description("Access token lookups that required full JWT verification")
+                .register(registry);
+        FunctionCounter.builder("auth.tokens.cache.evictions", tokenCache, VerifiedTokenCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("auth.tokens.cache.size", tokenCache, VerifiedTokenCache::size)
+                .register(registry);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.lms_project.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import ru.lms_project.common.security.exceptions.TokenValidationException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtClaimsValidatorTest {
+
+    private final JwtClaimsValidator validator = new JwtClaimsValidator("lms-api", TokenValidationException::new);
+
+    @Test
+    void stripBearer_ignoresPrefixCase() {
+        assertEquals("abc", JwtClaimsValidator.stripBearer("  bearer abc "));
+        assertEquals("abc", JwtClaimsValidator.stripBearer("abc"));
+    }
+
+    @Test
+    void requireRoles_trimsAndSkipsBlankEntries() {
+        Claims claims = Jwts.claims().add("roles", List.of(" ADMIN", "", "STUDENT")).build();
+
+        assertEquals(List.of("ADMIN", "STUDENT"), validator.requireRoles(claims));
+    }
+
+    @Test
+    void requireRoles_acceptsCommaSeparatedString() {
+        Claims claims = Jwts.claims().add("roles", "ADMIN, STUDENT").build();
+
+        assertEquals(List.of("ADMIN", "STUDENT"), validator.requireRoles(claims));
+    }
+
+    @Test
+    void requireRoles_rejectsNonStringItems() {
+        Claims claims = Jwts.claims().add("roles", List.of("ADMIN", 1)).build();
+
+        TokenValidationException ex = assertThrows(TokenValidationException.class, () -> validator.requireRoles(claims));
+        assertEquals("invalid_roles", ex.getCode());
+    }
+
+    @Test
+    void requireAudience_rejectsOtherAudience() {
+        Claims claims = Jwts.claims().audience().add("other").and().build();
+
+        TokenValidationException ex = assertThrows(TokenValidationException.class, () -> validator.requireAudience(claims));
+        assertEquals("invalid_audience", ex.getCode());
+    }
+
+    @Test
+    void requireUuidClaim_usesGivenErrorCode() {
+        Claims claims = Jwts.claims().subject(UUID.randomUUID().toString()).add("sid", "not-a-uuid").build();
+
+        assertNotNull(validator.requireSubject(claims));
+        TokenValidationException ex = assertThrows(TokenValidationException.class,
+                () -> validator.requireUuidClaim(claims, "sid", "invalid_sid"));
+        assertEquals("invalid_sid", ex.getCode());
+    }
+}
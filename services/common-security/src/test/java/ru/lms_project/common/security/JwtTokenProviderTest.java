@@ -0,0 +1,66 @@
+package ru.lms_project.common.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.lms_project.common.security.exceptions.TokenValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+    private static final String SECRET = "super-secret-key-super-secret-key-123";
+    private static final String ISSUER = "lms-auth";
+    private static final String AUDIENCE = "lms-api";
+
+    private JwtTokenProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new JwtTokenProvider(SECRET, ISSUER, AUDIENCE, 100);
+    }
+
+    @Test
+    void parseAccessToken_secondCallIsServedFromCache() {
+        UUID userId = UUID.randomUUID();
+        String token = accessToken(userId, SECRET);
+
+        ParsedToken first = provider.parseAccessToken("Bearer " + token);
+        ParsedToken second = provider.parseAccessToken(token);
+
+        assertEquals(userId, first.getUserId());
+        assertEquals(List.of("USER"), first.getRoles());
+        assertSame(first, second);
+        assertEquals(1, provider.getTokenCache().getHitCount());
+    }
+
+    @Test
+    void parseAccessToken_invalidTokenIsNotCached() {
+        String forged = accessToken(UUID.randomUUID(), "another-secret-key-another-secret-key-1");
+
+        assertThrows(TokenValidationException.class, () -> provider.parseAccessToken(forged));
+        assertThrows(TokenValidationException.class, () -> provider.parseAccessToken(forged));
+        assertEquals(0, provider.getTokenCache().size());
+        assertEquals(0, provider.getTokenCache().getHitCount());
+    }
+
+    private static String accessToken(UUID userId, String secret) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .issuer(ISSUER)
+                .audience().add(AUDIENCE).and()
+                .subject(userId.toString())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusSeconds(900)))
+                .id(UUID.randomUUID().toString())
+                .claim("roles", List.of("USER"))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
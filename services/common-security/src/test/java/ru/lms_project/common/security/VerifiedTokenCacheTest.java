@@ -0,0 +1,104 @@
+package ru.lms_project.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private final Instant now = Instant.parse("2025-10-01T10:00:00Z");
+
+    @Test
+    void get_returnsCachedTokenUntilExpiration() {
+        MutableClock clock = new MutableClock(now);
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        ParsedToken parsed = new ParsedToken(UUID.randomUUID(), List.of("USER"));
+
+        cache.put("token", parsed, now.plus(Duration.ofMinutes(15)));
+
+        assertSame(parsed, cache.get("token"));
+        assertEquals(1, cache.getHitCount());
+
+        clock.instant = now.plus(Duration.ofMinutes(15));
+        assertNull(cache.get("token"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cachedToken_cannotBeModifiedByCaller() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, new MutableClock(now));
+        List<String> roles = new ArrayList<>(List.of("USER"));
+        cache.put("token", new ParsedToken(UUID.randomUUID(), roles), now.plus(Duration.ofMinutes(15)));
+
+        roles.add("ADMIN");
+        ParsedToken cached = cache.get("token");
+
+        assertEquals(List.of("USER"), cached.getRoles());
+        assertThrows(UnsupportedOperationException.class, () -> cached.getRoles().add("ADMIN"));
+    }
+
+    @Test
+    void put_ignoresAlreadyExpiredTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, new MutableClock(now));
+
+        cache.put("token", new ParsedToken(UUID.randomUUID(), List.of("USER")), now.minusSeconds(1));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_keepsCacheBounded() {
+        MutableClock clock = new MutableClock(now);
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, clock);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("token-" + i, new ParsedToken(UUID.randomUUID(), List.of("USER")), now.plusSeconds(60));
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertNotNull(cache.get("token-999"));
+    }
+
+    @Test
+    void disabledCache_neverStoresTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0, new MutableClock(now));
+
+        cache.put("token", new ParsedToken(UUID.randomUUID(), List.of("USER")), now.plusSeconds(60));
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.getMissCount());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
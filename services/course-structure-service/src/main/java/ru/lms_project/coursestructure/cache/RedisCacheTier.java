@@ -0,0 +1,145 @@
+package ru.lms_project.coursestructure.cache;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Подключается к Redis при первом обращении, а не при старте: сервис поднимается и без Redis.
+ * Неудачная попытка подключения повторяется не чаще раза в {@link #RECONNECT_INTERVAL},
+ * до этого вызовы сразу падают и {@link StructureCache} читает из MongoDB.
+ */
+public class RedisCacheTier implements SharedCacheTier, AutoCloseable {
+
+    static final Duration RECONNECT_INTERVAL = Duration.ofSeconds(5);
+
+    private static final String VERSION_SUFFIX = ":version";
+
+    // KEYS: ключ, ключ версии; ARGV: значение, TTL в мс, ожидаемая версия
+    private static final String PUT_IF_VERSION = """
+            local current = redis.call('GET', KEYS[2]) or '0'
+            if current ~= ARGV[3] then
+                return 0
+            end
+            redis.call('PSETEX', KEYS[1], ARGV[2], ARGV[1])
+            return 1
+            """;
+
+    // KEYS: пары (ключ, ключ версии); ARGV: TTL версии в мс
+    private static final String EVICT = """
+            for i = 1, #KEYS, 2 do
+                redis.call('DEL', KEYS[i])
+                redis.call('INCR', KEYS[i + 1])
+                redis.call('PEXPIRE', KEYS[i + 1], ARGV[1])
+            end
+            return #KEYS / 2
+            """;
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+    private final RedisClient client;
+    private final Duration versionTtl;
+
+    private volatile StatefulRedisConnection<String, byte[]> connection;
+    private long nextConnectAttempt = System.nanoTime();
+
+    /**
+     * @param versionTtl сколько хранить версию ключа после сброса; должен быть не меньше TTL значений
+     */
+    public RedisCacheTier(String url, Duration timeout, Duration versionTtl) {
+        RedisURI uri = RedisURI.create(url);
+        uri.setTimeout(timeout);
+        this.client = RedisClient.create(uri);
+        this.client.setOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+        this.versionTtl = versionTtl;
+    }
+
+    @Override
+    public Entry get(String key) {
+        List<KeyValue<String, byte[]>> values = commands().mget(key, versionKey(key));
+        byte[] version = values.get(1).getValueOrElse(null);
+        return new Entry(values.get(0).getValueOrElse(null), version == null ? 0 : Long.parseLong(ascii(version)));
+    }
+
+    @Override
+    public boolean putIfVersion(String key, byte[] value, Duration ttl, long version) {
+        Long stored = commands().eval(PUT_IF_VERSION, ScriptOutputType.INTEGER,
+                new String[]{key, versionKey(key)}, value, bytes(ttl.toMillis()), bytes(version));
+        return stored != null && stored == 1;
+    }
+
+    @Override
+    public void evict(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        String[] scriptKeys = new String[keys.size() * 2];
+        int i = 0;
+        for (String key : keys) {
+            scriptKeys[i++] = key;
+            scriptKeys[i++] = versionKey(key);
+        }
+        commands().eval(EVICT, ScriptOutputType.INTEGER, scriptKeys, bytes(versionTtl.toMillis()));
+    }
+
+    @Override
+    public void close() {
+        StatefulRedisConnection<String, byte[]> current = connection;
+        if (current != null) {
+            current.close();
+        }
+        client.shutdown();
+    }
+
+    private RedisCommands<String, byte[]> commands() {
+        StatefulRedisConnection<String, byte[]> current = connection;
+        if (current != null) {
+            return current.sync();
+        }
+        synchronized (this) {
+            if (connection == null) {
+                long now = System.nanoTime();
+                if (now - nextConnectAttempt < 0) {
+                    throw new RedisConnectionException("Redis is unavailable, waiting before the next connection attempt");
+                }
+                try {
+                    // После первого подключения обрывы связи Lettuce восстанавливает сам
+                    connection = client.connect(CODEC);
+                } catch (RuntimeException e) {
+                    nextConnectAttempt = now + RECONNECT_INTERVAL.toNanos();
+                    throw e;
+                }
+            }
+            return connection.sync();
+        }
+    }
+
+    private static String versionKey(String key) {
+        return key + VERSION_SUFFIX;
+    }
+
+    private static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String ascii(byte[] value) {
+        return new String(value, StandardCharsets.US_ASCII);
+    }
+}
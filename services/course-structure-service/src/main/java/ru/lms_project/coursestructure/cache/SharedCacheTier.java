@@ -0,0 +1,25 @@
+package ru.lms_project.coursestructure.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Кэш, общий для всех экземпляров сервиса (Redis). Значения хранятся в сериализованном виде.
+ * У каждого ключа есть версия, которую увеличивает {@link #evict}. Запись проходит, только если версия не изменилась
+ * с момента чтения: так значение, загруженное из MongoDB до изменения, не вернётся в кэш после сброса.
+ */
+public interface SharedCacheTier {
+
+    Entry get(String key);
+
+    boolean putIfVersion(String key, byte[] value, Duration ttl, long version);
+
+    void evict(Collection<String> keys);
+
+    /**
+     * @param value   сериализованное значение или {@code null}, если ключа нет
+     * @param version текущая версия ключа, {@code 0}, если ключ ещё не сбрасывали
+     */
+    record Entry(byte[] value, long version) {
+    }
+}
@@ -0,0 +1,263 @@
+package ru.lms_project.coursestructure.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.lms_project.coursestructure.dto.LessonDto;
+import ru.lms_project.coursestructure.dto.ModuleDto;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through кэш структуры курса: локальный Caffeine и, если включён, общий Redis.
+ * Сервисы сбрасывают ключи после каждой записи. Локальные копии других экземпляров живут не дольше
+ * {@code course-structure.cache.local.ttl}, поэтому этот TTL держим коротким.
+ * Ошибки Redis не ломают чтение: значение просто загружается из MongoDB.
+ * <p>
+ * Значение, загруженное из MongoDB, кладётся в кэш, только если с начала загрузки ключ не сбрасывали:
+ * иначе чтение, начатое до записи, вернуло бы в кэш старые данные уже после сброса.
+ */
+@Component
+@Slf4j
+public class StructureCache {
+
+    private static final String KEY_PREFIX = "lms:course-structure:";
+
+    private final Cache<String, Object> localTier;
+    private final SharedCacheTier sharedTier;
+    private final Duration sharedTtl;
+    private final ObjectMapper objectMapper;
+    private final Map<Region, RegionMeters> meters = new EnumMap<>(Region.class);
+    private final Counter sharedErrors;
+    private final AtomicLong localEvictions = new AtomicLong();
+
+    @Autowired
+    public StructureCache(
+            @Value("${course-structure.cache.local.max-size:10000}") long localMaxSize,
+            @Value("${course-structure.cache.local.ttl:PT1M}") Duration localTtl,
+            @Value("${course-structure.cache.redis.ttl:PT30M}") Duration sharedTtl,
+            ObjectProvider<SharedCacheTier> sharedTier,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper
+    ) {
+        this(localMaxSize, localTtl, sharedTtl, sharedTier.getIfAvailable(), meterRegistry, objectMapper);
+    }
+
+    public StructureCache(long localMaxSize, Duration localTtl, Duration sharedTtl, SharedCacheTier sharedTier,
+                          MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.localTier = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        this.sharedTier = sharedTier;
+        this.sharedTtl = sharedTtl;
+        this.objectMapper = objectMapper;
+
+        for (Region region : Region.values()) {
+            meters.put(region, new RegionMeters(region, meterRegistry));
+        }
+        this.sharedErrors = Counter.builder("course.structure.cache.shared.errors")
+                .description("Failed calls to the shared (Redis) cache tier")
+                .register(meterRegistry);
+    }
+
+    public List<ModuleDto> getModules(String courseId, Supplier<List<ModuleDto>> loader) {
+        return get(Region.MODULES, courseId, listOf(ModuleDto.class), loader);
+    }
+
+    public List<LessonDto> getLessons(String moduleId, Supplier<List<LessonDto>> loader) {
+        return get(Region.LESSONS, moduleId, listOf(LessonDto.class), loader);
+    }
+
+    public LessonDto getLesson(String lessonId, Supplier<LessonDto> loader) {
+        return get(Region.LESSON, lessonId, objectMapper.constructType(LessonDto.class), loader);
+    }
+
+    public void evictCourse(String courseId) {
+        evict(Region.MODULES, courseId);
+    }
+
+    public void evictModule(String moduleId) {
+        evict(Region.LESSONS, moduleId);
+    }
+
+    public void evictLesson(String lessonId) {
+        evict(Region.LESSON, lessonId);
+    }
+
+    public void evictModules(Collection<String> moduleIds) {
+        evict(Region.LESSONS, moduleIds);
+    }
+
+    public void evictLessons(Collection<String> lessonIds) {
+        evict(Region.LESSON, lessonIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Region region, String id, JavaType type, Supplier<T> loader) {
+        String key = region.key(id);
+        RegionMeters regionMeters = meters.get(region);
+
+        Object local = localTier.getIfPresent(key);
+        if (local != null) {
+            regionMeters.localHits.increment();
+            return (T) local;
+        }
+
+        long localGeneration = localEvictions.get();
+        SharedCacheTier.Entry sharedEntry = readShared(key);
+        T shared = deserialize(key, sharedEntry, type);
+        if (shared != null) {
+            regionMeters.sharedHits.increment();
+            putLocal(key, shared, localGeneration);
+            return shared;
+        }
+
+        regionMeters.misses.increment();
+        T value = regionMeters.loadTimer.record(loader);
+        if (value != null) {
+            putLocal(key, value, localGeneration);
+            if (sharedEntry != null) {
+                writeShared(key, value, sharedEntry.version());
+            }
+        }
+        return value;
+    }
+
+    // Проверка под блокировкой ключа: evict, увеличив счётчик, ждёт её и затем удаляет то, что успели положить
+    private void putLocal(String key, Object value, long generation) {
+        localTier.asMap().compute(key, (k, current) -> localEvictions.get() == generation ? value : current);
+    }
+
+    private void evict(Region region, String id) {
+        evict(region, List.of(id));
+    }
+
+    private void evict(Region region, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<String> keys = ids.stream().map(region::key).toList();
+        localEvictions.incrementAndGet();
+        localTier.invalidateAll(keys);
+        if (sharedTier != null) {
+            try {
+                sharedTier.evict(keys);
+            } catch (RuntimeException e) {
+                sharedErrors.increment();
+                log.warn("Failed to evict {} keys starting with {} from shared cache", keys.size(), keys.get(0), e);
+            }
+        }
+    }
+
+    // null, если Redis выключен или недоступен: тогда и записывать в него после загрузки не будем
+    private SharedCacheTier.Entry readShared(String key) {
+        if (sharedTier == null) {
+            return null;
+        }
+        try {
+            return sharedTier.get(key);
+        } catch (Exception e) {
+            sharedErrors.increment();
+            log.debug("Shared cache read failed for {}", key, e);
+            return null;
+        }
+    }
+
+    private <T> T deserialize(String key, SharedCacheTier.Entry entry, JavaType type) {
+        if (entry == null || entry.value() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(entry.value(), type);
+        } catch (Exception e) {
+            sharedErrors.increment();
+            log.debug("Shared cache value for {} could not be read", key, e);
+            return null;
+        }
+    }
+
+    private void writeShared(String key, Object value, long version) {
+        try {
+            sharedTier.putIfVersion(key, objectMapper.writeValueAsBytes(value), sharedTtl, version);
+        } catch (Exception e) {
+            sharedErrors.increment();
+            log.debug("Shared cache write failed for {}", key, e);
+        }
+    }
+
+    private JavaType listOf(Class<?> elementType) {
+        return objectMapper.getTypeFactory().constructCollectionType(List.class, elementType);
+    }
+
+    private enum Region {
+        MODULES("modules:course:"),
+        LESSONS("lessons:module:"),
+        LESSON("lesson:");
+
+        private final String prefix;
+
+        Region(String prefix) {
+            this.prefix = prefix;
+        }
+
+        String key(String id) {
+            return KEY_PREFIX + prefix + id;
+        }
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static class RegionMeters {
+        private final Counter localHits;
+        private final Counter sharedHits;
+        private final Counter misses;
+        private final Timer loadTimer;
+
+        RegionMeters(Region region, MeterRegistry registry) {
+            localHits = requests(registry, region, "local_hit");
+            sharedHits = requests(registry, region, "shared_hit");
+            misses = requests(registry, region, "miss");
+            loadTimer = Timer.builder("course.structure.cache.load")
+                    .description("Time to load a value from MongoDB on a cache miss")
+                    .tag("region", region.tag())
+                    .publishPercentileHistogram()
+                    .register(registry);
+            Gauge.builder("course.structure.cache.hit.ratio", this, RegionMeters::hitRatio)
+                    .description("Share of reads served from either cache tier")
+                    .tag("region", region.tag())
+                    .register(registry);
+        }
+
+        private static Counter requests(MeterRegistry registry, Region region, String result) {
+            return Counter.builder("course.structure.cache.requests")
+                    .tag("region", region.tag())
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+        double hitRatio() {
+            double hits = localHits.count() + sharedHits.count();
+            double total = hits + misses.count();
+            return total == 0 ? 0 : hits / total;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.lms_project.coursestructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.lms_project.coursestructure.cache.RedisCacheTier;
+
+import java.time.Duration;
+
+@Configuration
+public class StructureCacheConfig {
+
+    // Без этого бина StructureCache работает только с локальным кэшем
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "course-structure.cache.redis.enabled", havingValue = "true")
+    public RedisCacheTier redisCacheTier(
+            @Value("${course-structure.cache.redis.url:redis://localhost:6379}") String url,
+            @Value("${course-structure.cache.redis.timeout:PT0.2S}") Duration timeout,
+            @Value("${course-structure.cache.redis.ttl:PT30M}") Duration ttl
+    ) {
+        return new RedisCacheTier(url, timeout, ttl);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.lms_project.coursestructure.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.lms_project.coursestructure.dto.CourseTreeDto;
+import ru.lms_project.coursestructure.service.CourseTreeService;
+
+@RestController
+@RequestMapping("/api/v1/courses")
+@RequiredArgsConstructor
+public class CourseTreeController {
+
+    private final CourseTreeService courseTreeService;
+
+    @GetMapping("/{courseId}/tree")
+    public CourseTreeDto getCourseTree(
+            @PathVariable String courseId,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        return courseTreeService.getCourseTree(courseId, includeContent);
+    }
+}
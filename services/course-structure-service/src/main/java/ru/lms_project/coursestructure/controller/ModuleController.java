@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.lms_project.common.security.annotation.RequireAdmin;
+import ru.lms_project.coursestructure.dto.CourseStructureDeletionDto;
 import ru.lms_project.coursestructure.dto.ModuleCreateRequest;
 import ru.lms_project.coursestructure.dto.ModuleDto;
 import ru.lms_project.coursestructure.dto.ModuleUpdateRequest;
@@ -46,6 +47,12 @@ public class ModuleController {
         return moduleService.updateModule(id, request);
     }
 
+    @DeleteMapping("/courses/{courseId}/structure")
+    @RequireAdmin
+    public CourseStructureDeletionDto deleteCourseStructure(@PathVariable String courseId) {
+        return moduleService.deleteCourseStructure(courseId);
+    }
+
     @DeleteMapping("/modules/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @RequireAdmin
@@ -0,0 +1,14 @@
+package ru.lms_project.coursestructure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseStructureDeletionDto {
+    private String courseId;
+    private long modulesDeleted;
+    private long lessonsDeleted;
+}
@@ -3,6 +3,9 @@ package ru.lms_project.coursestructure.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.lms_project.coursestructure.model.LessonType;
+
+import java.util.Map;
 
 @Data
 @AllArgsConstructor
@@ -12,4 +15,5 @@ public class CourseStructureStatsDto {
     private Long totalModules;
     private Long totalLessons;
     private Long totalDuration;
+    private Map<LessonType, Long> lessonsByType;
 }
@@ -0,0 +1,15 @@
+package ru.lms_project.coursestructure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CourseTreeDto {
+    private String courseId;
+    private List<ModuleTreeDto> modules;
+}
@@ -0,0 +1,14 @@
+package ru.lms_project.coursestructure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.lms_project.coursestructure.model.LessonType;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LessonTypeCount {
+    private LessonType type;
+    private Long lessonsCount;
+}
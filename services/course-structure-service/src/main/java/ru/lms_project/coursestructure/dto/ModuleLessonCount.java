@@ -0,0 +1,13 @@
+package ru.lms_project.coursestructure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ModuleLessonCount {
+    private String moduleId;
+    private Long lessonsCount;
+}
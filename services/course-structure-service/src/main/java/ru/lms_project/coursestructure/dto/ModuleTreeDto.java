@@ -0,0 +1,20 @@
+package ru.lms_project.coursestructure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ModuleTreeDto {
+    private String id;
+    private String title;
+    private String description;
+    private Integer orderIndex;
+    private LocalDateTime createdAt;
+    private List<LessonDto> lessons;
+}
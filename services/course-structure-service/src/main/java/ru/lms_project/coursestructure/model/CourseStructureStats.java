@@ -0,0 +1,38 @@
+package ru.lms_project.coursestructure.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Итоги по структуре курса. Обновляются инкрементально при изменении модулей и уроков,
+ * расхождения исправляет {@code CourseStructureStatsReconciler}.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "course_structure_stats")
+public class CourseStructureStats {
+
+    @Id
+    private String courseId;
+
+    private long totalModules;
+
+    private long totalLessons;
+
+    private long totalDuration;
+
+    private Map<LessonType, Long> lessonsByType = new EnumMap<>(LessonType.class);
+
+    private LocalDateTime updatedAt;
+
+    public CourseStructureStats(String courseId) {
+        this.courseId = courseId;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
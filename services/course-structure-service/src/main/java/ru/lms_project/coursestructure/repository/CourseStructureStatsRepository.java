@@ -0,0 +1,9 @@
+package ru.lms_project.coursestructure.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import ru.lms_project.coursestructure.model.CourseStructureStats;
+
+@Repository
+public interface CourseStructureStatsRepository extends MongoRepository<CourseStructureStats, String> {
+}
@@ -1,16 +1,20 @@
 package ru.lms_project.coursestructure.repository;
 
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.lms_project.coursestructure.dto.ModuleLessonCount;
 import ru.lms_project.coursestructure.model.Lesson;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LessonRepository extends MongoRepository<Lesson, String> {
     List<Lesson> findByModuleIdOrderByOrderIndexAsc(String moduleId);
-    void deleteByModuleId(String moduleId);
+    long deleteByModuleId(String moduleId);
+    long deleteByModuleIdIn(Collection<String> moduleIds);
     long countByModuleId(String moduleId);
 
     @Query(value = "{ 'moduleId': { $in: ?0 } }", count = true)
@@ -18,4 +22,21 @@ public interface LessonRepository extends MongoRepository<Lesson, String> {
 
     @Query(value = "{ 'moduleId': { $in: ?0 } }")
     List<Lesson> findByModuleIdIn(List<String> moduleIds);
+
+    List<Lesson> findByModuleIdInOrderByOrderIndexAsc(Collection<String> moduleIds);
+
+    @Query(value = "{ 'moduleId': { $in: ?0 } }", fields = "{ 'content': 0 }", sort = "{ 'orderIndex': 1 }")
+    List<Lesson> findWithoutContentByModuleIdIn(Collection<String> moduleIds);
+
+    // Только _id: нужны для сброса кэша перед массовым удалением
+    @Query(value = "{ 'moduleId': { $in: ?0 } }", fields = "{ '_id': 1 }")
+    List<Lesson> findIdsByModuleIdIn(Collection<String> moduleIds);
+
+    // Один запрос на все модули курса вместо запроса на каждый модуль; модули без уроков в результат не попадают
+    @Aggregation(pipeline = {
+            "{ $match: { 'moduleId': { $in: ?0 } } }",
+            "{ $group: { _id: '$moduleId', lessonsCount: { $sum: 1 } } }",
+            "{ $project: { _id: 0, moduleId: '$_id', lessonsCount: 1 } }"
+    })
+    List<ModuleLessonCount> countLessonsByModuleIdIn(Collection<String> moduleIds);
 }
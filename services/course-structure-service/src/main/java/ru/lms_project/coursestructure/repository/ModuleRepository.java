@@ -1,14 +1,47 @@
 package ru.lms_project.coursestructure.repository;
 
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.lms_project.coursestructure.dto.CourseStructureStatsDto;
+import ru.lms_project.coursestructure.dto.LessonTypeCount;
 import ru.lms_project.coursestructure.model.Module;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ModuleRepository extends MongoRepository<Module, String> {
     List<Module> findByCourseIdOrderByOrderIndexAsc(String courseId);
-    void deleteByCourseId(String courseId);
+    long deleteByCourseId(String courseId);
     long countByCourseId(String courseId);
+
+    @Query(value = "{ 'courseId': ?0 }", fields = "{ '_id': 1 }")
+    List<Module> findIdsByCourseId(String courseId);
+
+    // Модули, уроки и длительность курса за один запрос; из уроков в $lookup берётся только duration
+    @Aggregation(pipeline = {
+            "{ $match: { 'courseId': ?0 } }",
+            "{ $lookup: { from: 'lessons', let: { moduleId: { $toString: '$_id' } }, pipeline: [ "
+                    + "{ $match: { $expr: { $eq: ['$moduleId', '$$moduleId'] } } }, "
+                    + "{ $project: { _id: 0, duration: 1 } } ], as: 'lessons' } }",
+            "{ $group: { _id: '$courseId', totalModules: { $sum: 1 }, "
+                    + "totalLessons: { $sum: { $size: '$lessons' } }, "
+                    + "totalDuration: { $sum: { $sum: '$lessons.duration' } } } }",
+            "{ $project: { _id: 0, courseId: '$_id', totalModules: { $toLong: '$totalModules' }, "
+                    + "totalLessons: { $toLong: '$totalLessons' }, totalDuration: { $toLong: '$totalDuration' } } }"
+    })
+    Optional<CourseStructureStatsDto> aggregateStructureStats(String courseId);
+
+    @Aggregation(pipeline = {
+            "{ $match: { 'courseId': ?0 } }",
+            "{ $lookup: { from: 'lessons', let: { moduleId: { $toString: '$_id' } }, pipeline: [ "
+                    + "{ $match: { $expr: { $eq: ['$moduleId', '$$moduleId'] } } }, "
+                    + "{ $project: { _id: 0, type: 1 } } ], as: 'lessons' } }",
+            "{ $unwind: '$lessons' }",
+            "{ $group: { _id: '$lessons.type', lessonsCount: { $sum: 1 } } }",
+            "{ $project: { _id: 0, type: '$_id', lessonsCount: { $toLong: '$lessonsCount' } } }"
+    })
+    List<LessonTypeCount> countLessonsByType(String courseId);
 }
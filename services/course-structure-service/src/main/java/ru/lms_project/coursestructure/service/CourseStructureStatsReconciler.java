@@ -0,0 +1,54 @@
+package ru.lms_project.coursestructure.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.lms_project.coursestructure.model.CourseStructureStats;
+import ru.lms_project.coursestructure.model.Module;
+import ru.lms_project.coursestructure.repository.CourseStructureStatsRepository;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Периодически сверяет сохранённую статистику с модулями и уроками. Инкрементальные обновления
+ * не атомарны с записью урока/модуля, поэтому после сбоев и гонок итоги могут разойтись.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "course-structure.stats.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class CourseStructureStatsReconciler {
+
+    private final MongoTemplate mongoTemplate;
+    private final CourseStructureStatsRepository statsRepository;
+    private final CourseStructureStatsService statsService;
+
+    @Scheduled(
+            initialDelayString = "${course-structure.stats.reconcile.initial-delay:PT5M}",
+            fixedDelayString = "${course-structure.stats.reconcile.interval:PT1H}"
+    )
+    public void reconcile() {
+        Set<String> courseIds = new HashSet<>(
+                mongoTemplate.findDistinct(new Query(), "courseId", Module.class, String.class));
+        statsRepository.findAll().stream()
+                .map(CourseStructureStats::getCourseId)
+                .forEach(courseIds::add);
+
+        int repaired = 0;
+        for (String courseId : courseIds) {
+            try {
+                if (statsService.refresh(courseId)) {
+                    repaired++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile structure stats for course {}", courseId, e);
+            }
+        }
+        log.info("Course structure stats reconciled: {} courses checked, {} repaired", courseIds.size(), repaired);
+    }
+}
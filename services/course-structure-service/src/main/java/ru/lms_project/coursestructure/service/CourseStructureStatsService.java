@@ -1,49 +1,232 @@
 package ru.lms_project.coursestructure.service;
 
+import com.mongodb.client.result.UpdateResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import ru.lms_project.coursestructure.dto.CourseStructureStatsDto;
-import ru.lms_project.coursestructure.model.Lesson;
-import ru.lms_project.coursestructure.model.Module;
-import ru.lms_project.coursestructure.repository.LessonRepository;
+import ru.lms_project.coursestructure.dto.LessonTypeCount;
+import ru.lms_project.coursestructure.model.CourseStructureStats;
+import ru.lms_project.coursestructure.model.LessonType;
+import ru.lms_project.coursestructure.repository.CourseStructureStatsRepository;
 import ru.lms_project.coursestructure.repository.ModuleRepository;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CourseStructureStatsService {
 
+    private static final int REFRESH_ATTEMPTS = 3;
+
     private final ModuleRepository moduleRepository;
-    private final LessonRepository lessonRepository;
+    private final CourseStructureStatsRepository statsRepository;
+    private final MongoTemplate mongoTemplate;
 
     public CourseStructureStatsDto getCourseStructureStats(String courseId) {
-        // Получаем количество модулей для курса
-        long totalModules = moduleRepository.countByCourseId(courseId);
+        CourseStructureStats stats = statsRepository.findById(courseId)
+                .orElseGet(() -> initialize(courseId));
+        return toDto(stats);
+    }
+
+    public void moduleAdded(String courseId) {
+        increment(courseId, new Update().inc("totalModules", 1));
+    }
 
-        // Получаем все модули курса
-        List<Module> modules = moduleRepository.findByCourseIdOrderByOrderIndexAsc(courseId);
-        List<String> moduleIds = modules.stream()
-                .map(Module::getId)
-                .collect(Collectors.toList());
+    public void lessonAdded(String courseId, LessonType type, Integer duration) {
+        increment(courseId, lessonDelta(type, duration, 1));
+    }
 
-        long totalLessons = 0;
-        long totalDuration = 0;
+    public void lessonRemoved(String courseId, LessonType type, Integer duration) {
+        increment(courseId, lessonDelta(type, duration, -1));
+    }
 
-        if (!moduleIds.isEmpty()) {
-            // Получаем количество уроков
-            totalLessons = lessonRepository.countByModuleIdIn(moduleIds);
+    public void lessonChanged(String courseId, LessonType oldType, Integer oldDuration,
+                              LessonType newType, Integer newDuration) {
+        long durationDelta = minutes(newDuration) - minutes(oldDuration);
+        if (oldType == newType && durationDelta == 0) {
+            return;
+        }
 
-            // Получаем все уроки и суммируем их продолжительность
-            List<Lesson> lessons = lessonRepository.findByModuleIdIn(moduleIds);
-            totalDuration = lessons.stream()
-                    .filter(lesson -> lesson.getDuration() != null)
-                    .mapToLong(Lesson::getDuration)
-                    .sum();
+        Update update = new Update().inc("totalDuration", durationDelta);
+        if (oldType != newType) {
+            if (oldType != null) {
+                update.inc("lessonsByType." + oldType.name(), -1);
+            }
+            if (newType != null) {
+                update.inc("lessonsByType." + newType.name(), 1);
+            }
         }
+        increment(courseId, update);
+    }
 
-        return new CourseStructureStatsDto(courseId, totalModules, totalLessons, totalDuration);
+    public void courseDeleted(String courseId) {
+        statsRepository.deleteById(courseId);
+    }
+
+    /**
+     * Пересчитывает итоги курса по коллекциям modules и lessons и записывает разошедшиеся поля.
+     * Запись условная: если между чтением и записью документ изменил {@code $inc} из другого запроса,
+     * пересчёт повторяется, а не затирает чужое приращение.
+     *
+     * @return true, если документ со статистикой был создан, изменён или удалён
+     */
+    public boolean refresh(String courseId) {
+        for (int attempt = 0; attempt < REFRESH_ATTEMPTS; attempt++) {
+            CourseStructureStats actual = compute(courseId);
+            Optional<CourseStructureStats> stored = statsRepository.findById(courseId);
+
+            if (actual.getTotalModules() == 0) {
+                stored.ifPresent(stats -> statsRepository.deleteById(courseId));
+                return stored.isPresent();
+            }
+            if (stored.isEmpty()) {
+                return insertIfAbsent(actual);
+            }
+            if (sameTotals(stored.get(), actual)) {
+                return false;
+            }
+            if (replaceTotals(stored.get(), actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CourseStructureStats initialize(String courseId) {
+        CourseStructureStats stats = compute(courseId);
+        // Для курса без модулей документ не создаём, иначе любой запрос с произвольным id оставлял бы запись
+        if (stats.getTotalModules() > 0) {
+            insertIfAbsent(stats);
+        }
+        return stats;
+    }
+
+    // Upsert только с $setOnInsert: если документ успел создать и обновить другой запрос, он остаётся как есть
+    private boolean insertIfAbsent(CourseStructureStats stats) {
+        Update update = new Update()
+                .setOnInsert("totalModules", stats.getTotalModules())
+                .setOnInsert("totalLessons", stats.getTotalLessons())
+                .setOnInsert("totalDuration", stats.getTotalDuration())
+                .setOnInsert("updatedAt", LocalDateTime.now());
+        stats.getLessonsByType().forEach((type, count) -> update.setOnInsert("lessonsByType." + type.name(), count));
+        UpdateResult result = mongoTemplate.upsert(byId(stats.getCourseId()), update, CourseStructureStats.class);
+        return result.getUpsertedId() != null;
     }
-}
 
+    // $set только для разошедшихся полей и только если сохранённые значения не изменились с момента чтения
+    private boolean replaceTotals(CourseStructureStats stored, CourseStructureStats actual) {
+        Criteria criteria = Criteria.where("_id").is(stored.getCourseId())
+                .and("totalModules").is(stored.getTotalModules())
+                .and("totalLessons").is(stored.getTotalLessons())
+                .and("totalDuration").is(stored.getTotalDuration());
+        Update update = new Update().set("updatedAt", LocalDateTime.now());
+        if (stored.getTotalModules() != actual.getTotalModules()) {
+            update.set("totalModules", actual.getTotalModules());
+        }
+        if (stored.getTotalLessons() != actual.getTotalLessons()) {
+            update.set("totalLessons", actual.getTotalLessons());
+        }
+        if (stored.getTotalDuration() != actual.getTotalDuration()) {
+            update.set("totalDuration", actual.getTotalDuration());
+        }
+
+        Map<LessonType, Long> storedByType = stored.getLessonsByType() == null ? Map.of() : stored.getLessonsByType();
+        EnumMap<LessonType, Long> actualByType = withoutZeros(actual);
+        for (LessonType type : LessonType.values()) {
+            Long storedCount = storedByType.get(type);
+            long actualCount = actualByType.getOrDefault(type, 0L);
+            if ((storedCount == null ? 0L : storedCount) != actualCount) {
+                String field = "lessonsByType." + type.name();
+                criteria.and(field).is(storedCount);
+                update.set(field, actualCount);
+            }
+        }
+        return mongoTemplate.updateFirst(Query.query(criteria), update, CourseStructureStats.class).getModifiedCount() > 0;
+    }
+
+    private CourseStructureStats compute(String courseId) {
+        CourseStructureStats stats = new CourseStructureStats(courseId);
+        Optional<CourseStructureStatsDto> totals = moduleRepository.aggregateStructureStats(courseId);
+        if (totals.isEmpty()) {
+            return stats;
+        }
+
+        stats.setTotalModules(totals.get().getTotalModules());
+        stats.setTotalLessons(totals.get().getTotalLessons());
+        stats.setTotalDuration(totals.get().getTotalDuration());
+        if (stats.getTotalLessons() > 0) {
+            for (LessonTypeCount count : moduleRepository.countLessonsByType(courseId)) {
+                if (count.getType() != null) {
+                    stats.getLessonsByType().put(count.getType(), count.getLessonsCount());
+                }
+            }
+        }
+        return stats;
+    }
+
+    // Если документа ещё нет, ничего не делаем: он будет построен из исходных коллекций при первом чтении
+    private void increment(String courseId, Update update) {
+        update.set("updatedAt", LocalDateTime.now());
+        mongoTemplate.updateFirst(byId(courseId), update, CourseStructureStats.class);
+    }
+
+    private static Query byId(String courseId) {
+        return Query.query(Criteria.where("_id").is(courseId));
+    }
+
+    private static Update lessonDelta(LessonType type, Integer duration, int sign) {
+        Update update = new Update()
+                .inc("totalLessons", sign)
+                .inc("totalDuration", sign * minutes(duration));
+        if (type != null) {
+            update.inc("lessonsByType." + type.name(), sign);
+        }
+        return update;
+    }
+
+    private static long minutes(Integer duration) {
+        return duration == null ? 0 : duration;
+    }
+
+    private static boolean sameTotals(CourseStructureStats a, CourseStructureStats b) {
+        return a.getTotalModules() == b.getTotalModules()
+                && a.getTotalLessons() == b.getTotalLessons()
+                && a.getTotalDuration() == b.getTotalDuration()
+                && Objects.equals(withoutZeros(a), withoutZeros(b));
+    }
+
+    private static EnumMap<LessonType, Long> withoutZeros(CourseStructureStats stats) {
+        EnumMap<LessonType, Long> byType = new EnumMap<>(LessonType.class);
+        if (stats.getLessonsByType() != null) {
+            stats.getLessonsByType().forEach((type, count) -> {
+                if (count != null && count != 0) {
+                    byType.put(type, count);
+                }
+            });
+        }
+        return byType;
+    }
+
+    private CourseStructureStatsDto toDto(CourseStructureStats stats) {
+        EnumMap<LessonType, Long> byType = new EnumMap<>(LessonType.class);
+        for (LessonType type : LessonType.values()) {
+            byType.put(type, 0L);
+        }
+        byType.putAll(withoutZeros(stats));
+        return new CourseStructureStatsDto(
+                stats.getCourseId(),
+                stats.getTotalModules(),
+                stats.getTotalLessons(),
+                stats.getTotalDuration(),
+                byType
+        );
+    }
+}
@@ -0,0 +1,60 @@
+package ru.lms_project.coursestructure.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.lms_project.coursestructure.dto.CourseTreeDto;
+import ru.lms_project.coursestructure.dto.LessonDto;
+import ru.lms_project.coursestructure.dto.ModuleTreeDto;
+import ru.lms_project.coursestructure.model.Lesson;
+import ru.lms_project.coursestructure.model.Module;
+import ru.lms_project.coursestructure.repository.LessonRepository;
+import ru.lms_project.coursestructure.repository.ModuleRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class CourseTreeService {
+
+    private final ModuleRepository moduleRepository;
+    private final LessonRepository lessonRepository;
+
+    /**
+     * Модули курса вместе с уроками: один запрос за модулями и один за уроками всех модулей.
+     * Уроки приходят отсортированными по orderIndex, поэтому раскладка по модулям сохраняет порядок.
+     */
+    public CourseTreeDto getCourseTree(String courseId, boolean includeContent) {
+        List<Module> modules = moduleRepository.findByCourseIdOrderByOrderIndexAsc(courseId);
+        if (modules.isEmpty()) {
+            return new CourseTreeDto(courseId, new ArrayList<>());
+        }
+
+        List<String> moduleIds = modules.stream().map(Module::getId).collect(Collectors.toList());
+        List<Lesson> lessons = includeContent
+                ? lessonRepository.findByModuleIdInOrderByOrderIndexAsc(moduleIds)
+                : lessonRepository.findWithoutContentByModuleIdIn(moduleIds);
+
+        Map<String, List<LessonDto>> lessonsByModule = new HashMap<>(modules.size() * 2);
+        for (Lesson lesson : lessons) {
+            lessonsByModule.computeIfAbsent(lesson.getModuleId(), id -> new ArrayList<>())
+                    .add(LessonService.toDto(lesson));
+        }
+
+        List<ModuleTreeDto> tree = new ArrayList<>(modules.size());
+        for (Module module : modules) {
+            tree.add(new ModuleTreeDto(
+                    module.getId(),
+                    module.getTitle(),
+                    module.getDescription(),
+                    module.getOrderIndex(),
+                    module.getCreatedAt(),
+                    lessonsByModule.getOrDefault(module.getId(), new ArrayList<>())
+            ));
+        }
+        return new CourseTreeDto(courseId, tree);
+    }
+}
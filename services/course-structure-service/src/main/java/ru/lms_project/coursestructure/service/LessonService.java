@@ -2,15 +2,20 @@ package ru.lms_project.coursestructure.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.lms_project.coursestructure.cache.StructureCache;
 import ru.lms_project.coursestructure.dto.LessonCreateRequest;
 import ru.lms_project.coursestructure.dto.LessonDto;
 import ru.lms_project.coursestructure.dto.LessonUpdateRequest;
 import ru.lms_project.coursestructure.exception.ResourceNotFoundException;
 import ru.lms_project.coursestructure.model.Lesson;
+import ru.lms_project.coursestructure.model.LessonType;
+import ru.lms_project.coursestructure.model.Module;
 import ru.lms_project.coursestructure.repository.LessonRepository;
 import ru.lms_project.coursestructure.repository.ModuleRepository;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,11 +24,12 @@ public class LessonService {
 
     private final LessonRepository lessonRepository;
     private final ModuleRepository moduleRepository;
+    private final CourseStructureStatsService courseStructureStatsService;
+    private final StructureCache structureCache;
 
     public LessonDto createLesson(String moduleId, LessonCreateRequest request) {
-        if (!moduleRepository.existsById(moduleId)) {
-            throw new ResourceNotFoundException("Module not found with id: " + moduleId);
-        }
+        Module module = moduleRepository.findById(moduleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Module not found with id: " + moduleId));
 
         Lesson lesson = new Lesson();
         lesson.setModuleId(moduleId);
@@ -35,25 +41,32 @@ public class LessonService {
         lesson.setVideoUrl(request.getVideoUrl());
 
         Lesson saved = lessonRepository.save(lesson);
+        courseStructureStatsService.lessonAdded(module.getCourseId(), saved.getType(), saved.getDuration());
+        structureCache.evictModule(moduleId);
+        structureCache.evictCourse(module.getCourseId());
         return toDto(saved);
     }
 
     public List<LessonDto> getLessonsByModuleId(String moduleId) {
-        return lessonRepository.findByModuleIdOrderByOrderIndexAsc(moduleId)
+        return structureCache.getLessons(moduleId, () -> lessonRepository.findByModuleIdOrderByOrderIndexAsc(moduleId)
                 .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+                .map(LessonService::toDto)
+                .collect(Collectors.toList()));
     }
 
     public LessonDto getLessonById(String id) {
-        Lesson lesson = lessonRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Lesson not found with id: " + id));
-        return toDto(lesson);
+        return structureCache.getLesson(id, () -> {
+            Lesson lesson = lessonRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Lesson not found with id: " + id));
+            return toDto(lesson);
+        });
     }
 
     public LessonDto updateLesson(String id, LessonUpdateRequest request) {
         Lesson lesson = lessonRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lesson not found with id: " + id));
+        LessonType oldType = lesson.getType();
+        Integer oldDuration = lesson.getDuration();
 
         if (request.getTitle() != null) {
             lesson.setTitle(request.getTitle());
@@ -75,17 +88,32 @@ public class LessonService {
         }
 
         Lesson updated = lessonRepository.save(lesson);
+        structureCache.evictLesson(id);
+        structureCache.evictModule(updated.getModuleId());
+        if (oldType != updated.getType() || !Objects.equals(oldDuration, updated.getDuration())) {
+            withCourseId(updated.getModuleId(), courseId -> courseStructureStatsService.lessonChanged(
+                    courseId, oldType, oldDuration, updated.getType(), updated.getDuration()));
+        }
         return toDto(updated);
     }
 
     public void deleteLesson(String id) {
-        if (!lessonRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Lesson not found with id: " + id);
-        }
+        Lesson lesson = lessonRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Lesson not found with id: " + id));
         lessonRepository.deleteById(id);
+        structureCache.evictLesson(id);
+        structureCache.evictModule(lesson.getModuleId());
+        withCourseId(lesson.getModuleId(), courseId -> {
+            courseStructureStatsService.lessonRemoved(courseId, lesson.getType(), lesson.getDuration());
+            structureCache.evictCourse(courseId);
+        });
+    }
+
+    private void withCourseId(String moduleId, Consumer<String> action) {
+        moduleRepository.findById(moduleId).ifPresent(module -> action.accept(module.getCourseId()));
     }
 
-    private LessonDto toDto(Lesson lesson) {
+    static LessonDto toDto(Lesson lesson) {
         LessonDto dto = new LessonDto();
         dto.setId(lesson.getId());
         dto.setModuleId(lesson.getModuleId());
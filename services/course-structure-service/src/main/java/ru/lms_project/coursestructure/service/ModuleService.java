@@ -1,24 +1,34 @@
 package ru.lms_project.coursestructure.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.lms_project.coursestructure.cache.StructureCache;
+import ru.lms_project.coursestructure.dto.CourseStructureDeletionDto;
 import ru.lms_project.coursestructure.dto.ModuleCreateRequest;
 import ru.lms_project.coursestructure.dto.ModuleDto;
+import ru.lms_project.coursestructure.dto.ModuleLessonCount;
 import ru.lms_project.coursestructure.dto.ModuleUpdateRequest;
 import ru.lms_project.coursestructure.exception.ResourceNotFoundException;
+import ru.lms_project.coursestructure.model.Lesson;
 import ru.lms_project.coursestructure.model.Module;
 import ru.lms_project.coursestructure.repository.LessonRepository;
 import ru.lms_project.coursestructure.repository.ModuleRepository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ModuleService {
 
     private final ModuleRepository moduleRepository;
     private final LessonRepository lessonRepository;
+    private final CourseStructureStatsService courseStructureStatsService;
+    private final StructureCache structureCache;
 
     public ModuleDto createModule(String courseId, ModuleCreateRequest request) {
         Module module = new Module();
@@ -28,13 +38,28 @@ public class ModuleService {
         module.setOrderIndex(request.getOrderIndex());
 
         Module saved = moduleRepository.save(module);
+        courseStructureStatsService.moduleAdded(courseId);
+        structureCache.evictCourse(courseId);
         return toDto(saved);
     }
 
     public List<ModuleDto> getModulesByCourseId(String courseId) {
-        return moduleRepository.findByCourseIdOrderByOrderIndexAsc(courseId)
+        return structureCache.getModules(courseId, () -> loadModules(courseId));
+    }
+
+    private List<ModuleDto> loadModules(String courseId) {
+        List<Module> modules = moduleRepository.findByCourseIdOrderByOrderIndexAsc(courseId);
+        if (modules.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Long> lessonsCounts = lessonRepository.countLessonsByModuleIdIn(
+                        modules.stream().map(Module::getId).collect(Collectors.toList()))
                 .stream()
-                .map(this::toDto)
+                .collect(Collectors.toMap(ModuleLessonCount::getModuleId, ModuleLessonCount::getLessonsCount));
+
+        return modules.stream()
+                .map(module -> toDto(module, lessonsCounts.getOrDefault(module.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
@@ -59,20 +84,62 @@ public class ModuleService {
         }
 
         Module updated = moduleRepository.save(module);
+        structureCache.evictCourse(updated.getCourseId());
         return toDto(updated);
     }
 
     public void deleteModule(String id) {
-        if (!moduleRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Module not found with id: " + id);
-        }
-        lessonRepository.findByModuleIdOrderByOrderIndexAsc(id).forEach(lesson ->
-            lessonRepository.deleteById(lesson.getId())
-        );
+        Module module = moduleRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Module not found with id: " + id));
+        List<String> lessonIds = lessonIds(List.of(id));
+        long lessonsDeleted = lessonRepository.deleteByModuleId(id);
         moduleRepository.deleteById(id);
+        log.debug("Deleted module {} with {} lessons", id, lessonsDeleted);
+
+        structureCache.evictLessons(lessonIds);
+        structureCache.evictModule(id);
+        structureCache.evictCourse(module.getCourseId());
+        // Удаление модуля редкое, проще пересчитать итоги курса целиком
+        courseStructureStatsService.refresh(module.getCourseId());
+    }
+
+    /**
+     * Удаляет все модули и уроки курса: по одному запросу на выборку id и на удаление в каждой коллекции,
+     * независимо от числа уроков. Повторный вызов для уже очищенного курса возвращает нули.
+     */
+    public CourseStructureDeletionDto deleteCourseStructure(String courseId) {
+        List<String> moduleIds = moduleRepository.findIdsByCourseId(courseId).stream()
+                .map(Module::getId)
+                .collect(Collectors.toList());
+
+        long lessonsDeleted = 0;
+        long modulesDeleted = 0;
+        if (!moduleIds.isEmpty()) {
+            List<String> lessonIds = lessonIds(moduleIds);
+            lessonsDeleted = lessonRepository.deleteByModuleIdIn(moduleIds);
+            modulesDeleted = moduleRepository.deleteByCourseId(courseId);
+
+            structureCache.evictLessons(lessonIds);
+            structureCache.evictModules(moduleIds);
+        }
+        structureCache.evictCourse(courseId);
+        courseStructureStatsService.courseDeleted(courseId);
+
+        log.info("Deleted structure of course {}: {} modules, {} lessons", courseId, modulesDeleted, lessonsDeleted);
+        return new CourseStructureDeletionDto(courseId, modulesDeleted, lessonsDeleted);
+    }
+
+    private List<String> lessonIds(List<String> moduleIds) {
+        return lessonRepository.findIdsByModuleIdIn(moduleIds).stream()
+                .map(Lesson::getId)
+                .collect(Collectors.toList());
     }
 
     private ModuleDto toDto(Module module) {
+        return toDto(module, lessonRepository.countByModuleId(module.getId()));
+    }
+
+    private ModuleDto toDto(Module module, long lessonsCount) {
         ModuleDto dto = new ModuleDto();
         dto.setId(module.getId());
         dto.setCourseId(module.getCourseId());
@@ -80,8 +147,6 @@ public class ModuleService {
         dto.setDescription(module.getDescription());
         dto.setOrderIndex(module.getOrderIndex());
         dto.setCreatedAt(module.getCreatedAt());
-
-        long lessonsCount = lessonRepository.findByModuleIdOrderByOrderIndexAsc(module.getId()).size();
         dto.setLessonsCount(lessonsCount);
 
         return dto;
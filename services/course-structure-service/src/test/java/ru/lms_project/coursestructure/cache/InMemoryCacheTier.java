@@ -0,0 +1,47 @@
+package ru.lms_project.coursestructure.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Заменяет Redis в тестах: общее хранилище для нескольких экземпляров {@link StructureCache}.
+ */
+class InMemoryCacheTier implements SharedCacheTier {
+
+    final Map<String, byte[]> values = new ConcurrentHashMap<>();
+    final Map<String, Long> versions = new ConcurrentHashMap<>();
+    boolean failing;
+
+    @Override
+    public Entry get(String key) {
+        check();
+        return new Entry(values.get(key), versions.getOrDefault(key, 0L));
+    }
+
+    @Override
+    public synchronized boolean putIfVersion(String key, byte[] value, Duration ttl, long version) {
+        check();
+        if (versions.getOrDefault(key, 0L) != version) {
+            return false;
+        }
+        values.put(key, value);
+        return true;
+    }
+
+    @Override
+    public synchronized void evict(Collection<String> keys) {
+        check();
+        for (String key : keys) {
+            values.remove(key);
+            versions.merge(key, 1L, Long::sum);
+        }
+    }
+
+    private void check() {
+        if (failing) {
+            throw new IllegalStateException("redis is down");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.lms_project.coursestructure.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCacheTierTest {
+
+    @Test
+    void whenRedisIsDown_ShouldStartAndFailCallsWithoutWaitingForEveryConnect() {
+        try (RedisCacheTier tier = new RedisCacheTier("redis://localhost:1", Duration.ofMillis(200), Duration.ofMinutes(30))) {
+            assertThrows(RuntimeException.class, () -> tier.get("key"));
+
+            long started = System.nanoTime();
+            assertThrows(RuntimeException.class, () -> tier.evict(List.of("key")));
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(RedisCacheTier.RECONNECT_INTERVAL) < 0);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ru.lms_project.coursestructure.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.lms_project.coursestructure.dto.LessonDto;
+import ru.lms_project.coursestructure.dto.ModuleDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructureCacheTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private InMemoryCacheTier redis;
+    private SimpleMeterRegistry meterRegistry;
+    private StructureCache cache;
+
+    @BeforeEach
+    void setUp() {
+        redis = new InMemoryCacheTier();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = newInstance(meterRegistry);
+    }
+
+    @Test
+    void getModules_ShouldLoadOnceAndServeFromLocalTier() {
+        CountingLoader<List<ModuleDto>> loader = new CountingLoader<>(List.of(module("module-1")));
+
+        cache.getModules("course-1", loader);
+        List<ModuleDto> second = cache.getModules("course-1", loader);
+
+        assertEquals(1, loader.calls.get());
+        assertEquals("module-1", second.get(0).getId());
+        assertEquals(1.0, meterRegistry.get("course.structure.cache.requests")
+                .tag("region", "modules").tag("result", "local_hit").counter().count());
+        assertEquals(0.5, meterRegistry.get("course.structure.cache.hit.ratio").tag("region", "modules").gauge().value());
+        assertEquals(1, meterRegistry.get("course.structure.cache.load").tag("region", "modules").timer().count());
+    }
+
+    @Test
+    void getModules_ShouldReuseValueLoadedByAnotherInstance() {
+        cache.getModules("course-1", new CountingLoader<>(List.of(module("module-1"))));
+        StructureCache otherInstance = newInstance(new SimpleMeterRegistry());
+        CountingLoader<List<ModuleDto>> loader = new CountingLoader<>(List.of());
+
+        List<ModuleDto> result = otherInstance.getModules("course-1", loader);
+
+        assertEquals(0, loader.calls.get());
+        assertEquals(1, result.size());
+        assertEquals("module-1", result.get(0).getId());
+        assertNotNull(result.get(0).getCreatedAt());
+    }
+
+    @Test
+    void evictModule_ShouldDropBothTiers() {
+        CountingLoader<List<LessonDto>> loader = new CountingLoader<>(List.of(new LessonDto()));
+        cache.getLessons("module-1", loader);
+
+        cache.evictModule("module-1");
+        cache.getLessons("module-1", loader);
+
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    void evictCourse_ShouldNotTouchOtherCourses() {
+        CountingLoader<List<ModuleDto>> loader = new CountingLoader<>(List.of(module("module-1")));
+        cache.getModules("course-1", loader);
+        cache.getModules("course-2", loader);
+
+        cache.evictCourse("course-1");
+        cache.getModules("course-1", loader);
+        cache.getModules("course-2", loader);
+
+        assertEquals(3, loader.calls.get());
+    }
+
+    @Test
+    void getLesson_WhenSharedTierFails_ShouldFallBackToLoader() {
+        redis.failing = true;
+        LessonDto lesson = new LessonDto();
+        lesson.setId("lesson-1");
+
+        LessonDto result = cache.getLesson("lesson-1", () -> lesson);
+        cache.evictLesson("lesson-1");
+
+        assertEquals("lesson-1", result.getId());
+        assertEquals(2.0, meterRegistry.get("course.structure.cache.shared.errors").counter().count());
+    }
+
+    @Test
+    void getModules_WhenEvictedDuringLoad_ShouldNotCacheLoadedValue() {
+        // Запись в MongoDB и сброс ключа происходят, пока загрузка ещё читает старые данные
+        List<ModuleDto> stale = List.of(module("module-1"));
+        cache.getModules("course-1", () -> {
+            cache.evictCourse("course-1");
+            return stale;
+        });
+        CountingLoader<List<ModuleDto>> loader = new CountingLoader<>(List.of(module("module-2")));
+
+        List<ModuleDto> result = cache.getModules("course-1", loader);
+        List<ModuleDto> fromOtherInstance = newInstance(new SimpleMeterRegistry()).getModules("course-1", loader);
+
+        assertEquals(1, loader.calls.get());
+        assertEquals("module-2", result.get(0).getId());
+        assertEquals("module-2", fromOtherInstance.get(0).getId());
+    }
+
+    @Test
+    void getLesson_WhenLoaderThrows_ShouldNotCacheAnything() {
+        assertThrows(IllegalArgumentException.class, () -> cache.getLesson("lesson-1", () -> {
+            throw new IllegalArgumentException("not found");
+        }));
+
+        assertTrue(redis.values.isEmpty());
+    }
+
+    private StructureCache newInstance(SimpleMeterRegistry registry) {
+        return new StructureCache(100, Duration.ofMinutes(1), Duration.ofMinutes(30), redis, registry, objectMapper);
+    }
+
+    private static ModuleDto module(String id) {
+        return new ModuleDto(id, "course-1", "Module", null, 1, LocalDateTime.now(), 0L);
+    }
+
+    private static class CountingLoader<T> implements Supplier<T> {
+        private final T value;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingLoader(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T get() {
+            calls.incrementAndGet();
+            return value;
+        }
+    }
+}
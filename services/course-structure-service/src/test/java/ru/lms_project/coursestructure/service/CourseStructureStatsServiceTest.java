@@ -0,0 +1,215 @@
+package ru.lms_project.coursestructure.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import ru.lms_project.coursestructure.dto.CourseStructureStatsDto;
+import ru.lms_project.coursestructure.dto.LessonTypeCount;
+import ru.lms_project.coursestructure.model.CourseStructureStats;
+import ru.lms_project.coursestructure.model.LessonType;
+import ru.lms_project.coursestructure.repository.CourseStructureStatsRepository;
+import ru.lms_project.coursestructure.repository.ModuleRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseStructureStatsServiceTest {
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @Mock
+    private CourseStructureStatsRepository statsRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private CourseStructureStatsService courseStructureStatsService;
+
+    @Test
+    void getCourseStructureStats_WhenStored_ShouldReadOnlyStatsDocument() {
+        // Arrange
+        CourseStructureStats stats = stats("course-1", 3, 12, 240);
+        stats.getLessonsByType().put(LessonType.VIDEO, 12L);
+        when(statsRepository.findById("course-1")).thenReturn(Optional.of(stats));
+
+        // Act
+        CourseStructureStatsDto result = courseStructureStatsService.getCourseStructureStats("course-1");
+
+        // Assert
+        assertEquals(3L, result.getTotalModules());
+        assertEquals(12L, result.getTotalLessons());
+        assertEquals(240L, result.getTotalDuration());
+        assertEquals(12L, result.getLessonsByType().get(LessonType.VIDEO));
+        assertEquals(0L, result.getLessonsByType().get(LessonType.QUIZ));
+        verifyNoInteractions(moduleRepository);
+    }
+
+    @Test
+    void getCourseStructureStats_WhenMissing_ShouldComputeAndInsertIfAbsent() {
+        // Arrange
+        when(statsRepository.findById("course-1")).thenReturn(Optional.empty());
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CourseStructureStats.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("course-1")));
+        when(moduleRepository.aggregateStructureStats("course-1"))
+                .thenReturn(Optional.of(new CourseStructureStatsDto("course-1", 2L, 3L, 45L, null)));
+        when(moduleRepository.countLessonsByType("course-1")).thenReturn(List.of(
+                new LessonTypeCount(LessonType.TEXT, 2L),
+                new LessonTypeCount(LessonType.QUIZ, 1L)));
+
+        // Act
+        CourseStructureStatsDto result = courseStructureStatsService.getCourseStructureStats("course-1");
+
+        // Assert
+        assertEquals(2L, result.getTotalModules());
+        assertEquals(3L, result.getTotalLessons());
+        assertEquals(2L, result.getLessonsByType().get(LessonType.TEXT));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(CourseStructureStats.class));
+        Document setOnInsert = (Document) update.getValue().getUpdateObject().get("$setOnInsert");
+        assertEquals(3L, setOnInsert.get("totalLessons"));
+        assertEquals(1L, setOnInsert.get("lessonsByType.QUIZ"));
+        assertNull(update.getValue().getUpdateObject().get("$set"));
+        verify(statsRepository, never()).save(any());
+    }
+
+    @Test
+    void getCourseStructureStats_WhenCourseHasNoModules_ShouldReturnZerosWithoutSaving() {
+        // Arrange
+        when(statsRepository.findById("course-1")).thenReturn(Optional.empty());
+        when(moduleRepository.aggregateStructureStats("course-1")).thenReturn(Optional.empty());
+
+        // Act
+        CourseStructureStatsDto result = courseStructureStatsService.getCourseStructureStats("course-1");
+
+        // Assert
+        assertEquals("course-1", result.getCourseId());
+        assertEquals(0L, result.getTotalModules());
+        assertEquals(0L, result.getTotalLessons());
+        assertEquals(0L, result.getTotalDuration());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void lessonChanged_ShouldMoveLessonBetweenTypesAndAdjustDuration() {
+        // Act
+        courseStructureStatsService.lessonChanged("course-1", LessonType.TEXT, 10, LessonType.VIDEO, 25);
+
+        // Assert
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(CourseStructureStats.class));
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(15L, inc.get("totalDuration"));
+        assertEquals(-1, inc.get("lessonsByType.TEXT"));
+        assertEquals(1, inc.get("lessonsByType.VIDEO"));
+    }
+
+    @Test
+    void lessonChanged_WhenNothingRelevantChanged_ShouldNotWrite() {
+        // Act
+        courseStructureStatsService.lessonChanged("course-1", LessonType.TEXT, 10, LessonType.TEXT, 10);
+
+        // Assert
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void refresh_WhenStoredTotalsDrifted_ShouldSetOnlyChangedFieldsIfStoredValuesUnchanged() {
+        // Arrange
+        when(moduleRepository.aggregateStructureStats("course-1"))
+                .thenReturn(Optional.of(new CourseStructureStatsDto("course-1", 1L, 0L, 0L, null)));
+        when(statsRepository.findById("course-1")).thenReturn(Optional.of(stats("course-1", 2, 0, 0)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(CourseStructureStats.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // Act
+        boolean repaired = courseStructureStatsService.refresh("course-1");
+
+        // Assert
+        assertTrue(repaired);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(CourseStructureStats.class));
+        assertEquals(2L, query.getValue().getQueryObject().get("totalModules"));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(1L, set.get("totalModules"));
+        assertFalse(set.containsKey("totalLessons"));
+        verify(statsRepository, never()).save(any());
+    }
+
+    @Test
+    void refresh_WhenStatsChangedConcurrently_ShouldRecomputeInsteadOfOverwriting() {
+        // Arrange
+        when(moduleRepository.aggregateStructureStats("course-1"))
+                .thenReturn(Optional.of(new CourseStructureStatsDto("course-1", 1L, 0L, 0L, null)))
+                .thenReturn(Optional.of(new CourseStructureStatsDto("course-1", 2L, 0L, 0L, null)));
+        when(statsRepository.findById("course-1"))
+                .thenReturn(Optional.of(stats("course-1", 2, 0, 0)))
+                .thenReturn(Optional.of(stats("course-1", 2, 0, 0)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(CourseStructureStats.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // Act
+        boolean repaired = courseStructureStatsService.refresh("course-1");
+
+        // Assert
+        assertFalse(repaired);
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(CourseStructureStats.class));
+        verify(moduleRepository, times(2)).aggregateStructureStats("course-1");
+    }
+
+    @Test
+    void refresh_WhenStoredTotalsMatch_ShouldNotWrite() {
+        // Arrange
+        when(moduleRepository.aggregateStructureStats("course-1"))
+                .thenReturn(Optional.of(new CourseStructureStatsDto("course-1", 1L, 0L, 0L, null)));
+        CourseStructureStats stored = stats("course-1", 1, 0, 0);
+        stored.getLessonsByType().put(LessonType.TEXT, 0L);
+        when(statsRepository.findById("course-1")).thenReturn(Optional.of(stored));
+
+        // Act
+        boolean repaired = courseStructureStatsService.refresh("course-1");
+
+        // Assert
+        assertFalse(repaired);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void refresh_WhenCourseHasNoModulesLeft_ShouldDeleteStats() {
+        // Arrange
+        when(moduleRepository.aggregateStructureStats("course-1")).thenReturn(Optional.empty());
+        when(statsRepository.findById("course-1")).thenReturn(Optional.of(stats("course-1", 1, 2, 20)));
+
+        // Act
+        boolean repaired = courseStructureStatsService.refresh("course-1");
+
+        // Assert
+        assertTrue(repaired);
+        verify(statsRepository).deleteById("course-1");
+    }
+
+    private static CourseStructureStats stats(String courseId, long modules, long lessons, long duration) {
+        CourseStructureStats stats = new CourseStructureStats(courseId);
+        stats.setTotalModules(modules);
+        stats.setTotalLessons(lessons);
+        stats.setTotalDuration(duration);
+        return stats;
+    }
+}
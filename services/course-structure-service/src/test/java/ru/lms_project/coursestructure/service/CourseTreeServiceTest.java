@@ -0,0 +1,101 @@
+package ru.lms_project.coursestructure.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.lms_project.coursestructure.dto.CourseTreeDto;
+import ru.lms_project.coursestructure.model.Lesson;
+import ru.lms_project.coursestructure.model.Module;
+import ru.lms_project.coursestructure.repository.LessonRepository;
+import ru.lms_project.coursestructure.repository.ModuleRepository;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseTreeServiceTest {
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @InjectMocks
+    private CourseTreeService courseTreeService;
+
+    @Test
+    void getCourseTree_ShouldGroupLessonsUnderModulesInOrder() {
+        // Arrange
+        Module first = module("module-1", 1);
+        Module second = module("module-2", 2);
+        when(moduleRepository.findByCourseIdOrderByOrderIndexAsc("course-1")).thenReturn(List.of(first, second));
+        when(lessonRepository.findWithoutContentByModuleIdIn(List.of("module-1", "module-2"))).thenReturn(List.of(
+                lesson("lesson-a", "module-2", 1),
+                lesson("lesson-b", "module-1", 1),
+                lesson("lesson-c", "module-2", 2)));
+
+        // Act
+        CourseTreeDto tree = courseTreeService.getCourseTree("course-1", false);
+
+        // Assert
+        assertEquals(2, tree.getModules().size());
+        assertEquals("module-1", tree.getModules().get(0).getId());
+        assertEquals(List.of("lesson-b"), tree.getModules().get(0).getLessons().stream().map(l -> l.getId()).toList());
+        assertEquals(List.of("lesson-a", "lesson-c"), tree.getModules().get(1).getLessons().stream().map(l -> l.getId()).toList());
+        verify(lessonRepository, never()).findByModuleIdInOrderByOrderIndexAsc(any());
+    }
+
+    @Test
+    void getCourseTree_WithContent_ShouldLoadFullLessons() {
+        // Arrange
+        when(moduleRepository.findByCourseIdOrderByOrderIndexAsc("course-1")).thenReturn(List.of(module("module-1", 1)));
+        Lesson lesson = lesson("lesson-a", "module-1", 1);
+        lesson.setContent("Lesson body");
+        when(lessonRepository.findByModuleIdInOrderByOrderIndexAsc(List.of("module-1"))).thenReturn(List.of(lesson));
+
+        // Act
+        CourseTreeDto tree = courseTreeService.getCourseTree("course-1", true);
+
+        // Assert
+        assertEquals("Lesson body", tree.getModules().get(0).getLessons().get(0).getContent());
+        verify(lessonRepository, never()).findWithoutContentByModuleIdIn(any());
+    }
+
+    @Test
+    void getCourseTree_WhenNoModules_ShouldNotQueryLessons() {
+        // Arrange
+        when(moduleRepository.findByCourseIdOrderByOrderIndexAsc("course-1")).thenReturn(Collections.emptyList());
+
+        // Act
+        CourseTreeDto tree = courseTreeService.getCourseTree("course-1", false);
+
+        // Assert
+        assertTrue(tree.getModules().isEmpty());
+        verifyNoInteractions(lessonRepository);
+    }
+
+    private static Module module(String id, int orderIndex) {
+        Module module = new Module();
+        module.setId(id);
+        module.setCourseId("course-1");
+        module.setTitle("Module " + orderIndex);
+        module.setOrderIndex(orderIndex);
+        return module;
+    }
+
+    private static Lesson lesson(String id, String moduleId, int orderIndex) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        lesson.setModuleId(moduleId);
+        lesson.setTitle("Lesson " + id);
+        lesson.setOrderIndex(orderIndex);
+        return lesson;
+    }
+}
@@ -1,19 +1,26 @@
 package ru.lms_project.coursestructure.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.lms_project.coursestructure.cache.SharedCacheTier;
+import ru.lms_project.coursestructure.cache.StructureCache;
 import ru.lms_project.coursestructure.dto.LessonCreateRequest;
 import ru.lms_project.coursestructure.dto.LessonDto;
 import ru.lms_project.coursestructure.dto.LessonUpdateRequest;
 import ru.lms_project.coursestructure.model.Lesson;
 import ru.lms_project.coursestructure.model.LessonType;
+import ru.lms_project.coursestructure.model.Module;
 import ru.lms_project.coursestructure.repository.LessonRepository;
 import ru.lms_project.coursestructure.repository.ModuleRepository;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -31,11 +38,20 @@ class LessonServiceTest {
     @Mock
     private ModuleRepository moduleRepository;
 
+    @Mock
+    private CourseStructureStatsService courseStructureStatsService;
+
+    @Spy
+    private StructureCache structureCache = new StructureCache(
+            100, Duration.ofMinutes(1), Duration.ofMinutes(1), (SharedCacheTier) null, new SimpleMeterRegistry(), new ObjectMapper());
+
     @InjectMocks
     private LessonService lessonService;
 
     private Lesson testLesson;
 
+    private Module testModule;
+
     @BeforeEach
     void setUp() {
         testLesson = new Lesson();
@@ -47,6 +63,10 @@ class LessonServiceTest {
         testLesson.setDuration(30);
         testLesson.setOrderIndex(1);
         testLesson.setVideoUrl("https://example.com/video.mp4");
+
+        testModule = new Module();
+        testModule.setId("module-1");
+        testModule.setCourseId("course-1");
     }
 
     @Test
@@ -59,7 +79,7 @@ class LessonServiceTest {
         request.setDuration(15);
         request.setOrderIndex(1);
 
-        when(moduleRepository.existsById("module-1")).thenReturn(true);
+        when(moduleRepository.findById("module-1")).thenReturn(Optional.of(testModule));
         when(lessonRepository.save(any(Lesson.class))).thenReturn(testLesson);
 
         // Act
@@ -70,6 +90,7 @@ class LessonServiceTest {
         assertEquals(testLesson.getId(), result.getId());
         assertEquals(testLesson.getTitle(), result.getTitle());
         verify(lessonRepository, times(1)).save(any(Lesson.class));
+        verify(courseStructureStatsService).lessonAdded("course-1", LessonType.VIDEO, 30);
     }
 
     @Test
@@ -80,11 +101,12 @@ class LessonServiceTest {
         request.setType(LessonType.TEXT);
         request.setOrderIndex(1);
 
-        when(moduleRepository.existsById("nonexistent")).thenReturn(false);
+        when(moduleRepository.findById("nonexistent")).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class,
             () -> lessonService.createLesson("nonexistent", request));
+        verifyNoInteractions(courseStructureStatsService);
     }
 
     @Test
@@ -133,6 +155,7 @@ class LessonServiceTest {
 
         when(lessonRepository.findById("lesson-1")).thenReturn(Optional.of(testLesson));
         when(lessonRepository.save(any(Lesson.class))).thenReturn(testLesson);
+        when(moduleRepository.findById("module-1")).thenReturn(Optional.of(testModule));
 
         // Act
         LessonDto result = lessonService.updateLesson("lesson-1", request);
@@ -140,12 +163,31 @@ class LessonServiceTest {
         // Assert
         assertNotNull(result);
         verify(lessonRepository, times(1)).save(any(Lesson.class));
+        verify(courseStructureStatsService).lessonChanged("course-1", LessonType.VIDEO, 30, LessonType.VIDEO, 45);
+    }
+
+    @Test
+    void updateLesson_WhenTypeAndDurationUnchanged_ShouldNotTouchStats() {
+        // Arrange
+        LessonUpdateRequest request = new LessonUpdateRequest();
+        request.setTitle("Updated Title");
+
+        when(lessonRepository.findById("lesson-1")).thenReturn(Optional.of(testLesson));
+        when(lessonRepository.save(any(Lesson.class))).thenReturn(testLesson);
+
+        // Act
+        lessonService.updateLesson("lesson-1", request);
+
+        // Assert
+        verifyNoInteractions(courseStructureStatsService);
+        verify(moduleRepository, never()).findById(any());
     }
 
     @Test
     void deleteLesson_WhenExists_ShouldDelete() {
         // Arrange
-        when(lessonRepository.existsById("lesson-1")).thenReturn(true);
+        when(lessonRepository.findById("lesson-1")).thenReturn(Optional.of(testLesson));
+        when(moduleRepository.findById("module-1")).thenReturn(Optional.of(testModule));
         doNothing().when(lessonRepository).deleteById("lesson-1");
 
         // Act
@@ -153,5 +195,6 @@ class LessonServiceTest {
 
         // Assert
         verify(lessonRepository, times(1)).deleteById("lesson-1");
+        verify(courseStructureStatsService).lessonRemoved("course-1", LessonType.VIDEO, 30);
     }
 }
@@ -1,19 +1,27 @@
 package ru.lms_project.coursestructure.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.lms_project.coursestructure.cache.SharedCacheTier;
+import ru.lms_project.coursestructure.cache.StructureCache;
+import ru.lms_project.coursestructure.dto.CourseStructureDeletionDto;
 import ru.lms_project.coursestructure.dto.ModuleCreateRequest;
 import ru.lms_project.coursestructure.dto.ModuleDto;
+import ru.lms_project.coursestructure.dto.ModuleLessonCount;
 import ru.lms_project.coursestructure.dto.ModuleUpdateRequest;
 import ru.lms_project.coursestructure.model.Lesson;
 import ru.lms_project.coursestructure.model.Module;
 import ru.lms_project.coursestructure.repository.LessonRepository;
 import ru.lms_project.coursestructure.repository.ModuleRepository;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -33,6 +41,13 @@ class ModuleServiceTest {
     @Mock
     private LessonRepository lessonRepository;
 
+    @Mock
+    private CourseStructureStatsService courseStructureStatsService;
+
+    @Spy
+    private StructureCache structureCache = new StructureCache(
+            100, Duration.ofMinutes(1), Duration.ofMinutes(1), (SharedCacheTier) null, new SimpleMeterRegistry(), new ObjectMapper());
+
     @InjectMocks
     private ModuleService moduleService;
 
@@ -57,7 +72,7 @@ class ModuleServiceTest {
         request.setOrderIndex(1);
 
         when(moduleRepository.save(any(Module.class))).thenReturn(testModule);
-        when(lessonRepository.findByModuleIdOrderByOrderIndexAsc(anyString())).thenReturn(Collections.emptyList());
+        when(lessonRepository.countByModuleId(anyString())).thenReturn(0L);
 
         // Act
         ModuleDto result = moduleService.createModule("course-1", request);
@@ -67,6 +82,7 @@ class ModuleServiceTest {
         assertEquals(testModule.getId(), result.getId());
         assertEquals(testModule.getTitle(), result.getTitle());
         verify(moduleRepository, times(1)).save(any(Module.class));
+        verify(courseStructureStatsService).moduleAdded("course-1");
     }
 
     @Test
@@ -80,7 +96,8 @@ class ModuleServiceTest {
 
         when(moduleRepository.findByCourseIdOrderByOrderIndexAsc("course-1"))
                 .thenReturn(Arrays.asList(testModule, module2));
-        when(lessonRepository.findByModuleIdOrderByOrderIndexAsc(anyString())).thenReturn(Collections.emptyList());
+        when(lessonRepository.countLessonsByModuleIdIn(List.of("module-1", "module-2")))
+                .thenReturn(List.of(new ModuleLessonCount("module-1", 3L)));
 
         // Act
         List<ModuleDto> result = moduleService.getModulesByCourseId("course-1");
@@ -90,14 +107,30 @@ class ModuleServiceTest {
         assertEquals(2, result.size());
         assertEquals("module-1", result.get(0).getId());
         assertEquals("module-2", result.get(1).getId());
+        assertEquals(3L, result.get(0).getLessonsCount());
+        assertEquals(0L, result.get(1).getLessonsCount());
+        verify(lessonRepository, never()).findByModuleIdOrderByOrderIndexAsc(anyString());
+        verify(lessonRepository, never()).countByModuleId(anyString());
+    }
+
+    @Test
+    void getModulesByCourseId_WhenNoModules_ShouldNotQueryLessons() {
+        // Arrange
+        when(moduleRepository.findByCourseIdOrderByOrderIndexAsc("course-1")).thenReturn(Collections.emptyList());
+
+        // Act
+        List<ModuleDto> result = moduleService.getModulesByCourseId("course-1");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(lessonRepository);
     }
 
     @Test
     void getModuleById_WhenExists_ShouldReturnModule() {
         // Arrange
         when(moduleRepository.findById("module-1")).thenReturn(Optional.of(testModule));
-        when(lessonRepository.findByModuleIdOrderByOrderIndexAsc("module-1"))
-                .thenReturn(Arrays.asList(new Lesson(), new Lesson(), new Lesson()));
+        when(lessonRepository.countByModuleId("module-1")).thenReturn(3L);
 
         // Act
         ModuleDto result = moduleService.getModuleById("module-1");
@@ -126,7 +159,7 @@ class ModuleServiceTest {
 
         when(moduleRepository.findById("module-1")).thenReturn(Optional.of(testModule));
         when(moduleRepository.save(any(Module.class))).thenReturn(testModule);
-        when(lessonRepository.findByModuleIdOrderByOrderIndexAsc(anyString())).thenReturn(Collections.emptyList());
+        when(lessonRepository.countByModuleId(anyString())).thenReturn(0L);
 
         // Act
         ModuleDto result = moduleService.updateModule("module-1", request);
@@ -139,14 +172,63 @@ class ModuleServiceTest {
     @Test
     void deleteModule_ShouldDeleteModuleAndLessons() {
         // Arrange
-        when(moduleRepository.existsById("module-1")).thenReturn(true);
-        when(lessonRepository.findByModuleIdOrderByOrderIndexAsc("module-1")).thenReturn(Collections.emptyList());
+        when(moduleRepository.findById("module-1")).thenReturn(Optional.of(testModule));
+        when(lessonRepository.findIdsByModuleIdIn(List.of("module-1"))).thenReturn(List.of(lesson("lesson-1"), lesson("lesson-2")));
+        when(lessonRepository.deleteByModuleId("module-1")).thenReturn(2L);
         doNothing().when(moduleRepository).deleteById("module-1");
 
         // Act
         moduleService.deleteModule("module-1");
 
         // Assert
+        verify(lessonRepository).deleteByModuleId("module-1");
+        verify(lessonRepository, never()).deleteById(anyString());
         verify(moduleRepository, times(1)).deleteById("module-1");
+        verify(structureCache).evictLessons(List.of("lesson-1", "lesson-2"));
+        verify(courseStructureStatsService).refresh("course-1");
+    }
+
+    @Test
+    void deleteCourseStructure_ShouldDeleteInBulkAndReportCounts() {
+        // Arrange
+        Module second = new Module();
+        second.setId("module-2");
+        when(moduleRepository.findIdsByCourseId("course-1")).thenReturn(List.of(testModule, second));
+        when(lessonRepository.findIdsByModuleIdIn(List.of("module-1", "module-2"))).thenReturn(List.of(lesson("lesson-1")));
+        when(lessonRepository.deleteByModuleIdIn(List.of("module-1", "module-2"))).thenReturn(1L);
+        when(moduleRepository.deleteByCourseId("course-1")).thenReturn(2L);
+
+        // Act
+        CourseStructureDeletionDto result = moduleService.deleteCourseStructure("course-1");
+
+        // Assert
+        assertEquals("course-1", result.getCourseId());
+        assertEquals(2L, result.getModulesDeleted());
+        assertEquals(1L, result.getLessonsDeleted());
+        verify(structureCache).evictModules(List.of("module-1", "module-2"));
+        verify(structureCache).evictCourse("course-1");
+        verify(courseStructureStatsService).courseDeleted("course-1");
+        verify(moduleRepository, never()).deleteById(anyString());
+    }
+
+    @Test
+    void deleteCourseStructure_WhenNoModules_ShouldReturnZeros() {
+        // Arrange
+        when(moduleRepository.findIdsByCourseId("course-1")).thenReturn(Collections.emptyList());
+
+        // Act
+        CourseStructureDeletionDto result = moduleService.deleteCourseStructure("course-1");
+
+        // Assert
+        assertEquals(0L, result.getModulesDeleted());
+        assertEquals(0L, result.getLessonsDeleted());
+        verifyNoInteractions(lessonRepository);
+        verify(courseStructureStatsService).courseDeleted("course-1");
+    }
+
+    private static Lesson lesson(String id) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        return lesson;
     }
 }
@@ -3,7 +3,10 @@ package com.lms.courseService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = {
+		"com.lms.courseService",
+		"ru.lms_project.common.http"
+})
 public class CourseServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,47 @@
+package com.lms.courseService.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import ru.lms_project.common.http.DownstreamClients;
+
+/**
+ * Client of course-structure-service. Calls are made with the caller's Authorization header,
+ * because the structure endpoints that change data are admin-only.
+ */
+@Component
+public class CourseStructureClient {
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+
+    public CourseStructureClient(DownstreamClients downstreamClients,
+                                 @Value("${course-structure.base-url}") String baseUrl) {
+        // pool, timeouts, retry and circuit breaker: lms.http-clients.course-structure.*
+        this.restTemplate = downstreamClients.restTemplate("course-structure");
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Removes all modules and lessons of the course. Safe to repeat: a course without structure returns zero counts.
+     */
+    public StructureDeletion deleteStructure(String courseId, String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        if (authorization != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return restTemplate.exchange(
+                baseUrl + "/api/v1/courses/{courseId}/structure",
+                HttpMethod.DELETE,
+                new HttpEntity<>(headers),
+                StructureDeletion.class,
+                courseId
+        ).getBody();
+    }
+
+    public record StructureDeletion(String courseId, long modulesDeleted, long lessonsDeleted) {
+    }
+}
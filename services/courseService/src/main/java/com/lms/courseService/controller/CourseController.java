@@ -8,8 +8,15 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.bind.annotation.*;
+import ru.lms_project.common.http.DownstreamUnavailableException;
+import ru.lms_project.common.pagination.InvalidPageRequestException;
+import ru.lms_project.common.pagination.web.CursorPageResponses;
 
 import java.net.URI;
 import java.util.List;
@@ -27,10 +34,12 @@ public class CourseController {
         this.service = service;
     }
 
-    @Operation(summary = "Get all courses")
+    @Operation(summary = "Get courses page by page, ordered by ID")
     @GetMapping
-    public List<Course> getAll() {
-        return service.getAll();
+    public ResponseEntity<List<Course>> getAll(
+            @Parameter(description = "X-Next-Cursor of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.ok(service.getAll(cursor, limit));
     }
 
     @Operation(summary = "Get a course by ID")
@@ -52,9 +61,11 @@ public class CourseController {
 
     @Operation(summary = "Delete a course by ID")
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable("id") String id) {
-        boolean deleted = service.delete(id);
-        return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    public ResponseEntity<DeleteCourseResponse> delete(
+            @PathVariable("id") String id,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        DeleteCourseResponse deleted = service.delete(id, authorization);
+        return (deleted == null) ? ResponseEntity.notFound().build() : ResponseEntity.ok(deleted);
     }
 
     @Operation(summary = "Change the status of a course")
@@ -74,4 +85,21 @@ public class CourseController {
         Course updated = service.update(id, request);
         return (updated == null) ? ResponseEntity.notFound().build() : ResponseEntity.ok(updated);
     }
+
+    @ExceptionHandler(RestClientException.class)
+    public ResponseEntity<Void> handleCourseStructureError(RestClientException e) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+    }
+
+    @ExceptionHandler(DownstreamUnavailableException.class)
+    public ResponseEntity<Void> handleCourseStructureUnavailable(DownstreamUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .build();
+    }
+
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ProblemDetail handleInvalidPageRequest(InvalidPageRequestException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getReason());
+    }
 }
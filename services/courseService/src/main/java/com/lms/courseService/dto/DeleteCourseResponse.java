@@ -0,0 +1,7 @@
+package com.lms.courseService.dto;
+
+public record DeleteCourseResponse(
+        String id,
+        long modulesDeleted,
+        long lessonsDeleted
+) {}
@@ -1,8 +1,13 @@
 package com.lms.courseService.repository;
 
 import com.lms.courseService.model.Course;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.List;
+
 public interface CourseRepository extends MongoRepository<Course, String> {
-    // Later will be added queries
+    List<Course> findAllByOrderByIdAsc(Limit limit);
+
+    List<Course> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -1,10 +1,19 @@
 package com.lms.courseService.service;
 
+import com.lms.courseService.client.CourseStructureClient;
+import com.lms.courseService.client.CourseStructureClient.StructureDeletion;
+import com.lms.courseService.dto.DeleteCourseResponse;
 import com.lms.courseService.dto.UpdateCourseRequest;
 import com.lms.courseService.model.Course;
 import com.lms.courseService.model.CourseStatus;
 import com.lms.courseService.repository.CourseRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import ru.lms_project.common.pagination.CursorPage;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,28 +21,54 @@ import java.util.Optional;
 @Service
 public class CourseService {
 
+    private static final Logger log = LoggerFactory.getLogger(CourseService.class);
+
     private final CourseRepository repo;
+    private final CourseStructureClient structureClient;
+
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize = 50;
 
-    public CourseService(CourseRepository repo) {
+    @Value("${pagination.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    public CourseService(CourseRepository repo, CourseStructureClient structureClient) {
         this.repo = repo;
+        this.structureClient = structureClient;
     }
 
     public Course create(Course course) {
         return repo.save(course);
     }
 
-    public List<Course> getAll() {
-        return repo.findAll();
+    public CursorPage<Course> getAll(String cursor, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        String after = CursorPage.decode(cursor, id -> new ObjectId(id).toHexString());
+        List<Course> rows = after == null
+                ? repo.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+                : repo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Course::getId, course -> course);
     }
 
     public Course getById(String id) {
         return repo.findById(id).orElse(null);
     }
 
-    public boolean delete(String id) {
-        if (!repo.existsById(id)) return false;
+    /**
+     * Modules and lessons are removed first: if course-structure-service is unavailable the course stays
+     * and the delete can simply be repeated, instead of leaving a structure without a course.
+     *
+     * @return the removed module and lesson counts, or {@code null} if there is no such course
+     */
+    public DeleteCourseResponse delete(String id, String authorization) {
+        if (!repo.existsById(id)) return null;
+        StructureDeletion structure = structureClient.deleteStructure(id, authorization);
         repo.deleteById(id);
-        return true;
+
+        long modules = structure == null ? 0 : structure.modulesDeleted();
+        long lessons = structure == null ? 0 : structure.lessonsDeleted();
+        log.info("Deleted course {} with {} modules and {} lessons", id, modules, lessons);
+        return new DeleteCourseResponse(id, modules, lessons);
     }
 
     public Course changeStatus(String id, CourseStatus status) {
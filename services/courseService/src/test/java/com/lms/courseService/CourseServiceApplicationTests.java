@@ -1,5 +1,7 @@
 package com.lms.courseService;
 
+import com.lms.courseService.client.CourseStructureClient;
+import com.lms.courseService.dto.DeleteCourseResponse;
 import com.lms.courseService.dto.UpdateCourseRequest;
 import com.lms.courseService.model.Course;
 import com.lms.courseService.model.CourseStatus;
@@ -10,11 +12,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.client.ResourceAccessException;
+import ru.lms_project.common.pagination.CursorPage;
+import ru.lms_project.common.pagination.InvalidPageRequestException;
 
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,6 +30,9 @@ class CourseServiceTest {
     @Mock
     private CourseRepository repo;
 
+    @Mock
+    private CourseStructureClient structureClient;
+
     @InjectMocks
     private CourseService service;
 
@@ -51,16 +61,41 @@ class CourseServiceTest {
     }
 
     @Test
-    void getAll_shouldReturnListFromRepo() {
-        when(repo.findAll()).thenReturn(List.of(sample));
+    void getAll_shouldReturnFirstPageFromRepo() {
+        when(repo.findAllByOrderByIdAsc(Limit.of(51))).thenReturn(List.of(sample));
 
-        List<Course> all = service.getAll();
+        CursorPage<Course> page = service.getAll(null, null);
 
-        assertThat(all).containsExactly(sample);
-        verify(repo).findAll();
+        assertThat(page.items()).containsExactly(sample);
+        assertThat(page.nextCursor()).isNull();
+        verify(repo).findAllByOrderByIdAsc(Limit.of(51));
         verifyNoMoreInteractions(repo);
     }
 
+    @Test
+    void getAll_withCursor_continuesAfterLastId() {
+        Course next = new Course();
+        next.setId("65a1b2c3d4e5f6a7b8c9d0e2");
+        sample.setId("65a1b2c3d4e5f6a7b8c9d0e1");
+        when(repo.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(sample, next));
+        when(repo.findByIdGreaterThanOrderByIdAsc(sample.getId(), Limit.of(2))).thenReturn(List.of(next));
+
+        CursorPage<Course> first = service.getAll(null, 1);
+        CursorPage<Course> second = service.getAll(first.nextCursor(), 1);
+
+        assertThat(first.items()).containsExactly(sample);
+        assertThat(second.items()).containsExactly(next);
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void getAll_invalidCursor_isBadRequest() {
+        assertThatThrownBy(() -> service.getAll("bm90LWFuLWlk", null))
+                .isInstanceOf(InvalidPageRequestException.class)
+                .hasMessage("invalid_cursor");
+        verifyNoInteractions(repo);
+    }
+
     @Test
     void getById_found_returnsEntity() {
         when(repo.findById("c1")).thenReturn(Optional.of(sample));
@@ -84,26 +119,41 @@ class CourseServiceTest {
     }
 
     @Test
-    void delete_exists_deletesAndReturnsTrue() {
+    void delete_exists_deletesAndReturnsRemovedCounts() {
         when(repo.existsById("c1")).thenReturn(true);
+        when(structureClient.deleteStructure("c1", "Bearer token"))
+                .thenReturn(new CourseStructureClient.StructureDeletion("c1", 3, 12));
 
-        boolean result = service.delete("c1");
+        DeleteCourseResponse result = service.delete("c1", "Bearer token");
 
-        assertThat(result).isTrue();
+        assertThat(result).isEqualTo(new DeleteCourseResponse("c1", 3, 12));
+        InOrder inOrder = inOrder(structureClient, repo);
+        inOrder.verify(structureClient).deleteStructure("c1", "Bearer token");
+        inOrder.verify(repo).deleteById("c1");
         verify(repo).existsById("c1");
-        verify(repo).deleteById("c1");
         verifyNoMoreInteractions(repo);
     }
 
     @Test
-    void delete_notExists_returnsFalse() {
+    void delete_structureServiceFails_keepsCourse() {
+        when(repo.existsById("c1")).thenReturn(true);
+        when(structureClient.deleteStructure("c1", null)).thenThrow(new ResourceAccessException("down"));
+
+        assertThatThrownBy(() -> service.delete("c1", null)).isInstanceOf(ResourceAccessException.class);
+
+        verify(repo, never()).deleteById("c1");
+    }
+
+    @Test
+    void delete_notExists_returnsNull() {
         when(repo.existsById("missing")).thenReturn(false);
 
-        boolean result = service.delete("missing");
+        DeleteCourseResponse result = service.delete("missing", null);
 
-        assertThat(result).isFalse();
+        assertThat(result).isNull();
         verify(repo).existsById("missing");
         verifyNoMoreInteractions(repo);
+        verifyNoInteractions(structureClient);
     }
 
     @Test
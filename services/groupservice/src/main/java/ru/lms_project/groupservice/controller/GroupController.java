@@ -4,9 +4,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.lms_project.common.pagination.web.CursorPageResponses;
 import ru.lms_project.groupservice.dto.GroupCreateRequest;
 import ru.lms_project.groupservice.dto.GroupCreateResponse;
 import ru.lms_project.groupservice.dto.GroupDto;
+import ru.lms_project.groupservice.dto.GroupMembersRequest;
 import ru.lms_project.groupservice.dto.GroupUpdateRequest;
 import ru.lms_project.groupservice.service.GroupService;
 
@@ -20,8 +22,10 @@ public class GroupController {
     private final GroupService groupService;
 
     @GetMapping
-    public List<GroupDto> getAllGroups() {
-        return groupService.getAllGroups();
+    public ResponseEntity<List<GroupDto>> getAllGroups(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.ok(groupService.getAllGroups(cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -60,5 +64,21 @@ public class GroupController {
     public void deleteGroup(@PathVariable UUID id) {
         groupService.deleteById(id);
     }
+
+    @GetMapping("/{id}/members")
+    public List<UUID> getMembers(@PathVariable UUID id) {
+        return groupService.getMemberIds(id);
+    }
+
+    @PostMapping("/{id}/members")
+    public List<UUID> addMembers(@PathVariable UUID id, @RequestBody GroupMembersRequest req) {
+        return groupService.addMembers(id, req);
+    }
+
+    @DeleteMapping("/{id}/members/{userId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void removeMember(@PathVariable UUID id, @PathVariable UUID userId) {
+        groupService.removeMember(id, userId);
+    }
 }
 
@@ -0,0 +1,15 @@
+package ru.lms_project.groupservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupMembersRequest {
+    private List<UUID> userIds;
+}
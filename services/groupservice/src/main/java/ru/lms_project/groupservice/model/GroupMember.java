@@ -0,0 +1,37 @@
+package ru.lms_project.groupservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "group_members",
+        indexes = @Index(name = "idx_group_members_user_id", columnList = "user_id"))
+@IdClass(GroupMemberId.class)
+@Data
+@NoArgsConstructor
+public class GroupMember {
+    @Id
+    @Column(name = "group_id", nullable = false)
+    private UUID groupId;
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "added_at", nullable = false, updatable = false)
+    private LocalDateTime addedAt;
+
+    public GroupMember(UUID groupId, UUID userId) {
+        this.groupId = groupId;
+        this.userId = userId;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        addedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.lms_project.groupservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.lms_project.groupservice.model.GroupMember;
+import ru.lms_project.groupservice.model.GroupMemberId;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface GroupMemberRepository extends JpaRepository<GroupMember, GroupMemberId> {
+
+    @Query("select m.userId from GroupMember m where m.groupId = :groupId order by m.userId")
+    List<UUID> findUserIdsByGroupId(@Param("groupId") UUID groupId);
+
+    @Modifying
+    @Query(value = """
+        insert into group_members (group_id, user_id, added_at)
+        select :groupId, u.user_id, :addedAt from unnest(cast(:userIds as uuid[])) as u(user_id)
+        on conflict (group_id, user_id) do nothing
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("groupId") UUID groupId, @Param("userIds") UUID[] userIds,
+                       @Param("addedAt") LocalDateTime addedAt);
+
+    @Modifying
+    @Query("delete from GroupMember m where m.groupId = :groupId")
+    void deleteByGroupId(@Param("groupId") UUID groupId);
+}
@@ -1,5 +1,6 @@
 package ru.lms_project.groupservice.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.lms_project.groupservice.model.Group;
@@ -13,5 +14,8 @@ public interface GroupRepository extends JpaRepository<Group, UUID> {
     List<Group> findByCourseId(UUID courseId);
     List<Group> findByActive(boolean active);
     boolean existsByName(String name);
+
+    List<Group> findAllByOrderByIdAsc(Limit limit);
+    List<Group> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
 }
 
@@ -1,16 +1,24 @@
 package ru.lms_project.groupservice.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import ru.lms_project.common.pagination.CursorPage;
 import ru.lms_project.groupservice.dto.GroupCreateRequest;
 import ru.lms_project.groupservice.dto.GroupCreateResponse;
 import ru.lms_project.groupservice.dto.GroupDto;
+import ru.lms_project.groupservice.dto.GroupMembersRequest;
 import ru.lms_project.groupservice.dto.GroupUpdateRequest;
 import ru.lms_project.groupservice.model.Group;
+import ru.lms_project.groupservice.model.GroupMemberId;
+import ru.lms_project.groupservice.repository.GroupMemberRepository;
 import ru.lms_project.groupservice.repository.GroupRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -19,9 +27,21 @@ import java.util.UUID;
 @Service
 public class GroupService {
     private final GroupRepository groupRepository;
+    private final GroupMemberRepository groupMemberRepository;
 
-    public List<GroupDto> getAllGroups() {
-        return groupRepository.findAll().stream().map(this::toDto).toList();
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${pagination.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    public CursorPage<GroupDto> getAllGroups(String cursor, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        UUID after = CursorPage.decodeUuid(cursor);
+        List<Group> rows = after == null
+                ? groupRepository.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+                : groupRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Group::getId, this::toDto);
     }
 
     public GroupDto getById(UUID id) {
@@ -98,13 +118,51 @@ public class GroupService {
         return toDto(updated);
     }
 
+    @Transactional
     public void deleteById(UUID id) {
         if (!groupRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "group_not_found");
         }
+        groupMemberRepository.deleteByGroupId(id);
         groupRepository.deleteById(id);
     }
 
+    public List<UUID> getMemberIds(UUID groupId) {
+        requireGroup(groupId);
+        return groupMemberRepository.findUserIdsByGroupId(groupId);
+    }
+
+    @Transactional
+    public List<UUID> addMembers(UUID groupId, GroupMembersRequest req) {
+        requireGroup(groupId);
+        if (req.getUserIds() == null || req.getUserIds().isEmpty()) {
+            throw new IllegalArgumentException("user_ids_required");
+        }
+
+        UUID[] userIds = req.getUserIds().stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(UUID[]::new);
+        if (userIds.length > 0) {
+            groupMemberRepository.insertIfAbsent(groupId, userIds, LocalDateTime.now());
+        }
+        return groupMemberRepository.findUserIdsByGroupId(groupId);
+    }
+
+    public void removeMember(UUID groupId, UUID userId) {
+        GroupMemberId id = new GroupMemberId(groupId, userId);
+        if (!groupMemberRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "group_member_not_found");
+        }
+        groupMemberRepository.deleteById(id);
+    }
+
+    private void requireGroup(UUID groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "group_not_found");
+        }
+    }
+
     private GroupDto toDto(Group group) {
         return new GroupDto(
                 group.getId(),
@@ -3,14 +3,20 @@ package ru.lms_project.groupservice.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.server.ResponseStatusException;
+import ru.lms_project.common.pagination.CursorPage;
+import ru.lms_project.common.pagination.InvalidPageRequestException;
 import ru.lms_project.groupservice.dto.GroupCreateRequest;
 import ru.lms_project.groupservice.dto.GroupCreateResponse;
 import ru.lms_project.groupservice.dto.GroupDto;
+import ru.lms_project.groupservice.dto.GroupMembersRequest;
 import ru.lms_project.groupservice.model.Group;
+import ru.lms_project.groupservice.repository.GroupMemberRepository;
 import ru.lms_project.groupservice.repository.GroupRepository;
 
 import java.util.Arrays;
@@ -28,6 +34,9 @@ class GroupServiceTest {
     @Mock
     private GroupRepository groupRepository;
 
+    @Mock
+    private GroupMemberRepository groupMemberRepository;
+
     @InjectMocks
     private GroupService groupService;
 
@@ -47,16 +56,50 @@ class GroupServiceTest {
     @Test
     void getAllGroups_ShouldReturnListOfGroups() {
         // Arrange
-        when(groupRepository.findAll()).thenReturn(Arrays.asList(testGroup));
+        when(groupRepository.findAllByOrderByIdAsc(Limit.of(51))).thenReturn(Arrays.asList(testGroup));
 
         // Act
-        List<GroupDto> result = groupService.getAllGroups();
+        CursorPage<GroupDto> result = groupService.getAllGroups(null, null);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Test Group", result.get(0).getName());
-        verify(groupRepository, times(1)).findAll();
+        assertEquals(1, result.items().size());
+        assertEquals("Test Group", result.items().get(0).getName());
+        assertNull(result.nextCursor());
+        verify(groupRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllGroups_WhenMoreRowsThanLimit_ShouldReturnCursorToNextPage() {
+        // Arrange
+        Group second = new Group();
+        second.setId(UUID.randomUUID());
+        second.setName("Second Group");
+        when(groupRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(List.of(testGroup, second));
+        when(groupRepository.findByIdGreaterThanOrderByIdAsc(testId, Limit.of(2))).thenReturn(List.of(second));
+
+        // Act
+        CursorPage<GroupDto> first = groupService.getAllGroups(null, 1);
+        CursorPage<GroupDto> next = groupService.getAllGroups(first.nextCursor(), 1);
+
+        // Assert
+        assertEquals(1, first.items().size());
+        assertNotNull(first.nextCursor());
+        assertEquals("Second Group", next.items().get(0).getName());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void getAllGroups_ShouldCapLimitAndRejectBadCursor() {
+        // Arrange
+        when(groupRepository.findAllByOrderByIdAsc(Limit.of(501))).thenReturn(List.of());
+
+        // Act & Assert
+        assertTrue(groupService.getAllGroups(null, 100_000).items().isEmpty());
+        InvalidPageRequestException ex = assertThrows(InvalidPageRequestException.class,
+                () -> groupService.getAllGroups("not-a-cursor", null));
+        assertEquals("invalid_cursor", ex.getReason());
+        assertThrows(InvalidPageRequestException.class, () -> groupService.getAllGroups(null, 0));
     }
 
     @Test
@@ -130,6 +173,7 @@ class GroupServiceTest {
 
         // Assert
         verify(groupRepository, times(1)).existsById(testId);
+        verify(groupMemberRepository, times(1)).deleteByGroupId(testId);
         verify(groupRepository, times(1)).deleteById(testId);
     }
 
@@ -143,4 +187,48 @@ class GroupServiceTest {
         verify(groupRepository, times(1)).existsById(testId);
         verify(groupRepository, never()).deleteById(testId);
     }
+
+    @Test
+    void addMembers_ShouldInsertDistinctMembersIgnoringExisting() {
+        // Arrange
+        UUID existing = UUID.randomUUID();
+        UUID added = UUID.randomUUID();
+        when(groupRepository.existsById(testId)).thenReturn(true);
+        when(groupMemberRepository.findUserIdsByGroupId(testId)).thenReturn(List.of(existing, added));
+
+        // Act
+        List<UUID> result = groupService.addMembers(testId,
+                new GroupMembersRequest(Arrays.asList(existing, added, added, null)));
+
+        // Assert
+        assertEquals(List.of(existing, added), result);
+        ArgumentCaptor<UUID[]> inserted = ArgumentCaptor.forClass(UUID[].class);
+        verify(groupMemberRepository).insertIfAbsent(eq(testId), inserted.capture(), any());
+        assertArrayEquals(new UUID[]{existing, added}, inserted.getValue());
+        verify(groupMemberRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void addMembers_WhenOnlyNullIds_ShouldNotInsert() {
+        // Arrange
+        when(groupRepository.existsById(testId)).thenReturn(true);
+        when(groupMemberRepository.findUserIdsByGroupId(testId)).thenReturn(List.of());
+
+        // Act
+        List<UUID> result = groupService.addMembers(testId, new GroupMembersRequest(Arrays.asList(null, null)));
+
+        // Assert
+        assertEquals(List.of(), result);
+        verify(groupMemberRepository, never()).insertIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    void getMemberIds_WhenGroupNotExists_ShouldThrowException() {
+        // Arrange
+        when(groupRepository.existsById(testId)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResponseStatusException.class, () -> groupService.getMemberIds(testId));
+        verifyNoInteractions(groupMemberRepository);
+    }
 }
@@ -1,8 +1,12 @@
 package ru.lms_project.notificationservice.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.lms_project.common.pagination.InvalidPageRequestException;
+import ru.lms_project.common.pagination.web.CursorPageResponses;
 import ru.lms_project.common.security.SecurityUtils;
 import ru.lms_project.common.security.annotation.RequireAdmin;
 import ru.lms_project.common.security.annotation.RequireAuth;
@@ -22,10 +26,11 @@ public class NotificationController {
 
     @GetMapping("/users/me")
     @RequireAuth
-    public ResponseEntity<List<NotificationDto>> getMyNotifications() {
+    public ResponseEntity<List<NotificationDto>> getMyNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         UUID userId = SecurityUtils.getCurrentUserId();
-        List<NotificationDto> notifications = notificationService.getUserNotifications(userId);
-        return ResponseEntity.ok(notifications);
+        return CursorPageResponses.ok(notificationService.getUserNotifications(userId, cursor, limit));
     }
 
     @GetMapping("/unread")
@@ -77,8 +82,15 @@ public class NotificationController {
 
     @GetMapping("/users/{userId}")
     @RequireAdmin
-    public ResponseEntity<List<NotificationDto>> getUserNotifications(@PathVariable UUID userId) {
-        List<NotificationDto> notifications = notificationService.getUserNotifications(userId);
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<List<NotificationDto>> getUserNotifications(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.ok(notificationService.getUserNotifications(userId, cursor, limit));
+    }
+
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ProblemDetail handleInvalidPageRequest(InvalidPageRequestException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getReason());
     }
 }
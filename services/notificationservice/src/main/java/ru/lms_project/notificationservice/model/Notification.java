@@ -5,12 +5,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Document(collection = "notifications")
+@CompoundIndex(name = "user_id_desc", def = "{ 'userId': 1, '_id': -1 }")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
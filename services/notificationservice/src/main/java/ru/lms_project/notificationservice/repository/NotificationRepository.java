@@ -1,5 +1,6 @@
 package ru.lms_project.notificationservice.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import ru.lms_project.notificationservice.model.Notification;
@@ -9,7 +10,9 @@ import java.util.UUID;
 
 @Repository
 public interface NotificationRepository extends MongoRepository<Notification, String> {
-    List<Notification> findAllByUserIdOrderByCreatedAtDesc(UUID userId);
+    List<Notification> findAllByUserIdOrderByIdDesc(UUID userId, Limit limit);
+
+    List<Notification> findAllByUserIdAndIdLessThanOrderByIdDesc(UUID userId, String id, Limit limit);
 
     List<Notification> findAllByUserIdAndReadIsFalseOrderByCreatedAtDesc(UUID userId);
 
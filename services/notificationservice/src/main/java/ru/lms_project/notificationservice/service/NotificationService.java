@@ -1,7 +1,11 @@
 package ru.lms_project.notificationservice.service;
 
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import ru.lms_project.common.pagination.CursorPage;
 import ru.lms_project.notificationservice.dto.CreateNotificationDto;
 import ru.lms_project.notificationservice.dto.NotificationDto;
 import ru.lms_project.notificationservice.exceptions.IncorrectDataException;
@@ -16,6 +20,12 @@ import java.util.UUID;
 public class NotificationService {
     private final NotificationRepository notificationRepository;
 
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${pagination.max-page-size:500}")
+    private int maxPageSize = 500;
+
     public NotificationDto createNotification(CreateNotificationDto createNotificationDto) {
         Notification notification = Notification.builder()
                 .userId(createNotificationDto.getUserId())
@@ -28,9 +38,17 @@ public class NotificationService {
         return toDTO(savedNotification);
     }
 
-    public List<NotificationDto> getUserNotifications(UUID userId) {
-        List<Notification> notificationsFromDb = notificationRepository.findAllByUserIdOrderByCreatedAtDesc(userId);
-        return notificationsFromDb.stream().map(this::toDTO).toList();
+    /**
+     * Newest first. The ObjectId grows with insertion time, so ordering by {@code _id} gives the same order
+     * as {@code createdAt} while staying unique, which the cursor needs.
+     */
+    public CursorPage<NotificationDto> getUserNotifications(UUID userId, String cursor, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        String before = CursorPage.decode(cursor, id -> new ObjectId(id).toHexString());
+        List<Notification> notificationsFromDb = before == null
+                ? notificationRepository.findAllByUserIdOrderByIdDesc(userId, Limit.of(pageSize + 1))
+                : notificationRepository.findAllByUserIdAndIdLessThanOrderByIdDesc(userId, before, Limit.of(pageSize + 1));
+        return CursorPage.of(notificationsFromDb, pageSize, Notification::getId, this::toDTO);
     }
 
     public List<NotificationDto> getUserUnreadNotifications(UUID userId) {
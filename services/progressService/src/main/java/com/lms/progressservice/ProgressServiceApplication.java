@@ -3,7 +3,10 @@ package com.lms.progressService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = {
+		"com.lms.progressService",
+		"ru.lms_project.common.http"
+})
 public class ProgressServiceApplication {
 
 	public static void main(String[] args) {
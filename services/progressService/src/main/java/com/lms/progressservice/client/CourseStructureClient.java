@@ -0,0 +1,92 @@
+package com.lms.progressService.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import ru.lms_project.common.http.DownstreamClients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Клиент course-structure-service. Эндпоинты структуры требуют аутентификации,
+ * поэтому передается заголовок Authorization исходного запроса.
+ */
+@Component
+public class CourseStructureClient {
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+
+    public CourseStructureClient(DownstreamClients downstreamClients,
+                                 @Value("${course-structure.base-url}") String baseUrl) {
+        // пул, таймауты, повторы и circuit breaker: lms.http-clients.course-structure.*
+        this.restTemplate = downstreamClients.restTemplate("course-structure");
+        this.baseUrl = baseUrl;
+    }
+
+    public long getTotalLessons(UUID courseId, String authorization) {
+        StructureStats stats = restTemplate.exchange(
+                baseUrl + "/api/v1/courses/{courseId}/structure-stats",
+                HttpMethod.GET,
+                new HttpEntity<>(headers(authorization)),
+                StructureStats.class,
+                courseId
+        ).getBody();
+        return stats == null || stats.totalLessons() == null ? 0 : stats.totalLessons();
+    }
+
+    /**
+     * Уроки курса в порядке модулей и уроков внутри модуля, по дереву курса без содержимого уроков.
+     * Id уроков - строки, как их хранит course-structure-service (обычно ObjectId в hex), в нижнем регистре.
+     */
+    public List<String> getLessonIds(UUID courseId, String authorization) {
+        CourseTree tree = restTemplate.exchange(
+                baseUrl + "/api/v1/courses/{courseId}/tree",
+                HttpMethod.GET,
+                new HttpEntity<>(headers(authorization)),
+                CourseTree.class,
+                courseId
+        ).getBody();
+        if (tree == null || tree.modules() == null) {
+            return List.of();
+        }
+        List<String> lessonIds = new ArrayList<>();
+        for (ModuleTree module : tree.modules()) {
+            if (module.lessons() == null) {
+                continue;
+            }
+            for (TreeLesson lesson : module.lessons()) {
+                if (lesson.id() != null) {
+                    lessonIds.add(lesson.id().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return lessonIds;
+    }
+
+    private static HttpHeaders headers(String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        if (authorization != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return headers;
+    }
+
+    public record StructureStats(String courseId, Long totalModules, Long totalLessons) {
+    }
+
+    public record CourseTree(String courseId, List<ModuleTree> modules) {
+    }
+
+    public record ModuleTree(String id, List<TreeLesson> lessons) {
+    }
+
+    public record TreeLesson(String id) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.lms.progressService.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import ru.lms_project.common.http.DownstreamClients;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Клиент groupservice: курс группы и список ее участников.
+ */
+@Component
+public class GroupClient {
+
+    private static final ParameterizedTypeReference<List<UUID>> UUID_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+
+    public GroupClient(DownstreamClients downstreamClients,
+                       @Value("${group-service.base-url}") String baseUrl) {
+        // пул, таймауты, повторы и circuit breaker: lms.http-clients.groupservice.*
+        this.restTemplate = downstreamClients.restTemplate("groupservice");
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @return пусто, если группы нет
+     */
+    public Optional<GroupInfo> getGroup(UUID groupId, String authorization) {
+        try {
+            return Optional.ofNullable(restTemplate.exchange(
+                    baseUrl + "/api/v1/groups/{groupId}",
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers(authorization)),
+                    GroupInfo.class,
+                    groupId
+            ).getBody());
+        } catch (HttpClientErrorException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    public List<UUID> getMemberIds(UUID groupId, String authorization) {
+        List<UUID> members = restTemplate.exchange(
+                baseUrl + "/api/v1/groups/{groupId}/members",
+                HttpMethod.GET,
+                new HttpEntity<>(headers(authorization)),
+                UUID_LIST,
+                groupId
+        ).getBody();
+        return members == null ? List.of() : members;
+    }
+
+    private static HttpHeaders headers(String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        if (authorization != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return headers;
+    }
+
+    public record GroupInfo(UUID id, String name, UUID courseId) {
+    }
+}
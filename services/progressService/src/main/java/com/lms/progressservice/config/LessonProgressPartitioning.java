@@ -0,0 +1,98 @@
+package com.lms.progressService.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Переводит lesson_progress на hash-партиционирование PostgreSQL по user_id. Запускается после того, как
+ * Hibernate обновил схему, и ничего не делает, если таблица уже партиционирована.
+ *
+ * <p>Существующие строки копируются в новую таблицу в той же транзакции под ACCESS EXCLUSIVE блокировкой,
+ * поэтому на время копирования запись прогресса останавливается: большую таблицу переводят в окно обслуживания.
+ * Первичный ключ партиционированной таблицы обязан содержать ключ партиционирования, поэтому он становится
+ * (id, user_id); уникальность (user_id, lesson_id), на которую опираются upsert-ы, сохраняется.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "progress.partitioning.enabled", havingValue = "true")
+public class LessonProgressPartitioning implements SmartInitializingSingleton {
+
+    static final String TABLE = "lesson_progress";
+    private static final String OLD_TABLE = TABLE + "_unpartitioned";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int partitions;
+
+    public LessonProgressPartitioning(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                      @Value("${progress.partitioning.partitions:16}") int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("progress.partitioning.partitions must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitions = partitions;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+    }
+
+    /**
+     * @return {@code true}, если таблица была переведена на партиции этим вызовом
+     */
+    public boolean migrate() {
+        Boolean migrated = transactionTemplate.execute(status -> {
+            String kind = relationKind();
+            if (kind == null || "p".equals(kind)) {
+                return false;
+            }
+            // повторная проверка под блокировкой: другой экземпляр сервиса мог успеть раньше
+            jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+            if ("p".equals(relationKind())) {
+                return false;
+            }
+
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + OLD_TABLE);
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + OLD_TABLE + " INCLUDING DEFAULTS)"
+                + " PARTITION BY HASH (user_id)");
+            for (int i = 0; i < partitions; i++) {
+                jdbcTemplate.execute("CREATE TABLE " + partitionName(i) + " PARTITION OF " + TABLE
+                    + " FOR VALUES WITH (MODULUS " + partitions + ", REMAINDER " + i + ")");
+            }
+            int rows = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + OLD_TABLE);
+            jdbcTemplate.execute("DROP TABLE " + OLD_TABLE);
+
+            // ограничения и индексы строятся после копирования: так быстрее, чем поддерживать их на каждой вставке
+            jdbcTemplate.execute("ALTER TABLE " + TABLE
+                + " ADD CONSTRAINT lesson_progress_pkey PRIMARY KEY (id, user_id),"
+                + " ADD CONSTRAINT uk_lesson_progress_user_lesson UNIQUE (user_id, lesson_id)");
+            jdbcTemplate.execute("CREATE INDEX idx_lesson_progress_user_course ON " + TABLE + " (user_id, course_id)");
+            jdbcTemplate.execute("CREATE INDEX idx_lesson_progress_user_id_id ON " + TABLE + " (user_id, id)");
+            jdbcTemplate.execute("CREATE INDEX idx_lesson_progress_course_user_lesson ON " + TABLE
+                + " (course_id, user_id, lesson_id)");
+            jdbcTemplate.execute("ANALYZE " + TABLE);
+            log.info("Таблица {} разбита на {} hash-партиций по user_id, перенесено {} строк", TABLE, partitions, rows);
+            return true;
+        });
+        return Boolean.TRUE.equals(migrated);
+    }
+
+    static String partitionName(int remainder) {
+        return String.format("%s_p%02d", TABLE, remainder);
+    }
+
+    private String relationKind() {
+        return jdbcTemplate.queryForObject(
+            "SELECT (SELECT relkind FROM pg_class WHERE oid = to_regclass(?))::text", String.class, TABLE);
+    }
+}
@@ -1,18 +1,38 @@
 package com.lms.progressService.controller;
 
 import com.lms.progressService.annotation.RequireAuth;
+import com.lms.progressService.dto.BatchLessonCompletionRequest;
+import com.lms.progressService.dto.CompletedLessonsDto;
 import com.lms.progressService.dto.CourseProgressStatsDto;
+import com.lms.progressService.dto.LessonCompletionResultDto;
 import com.lms.progressService.dto.LessonProgressDto;
+import com.lms.progressService.dto.TopCoursesDto;
+import com.lms.progressService.dto.UniqueViewersDto;
+import com.lms.progressService.dto.UserIdsRequest;
+import com.lms.progressService.service.EngagementAnalytics;
+import com.lms.progressService.service.GroupProgressMatrixService;
+import com.lms.progressService.service.ProgressExportService;
 import com.lms.progressService.service.ProgressService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lms_project.common.pagination.web.CursorPageResponses;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,6 +44,9 @@ import java.util.UUID;
 public class ProgressController {
 
     private final ProgressService progressService;
+    private final ProgressExportService progressExportService;
+    private final GroupProgressMatrixService groupProgressMatrixService;
+    private final EngagementAnalytics engagementAnalytics;
 
     @PostMapping("/lessons/{lessonId}/complete")
     @RequireAuth
@@ -31,12 +54,41 @@ public class ProgressController {
     public ResponseEntity<LessonProgressDto> completeLesson(
             @Parameter(description = "ID урока") @PathVariable @NotNull UUID lessonId,
             @Parameter(description = "ID курса") @RequestParam @NotNull UUID courseId,
-            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId) {
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
 
-        LessonProgressDto progress = progressService.completeLessonProgress(userId, lessonId, courseId);
+        LessonProgressDto progress = progressService.completeLessonProgress(userId, lessonId, courseId, authorization);
         return ResponseEntity.ok(progress);
     }
 
+    @PostMapping("/lessons/{lessonId}/heartbeat")
+    @RequireAuth
+    @Operation(summary = "Отметить открытие урока",
+            description = "Время доступа записывается в БД асинхронно. 503, если буфер отметок переполнен")
+    public ResponseEntity<Void> lessonHeartbeat(
+            @Parameter(description = "ID урока") @PathVariable @NotNull UUID lessonId,
+            @Parameter(description = "ID курса") @RequestParam @NotNull UUID courseId,
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId) {
+
+        boolean accepted = progressService.recordLessonAccess(userId, lessonId, courseId);
+        return accepted
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    @PostMapping("/lessons/completions")
+    @RequireAuth
+    @Operation(summary = "Отметить несколько уроков как завершенные",
+            description = "Результат возвращается для каждого элемента запроса в том же порядке")
+    public ResponseEntity<List<LessonCompletionResultDto>> completeLessons(
+            @RequestBody BatchLessonCompletionRequest request,
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+
+        List<LessonCompletionResultDto> results = progressService.completeLessonsBatch(userId, request.getItems(), authorization);
+        return ResponseEntity.ok(results);
+    }
+
     @GetMapping("/courses/{courseId}")
     @RequireAuth
     @Operation(summary = "Получить прогресс пользователя по курсу")
@@ -48,14 +100,172 @@ public class ProgressController {
         return ResponseEntity.ok(progress);
     }
 
+    @GetMapping("/courses/{courseId}/completed-lessons")
+    @RequireAuth
+    @Operation(summary = "Получить завершенные уроки курса",
+            description = "Читает битмап агрегата курса, без строк прогресса по урокам")
+    public ResponseEntity<CompletedLessonsDto> getCompletedLessons(
+            @Parameter(description = "ID курса") @PathVariable @NotNull UUID courseId,
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId) {
+
+        return ResponseEntity.ok(progressService.getCompletedLessons(userId, courseId));
+    }
+
+    @PostMapping("/courses/{courseId}/completed-lessons/intersection")
+    @RequireAuth
+    @Operation(summary = "Получить уроки курса, завершенные всеми указанными пользователями",
+            description = "Только для TEACHER и ADMIN")
+    public ResponseEntity<CompletedLessonsDto> getLessonsCompletedByAll(
+            @Parameter(description = "ID курса") @PathVariable @NotNull UUID courseId,
+            @RequestBody UserIdsRequest request,
+            @Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles) {
+
+        if (!isTeacherOrAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(progressService.getLessonsCompletedByAll(courseId, request.getUserIds()));
+    }
+
+    @GetMapping("/users/me/stats")
+    @RequireAuth
+    @Operation(summary = "Получить статистику завершения по нескольким курсам",
+            description = "Без courseIds возвращаются все курсы, где у пользователя есть прогресс")
+    public ResponseEntity<List<CourseProgressStatsDto>> getMyCoursesStats(
+            @Parameter(description = "ID курсов через запятую") @RequestParam(required = false) List<UUID> courseIds,
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+
+        return ResponseEntity.ok(progressService.getCoursesStats(userId, courseIds, authorization));
+    }
+
+    @GetMapping("/users/me/completed-lessons")
+    @RequireAuth
+    @Operation(summary = "Получить завершенные уроки текущего пользователя по всем курсам")
+    public ResponseEntity<List<CompletedLessonsDto>> getAllMyCompletedLessons(
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId) {
+
+        return ResponseEntity.ok(progressService.getAllCompletedLessons(userId));
+    }
+
+    @GetMapping("/courses/{courseId}/export")
+    @RequireAuth
+    @Operation(summary = "Выгрузить прогресс всех студентов курса",
+            description = "CSV или NDJSON, строки отдаются по мере чтения из БД. Только для TEACHER и ADMIN")
+    public ResponseEntity<StreamingResponseBody> exportCourseProgress(
+            @Parameter(description = "ID курса") @PathVariable @NotNull UUID courseId,
+            @Parameter(description = "csv или ndjson") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Начало интервала (включительно)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Конец интервала (не включительно)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Только завершенные (true) или незавершенные (false) уроки") @RequestParam(required = false) Boolean completed,
+            @Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles,
+            HttpServletRequest request) {
+
+        if (!isTeacherOrAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        ProgressExportService.Format exportFormat = ProgressExportService.Format.from(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("invalid_date_range");
+        }
+
+        // таймаут асинхронного ответа только этого запроса, StreamingResponseBody берет его при старте
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest()
+                .setTimeout(progressExportService.timeout().toMillis());
+        StreamingResponseBody body = out -> progressExportService.export(courseId, from, to, completed, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"progress-" + courseId + "." + exportFormat.extension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/groups/{groupId}/matrix")
+    @RequireAuth
+    @Operation(summary = "Получить матрицу завершения уроков курса для студентов группы",
+            description = "Для каждого студента битсет завершенных уроков в base64, бит i соответствует lessons[i]. "
+                    + "Только для TEACHER и ADMIN")
+    public ResponseEntity<StreamingResponseBody> getGroupMatrix(
+            @Parameter(description = "ID группы") @PathVariable @NotNull UUID groupId,
+            @Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+
+        if (!isTeacherOrAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return groupProgressMatrixService.build(groupId, authorization)
+                .map(matrix -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body((StreamingResponseBody) out -> groupProgressMatrixService.write(matrix, out)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/analytics/lessons/{lessonId}/unique-viewers")
+    @RequireAuth
+    @Operation(summary = "Оценка числа уникальных зрителей урока за период",
+            description = "HyperLogLog, относительная ошибка ~0,8%. По умолчанию последние 7 дней. Только для TEACHER и ADMIN")
+    public ResponseEntity<UniqueViewersDto> getLessonUniqueViewers(
+            @Parameter(description = "ID урока") @PathVariable @NotNull UUID lessonId,
+            @Parameter(description = "Первый день периода (UTC)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Последний день периода (UTC), по умолчанию сегодня") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles) {
+
+        if (!isTeacherOrAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(engagementAnalytics.lessonViewers(lessonId, from, to));
+    }
+
+    @GetMapping("/analytics/courses/{courseId}/unique-viewers")
+    @RequireAuth
+    @Operation(summary = "Оценка числа уникальных зрителей курса за период",
+            description = "HyperLogLog, относительная ошибка ~0,8%. По умолчанию последние 7 дней. Только для TEACHER и ADMIN")
+    public ResponseEntity<UniqueViewersDto> getCourseUniqueViewers(
+            @Parameter(description = "ID курса") @PathVariable @NotNull UUID courseId,
+            @Parameter(description = "Первый день периода (UTC)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Последний день периода (UTC), по умолчанию сегодня") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles) {
+
+        if (!isTeacherOrAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(engagementAnalytics.courseViewers(courseId, from, to));
+    }
+
+    @GetMapping("/analytics/courses/top")
+    @RequireAuth
+    @Operation(summary = "Самые активные курсы за период",
+            description = "Число событий прогресса по курсам из count-min sketch: оценка не меньше настоящей "
+                    + "и превышает ее не больше чем на errorBound. По умолчанию последние 7 дней. Только для TEACHER и ADMIN")
+    public ResponseEntity<TopCoursesDto> getTopCourses(
+            @Parameter(description = "Первый день периода (UTC)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Последний день периода (UTC), по умолчанию сегодня") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Число курсов, не больше 100") @RequestParam(defaultValue = "10") int limit,
+            @Parameter(hidden = true) @RequestHeader(value = "X-User-Roles", required = false) String roles) {
+
+        if (!isTeacherOrAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(engagementAnalytics.topCourses(from, to, limit));
+    }
+
     @GetMapping("/users/me")
     @RequireAuth
-    @Operation(summary = "Получить весь прогресс текущего пользователя")
+    @Operation(summary = "Получить прогресс текущего пользователя постранично",
+            description = "Токен следующей страницы возвращается в заголовке " + CursorPageResponses.NEXT_CURSOR_HEADER)
     public ResponseEntity<List<LessonProgressDto>> getAllMyProgress(
-            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId) {
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId,
+            @Parameter(description = "Значение X-Next-Cursor предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы") @RequestParam(required = false) Integer limit) {
 
-        List<LessonProgressDto> progress = progressService.getAllUserProgress(userId);
-        return ResponseEntity.ok(progress);
+        return CursorPageResponses.ok(progressService.getAllUserProgress(userId, cursor, limit));
     }
 
     @GetMapping("/courses/{courseId}/stats")
@@ -63,9 +273,16 @@ public class ProgressController {
     @Operation(summary = "Получить статистику завершения курса")
     public ResponseEntity<CourseProgressStatsDto> getCourseStats(
             @Parameter(description = "ID курса") @PathVariable @NotNull UUID courseId,
-            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId) {
+            @Parameter(description = "ID пользователя") @RequestHeader("X-User-Id") @NotNull UUID userId,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
 
-        CourseProgressStatsDto stats = progressService.getCourseStats(userId, courseId);
+        CourseProgressStatsDto stats = progressService.getCourseStats(userId, courseId, authorization);
         return ResponseEntity.ok(stats);
     }
+
+    private static boolean isTeacherOrAdmin(String roles) {
+        return roles != null && Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .anyMatch(role -> "TEACHER".equals(role) || "ADMIN".equals(role));
+    }
 }
@@ -0,0 +1,14 @@
+package com.lms.progressService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLessonCompletionRequest {
+    private List<LessonCompletionItem> items;
+}
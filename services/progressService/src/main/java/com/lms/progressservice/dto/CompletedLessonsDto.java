@@ -0,0 +1,17 @@
+package com.lms.progressService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletedLessonsDto {
+    private UUID courseId;
+    private long completedLessons;
+    private List<UUID> lessonIds;
+}
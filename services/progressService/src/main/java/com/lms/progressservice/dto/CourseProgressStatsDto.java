@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
@@ -14,4 +15,5 @@ public class CourseProgressStatsDto {
     private long totalLessons;
     private long completedLessons;
     private double completionPercentage;
+    private LocalDateTime lastActivityAt;
 }
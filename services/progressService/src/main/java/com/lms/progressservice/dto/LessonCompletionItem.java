@@ -0,0 +1,20 @@
+package com.lms.progressService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonCompletionItem {
+    private UUID lessonId;
+    private UUID courseId;
+    /**
+     * Время завершения на клиенте. Пустое значение и время в будущем заменяются временем сервера.
+     */
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,26 @@
+package com.lms.progressService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonCompletionResultDto {
+    /**
+     * Позиция элемента в запросе.
+     */
+    private int index;
+    private UUID lessonId;
+    private Status status;
+    private String error;
+    private LessonProgressDto progress;
+
+    public enum Status {
+        COMPLETED,
+        REJECTED
+    }
+}
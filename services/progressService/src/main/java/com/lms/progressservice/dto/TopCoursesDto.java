@@ -0,0 +1,29 @@
+package com.lms.progressService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopCoursesDto {
+    private LocalDate from;
+    private LocalDate to;
+    private long totalEvents;
+    /** Насколько оценка events курса может превышать настоящее значение. */
+    private long errorBound;
+    private List<CourseActivity> courses;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CourseActivity {
+        private UUID courseId;
+        private long events;
+    }
+}
@@ -0,0 +1,20 @@
+package com.lms.progressService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueViewersDto {
+    private UUID id;
+    private LocalDate from;
+    private LocalDate to;
+    private long uniqueViewers;
+    /** Относительная стандартная ошибка оценки. */
+    private double relativeError;
+}
@@ -0,0 +1,33 @@
+package com.lms.progressService.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Порядковый номер урока внутри курса для битмапов завершения. Номера выдаются подряд с нуля
+ * при первом завершении урока кем-либо и больше не меняются.
+ */
+@Entity
+@Table(name = "course_lesson_ordinal",
+    uniqueConstraints = @UniqueConstraint(name = "uk_course_lesson_ordinal", columnNames = {"course_id", "ordinal"}))
+@IdClass(CourseLessonOrdinalId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseLessonOrdinal {
+
+    @Id
+    @Column(name = "course_id", nullable = false)
+    private UUID courseId;
+
+    @Id
+    @Column(name = "lesson_id", nullable = false)
+    private UUID lessonId;
+
+    @Column(name = "ordinal", nullable = false)
+    private int ordinal;
+}
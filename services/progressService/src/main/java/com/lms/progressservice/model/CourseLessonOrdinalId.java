@@ -0,0 +1,16 @@
+package com.lms.progressService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseLessonOrdinalId implements Serializable {
+    private UUID courseId;
+    private UUID lessonId;
+}
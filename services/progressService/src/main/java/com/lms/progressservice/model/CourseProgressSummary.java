@@ -0,0 +1,52 @@
+package com.lms.progressService.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Агрегат прогресса пользователя по курсу. Обновляется в той же транзакции, что и завершение урока,
+ * поэтому статистика курса читается одной строкой по первичному ключу.
+ */
+@Entity
+@Table(name = "course_progress_summary")
+@IdClass(CourseProgressSummaryId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseProgressSummary {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Id
+    @Column(name = "course_id", nullable = false)
+    private UUID courseId;
+
+    @Column(name = "completed_lessons", nullable = false)
+    private long completedLessons;
+
+    /**
+     * Число уроков курса по данным course-structure-service на момент последнего обновления.
+     */
+    @Column(name = "total_lessons", nullable = false)
+    private long totalLessons;
+
+    @Column(name = "completion_percentage", nullable = false)
+    private double completionPercentage;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    /**
+     * Сериализованный RoaringBitmap порядковых номеров завершенных уроков (см. {@link CourseLessonOrdinal}).
+     * {@code null} у строк, созданных до появления битмапа: он восстанавливается из lesson_progress при первой записи.
+     */
+    @Column(name = "completed_bitmap")
+    private byte[] completedBitmap;
+}
@@ -0,0 +1,16 @@
+package com.lms.progressService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseProgressSummaryId implements Serializable {
+    private UUID userId;
+    private UUID courseId;
+}
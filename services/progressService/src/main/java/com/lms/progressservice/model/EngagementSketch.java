@@ -0,0 +1,51 @@
+package com.lms.progressService.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Сериализованный эскиз активности за сутки (UTC): HyperLogLog зрителей урока или курса
+ * либо count-min sketch событий по курсам ({@code subjectId} у него нулевой).
+ */
+@Entity
+@Table(name = "engagement_sketch",
+    indexes = @Index(name = "idx_engagement_sketch_bucket", columnList = "bucket"))
+@IdClass(EngagementSketchId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EngagementSketch {
+
+    public static final UUID ALL_COURSES = new UUID(0, 0);
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 32)
+    private Kind kind;
+
+    @Id
+    @Column(name = "subject_id", nullable = false)
+    private UUID subjectId;
+
+    @Id
+    @Column(name = "bucket", nullable = false)
+    private LocalDate bucket;
+
+    @Column(name = "data", nullable = false, length = 1 << 20)
+    private byte[] data;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Kind {
+        LESSON_VIEWERS,
+        COURSE_VIEWERS,
+        COURSE_ACTIVITY
+    }
+}
@@ -0,0 +1,18 @@
+package com.lms.progressService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EngagementSketchId implements Serializable {
+    private EngagementSketch.Kind kind;
+    private UUID subjectId;
+    private LocalDate bucket;
+}
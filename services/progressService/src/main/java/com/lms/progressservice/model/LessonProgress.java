@@ -5,12 +5,19 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.PartitionKey;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "lesson_progress")
+@Table(name = "lesson_progress",
+    indexes = {
+        @Index(name = "idx_lesson_progress_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_lesson_progress_user_course", columnList = "user_id, course_id"),
+        @Index(name = "idx_lesson_progress_course_user_lesson", columnList = "course_id, user_id, lesson_id")
+    },
+    uniqueConstraints = @UniqueConstraint(name = "uk_lesson_progress_user_lesson", columnNames = {"user_id", "lesson_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,6 +27,8 @@ public class LessonProgress {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
+    // Hibernate добавляет user_id в UPDATE/DELETE по id, чтобы они попадали в одну партицию
+    @PartitionKey
     @NotNull
     @Column(name = "user_id", nullable = false)
     private UUID userId;
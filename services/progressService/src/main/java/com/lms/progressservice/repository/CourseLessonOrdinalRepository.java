@@ -0,0 +1,37 @@
+package com.lms.progressService.repository;
+
+import com.lms.progressService.model.CourseLessonOrdinal;
+import com.lms.progressService.model.CourseLessonOrdinalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CourseLessonOrdinalRepository extends JpaRepository<CourseLessonOrdinal, CourseLessonOrdinalId> {
+
+    List<CourseLessonOrdinal> findByCourseId(UUID courseId);
+
+    /**
+     * Блокировка выдачи номеров в курсе до конца транзакции.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(CAST(:courseId AS text), 0))", nativeQuery = true)
+    Integer lockCourse(@Param("courseId") UUID courseId);
+
+    /**
+     * Выдает уроку следующий номер курса. Вызывать под {@link #lockCourse}.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO course_lesson_ordinal (course_id, lesson_id, ordinal)
+        SELECT :courseId, :lessonId, COALESCE(MAX(ordinal) + 1, 0)
+        FROM course_lesson_ordinal
+        WHERE course_id = :courseId
+        ON CONFLICT (course_id, lesson_id) DO NOTHING
+        """, nativeQuery = true)
+    void assign(@Param("courseId") UUID courseId, @Param("lessonId") UUID lessonId);
+}
@@ -0,0 +1,57 @@
+package com.lms.progressService.repository;
+
+import com.lms.progressService.model.CourseProgressSummary;
+import com.lms.progressService.model.CourseProgressSummaryId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CourseProgressSummaryRepository extends JpaRepository<CourseProgressSummary, CourseProgressSummaryId> {
+
+    /**
+     * Создает строку агрегата, если ее еще нет, блокирует ее до конца транзакции и возвращает.
+     * Завершения уроков одного пользователя в одном курсе после этого выполняются по очереди;
+     * изменения возвращенной сущности записываются при коммите.
+     */
+    @Query(value = """
+        INSERT INTO course_progress_summary (user_id, course_id, completed_lessons, total_lessons, completion_percentage, last_activity_at)
+        VALUES (:userId, :courseId, 0, 0, 0, :now)
+        ON CONFLICT (user_id, course_id) DO UPDATE
+        SET last_activity_at = GREATEST(course_progress_summary.last_activity_at, EXCLUDED.last_activity_at)
+        RETURNING *
+        """, nativeQuery = true)
+    CourseProgressSummary lockForUpdate(@Param("userId") UUID userId,
+                                       @Param("courseId") UUID courseId,
+                                       @Param("now") LocalDateTime now);
+
+    /**
+     * Записывает новое число уроков курса и пересчитывает процент по текущему числу завершенных уроков строки,
+     * так что параллельное завершение урока не откатывается.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE course_progress_summary
+        SET total_lessons = :totalLessons,
+            completion_percentage = CASE WHEN :totalLessons > 0
+                THEN LEAST(100.0, ROUND(completed_lessons * 10000.0 / :totalLessons) / 100.0)
+                ELSE 0 END
+        WHERE user_id = :userId AND course_id = :courseId AND total_lessons <> :totalLessons
+        """, nativeQuery = true)
+    int updateTotalLessons(@Param("userId") UUID userId,
+                           @Param("courseId") UUID courseId,
+                           @Param("totalLessons") long totalLessons);
+
+    List<CourseProgressSummary> findByUserId(UUID userId);
+
+    List<CourseProgressSummary> findByUserIdAndCourseIdIn(UUID userId, Collection<UUID> courseIds);
+}
@@ -0,0 +1,33 @@
+package com.lms.progressService.repository;
+
+import com.lms.progressService.model.EngagementSketch;
+import com.lms.progressService.model.EngagementSketchId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface EngagementSketchRepository extends JpaRepository<EngagementSketch, EngagementSketchId> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM EngagementSketch s WHERE s.kind = :kind AND s.subjectId = :subjectId AND s.bucket = :bucket")
+    Optional<EngagementSketch> findForUpdate(@Param("kind") EngagementSketch.Kind kind,
+                                             @Param("subjectId") UUID subjectId,
+                                             @Param("bucket") LocalDate bucket);
+
+    List<EngagementSketch> findByKindAndSubjectIdAndBucketBetween(EngagementSketch.Kind kind, UUID subjectId,
+                                                                   LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM EngagementSketch s WHERE s.bucket < :before")
+    int deleteOlderThan(@Param("before") LocalDate before);
+}
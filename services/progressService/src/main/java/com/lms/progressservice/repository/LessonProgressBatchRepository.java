@@ -0,0 +1,35 @@
+package com.lms.progressService.repository;
+
+import com.lms.progressService.model.LessonProgress;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Многострочные upsert в lesson_progress. Строки пишутся в порядке (user_id, lesson_id),
+ * чтобы параллельные пакеты блокировали строки в одном порядке и не взаимоблокировались.
+ */
+public interface LessonProgressBatchRepository {
+
+    /**
+     * Отмечает уроки завершенными многострочными {@code INSERT ... ON CONFLICT (user_id, lesson_id) DO UPDATE}.
+     * Уроки в {@code lessons} не должны повторяться: PostgreSQL не обновляет одну строку дважды в одном запросе.
+     */
+    List<LessonProgress> upsertCompletedBatch(UUID userId, Collection<CompletedLesson> lessons);
+
+    /**
+     * Сдвигает last_accessed_at вперед, создавая незавершенную строку урока, если ее нет.
+     * Пары (userId, lessonId) в {@code lessons} не должны повторяться.
+     *
+     * @return число вставленных или измененных строк
+     */
+    int touchAccessedBatch(Collection<AccessedLesson> lessons);
+
+    record CompletedLesson(UUID lessonId, UUID courseId, LocalDateTime completedAt) {
+    }
+
+    record AccessedLesson(UUID userId, UUID lessonId, UUID courseId, LocalDateTime accessedAt) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.lms.progressService.repository;
+
+import com.lms.progressService.model.LessonProgress;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+class LessonProgressBatchRepositoryImpl implements LessonProgressBatchRepository {
+
+    /**
+     * Не больше 6 параметров на строку: до 3000 параметров на запрос, далеко от предела PostgreSQL в 65535.
+     */
+    static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_COMPLETED =
+        "INSERT INTO lesson_progress (id, user_id, lesson_id, course_id, completed, completed_at, last_accessed_at) VALUES ";
+
+    private static final String ON_CONFLICT_COMPLETED =
+        " ON CONFLICT (user_id, lesson_id) DO UPDATE"
+            + " SET course_id = EXCLUDED.course_id,"
+            + " completed = true,"
+            + " completed_at = LEAST(lesson_progress.completed_at, EXCLUDED.completed_at),"
+            + " last_accessed_at = GREATEST(lesson_progress.last_accessed_at, EXCLUDED.last_accessed_at)"
+            + " RETURNING *";
+
+    private static final String INSERT_ACCESSED =
+        "INSERT INTO lesson_progress (id, user_id, lesson_id, course_id, completed, last_accessed_at) VALUES ";
+
+    // Строки, где время доступа не сдвигается, не трогаем, чтобы не плодить мертвые версии
+    private static final String ON_CONFLICT_ACCESSED =
+        " ON CONFLICT (user_id, lesson_id) DO UPDATE"
+            + " SET last_accessed_at = EXCLUDED.last_accessed_at"
+            + " WHERE lesson_progress.last_accessed_at IS NULL"
+            + " OR lesson_progress.last_accessed_at < EXCLUDED.last_accessed_at";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<LessonProgress> upsertCompletedBatch(UUID userId, Collection<CompletedLesson> lessons) {
+        List<CompletedLesson> rows = new ArrayList<>(lessons);
+        rows.sort(Comparator.comparing(CompletedLesson::lessonId));
+
+        List<LessonProgress> saved = new ArrayList<>(rows.size());
+        for (List<CompletedLesson> chunk : chunks(rows)) {
+            Query query = entityManager.createNativeQuery(
+                INSERT_COMPLETED + values(chunk.size(), 6, "?, ?, ?, ?, true, ?, ?") + ON_CONFLICT_COMPLETED,
+                LessonProgress.class);
+            int p = 0;
+            for (CompletedLesson row : chunk) {
+                query.setParameter(++p, UUID.randomUUID());
+                query.setParameter(++p, userId);
+                query.setParameter(++p, row.lessonId());
+                query.setParameter(++p, row.courseId());
+                query.setParameter(++p, row.completedAt());
+                query.setParameter(++p, row.completedAt());
+            }
+            @SuppressWarnings("unchecked")
+            List<LessonProgress> result = query.getResultList();
+            saved.addAll(result);
+        }
+        return saved;
+    }
+
+    @Override
+    public int touchAccessedBatch(Collection<AccessedLesson> lessons) {
+        List<AccessedLesson> rows = new ArrayList<>(lessons);
+        rows.sort(Comparator.comparing(AccessedLesson::userId).thenComparing(AccessedLesson::lessonId));
+
+        int touched = 0;
+        for (List<AccessedLesson> chunk : chunks(rows)) {
+            Query query = entityManager.createNativeQuery(
+                INSERT_ACCESSED + values(chunk.size(), 5, "?, ?, ?, ?, false, ?") + ON_CONFLICT_ACCESSED);
+            int p = 0;
+            for (AccessedLesson row : chunk) {
+                query.setParameter(++p, UUID.randomUUID());
+                query.setParameter(++p, row.userId());
+                query.setParameter(++p, row.lessonId());
+                query.setParameter(++p, row.courseId());
+                query.setParameter(++p, row.accessedAt());
+            }
+            touched += query.executeUpdate();
+        }
+        return touched;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> rows) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            chunks.add(rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Список {@code (?1, ?2, ...), (...)} на {@code rows} строк; {@code template} задает строку с ненумерованными "?".
+     */
+    private static String values(int rows, int paramsPerRow, String template) {
+        StringBuilder sql = new StringBuilder(rows * (template.length() + paramsPerRow * 3));
+        int p = 0;
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append('(');
+            for (int c = 0; c < template.length(); c++) {
+                char ch = template.charAt(c);
+                sql.append(ch);
+                if (ch == '?') {
+                    sql.append(++p);
+                }
+            }
+            sql.append(')');
+        }
+        return sql.toString();
+    }
+}
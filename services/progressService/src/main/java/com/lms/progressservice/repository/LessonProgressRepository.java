@@ -1,27 +1,51 @@
 package com.lms.progressService.repository;
 
 import com.lms.progressService.model.LessonProgress;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface LessonProgressRepository extends JpaRepository<LessonProgress, UUID> {
+public interface LessonProgressRepository extends JpaRepository<LessonProgress, UUID>, LessonProgressBatchRepository {
 
     Optional<LessonProgress> findByUserIdAndLessonId(UUID userId, UUID lessonId);
 
+    /**
+     * Отмечает урок завершенным одним запросом: вставляет строку или обновляет существующую
+     * по уникальному ключу (user_id, lesson_id) и возвращает итоговую строку. Повторное завершение
+     * не сдвигает completed_at вперед, а last_accessed_at - назад, как и в пакетном upsert.
+     */
+    @Query(value = """
+        INSERT INTO lesson_progress (id, user_id, lesson_id, course_id, completed, completed_at, last_accessed_at)
+        VALUES (:id, :userId, :lessonId, :courseId, true, :now, :now)
+        ON CONFLICT (user_id, lesson_id) DO UPDATE
+        SET course_id = EXCLUDED.course_id,
+            completed = true,
+            completed_at = LEAST(lesson_progress.completed_at, EXCLUDED.completed_at),
+            last_accessed_at = GREATEST(lesson_progress.last_accessed_at, EXCLUDED.last_accessed_at)
+        RETURNING *
+        """, nativeQuery = true)
+    LessonProgress upsertCompleted(@Param("id") UUID id,
+                                   @Param("userId") UUID userId,
+                                   @Param("lessonId") UUID lessonId,
+                                   @Param("courseId") UUID courseId,
+                                   @Param("now") LocalDateTime now);
+
+    @Query("SELECT lp.lessonId FROM LessonProgress lp WHERE lp.userId = :userId AND lp.courseId = :courseId AND lp.completed = true")
+    List<UUID> findCompletedLessonIds(@Param("userId") UUID userId, @Param("courseId") UUID courseId);
+
     List<LessonProgress> findByUserIdAndCourseId(UUID userId, UUID courseId);
 
     List<LessonProgress> findByUserId(UUID userId);
 
-    @Query("SELECT COUNT(lp) FROM LessonProgress lp WHERE lp.userId = :userId AND lp.courseId = :courseId AND lp.completed = true")
-    long countCompletedLessonsByCourseAndUser(@Param("userId") UUID userId, @Param("courseId") UUID courseId);
+    List<LessonProgress> findByUserIdOrderByIdAsc(UUID userId, Limit limit);
 
-    @Query("SELECT COUNT(DISTINCT lp.lessonId) FROM LessonProgress lp WHERE lp.courseId = :courseId")
-    long countTotalLessonsByCourse(@Param("courseId") UUID courseId);
+    List<LessonProgress> findByUserIdAndIdGreaterThanOrderByIdAsc(UUID userId, UUID id, Limit limit);
 }
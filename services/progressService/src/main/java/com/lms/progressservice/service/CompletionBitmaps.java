@@ -0,0 +1,94 @@
+package com.lms.progressService.service;
+
+import com.lms.progressService.model.CourseProgressSummary;
+import com.lms.progressService.repository.LessonProgressRepository;
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Битмапы завершенных уроков в {@link CourseProgressSummary}: бит с номером урока (см. {@link LessonOrdinals})
+ * установлен, если пользователь завершил урок. Число завершенных уроков агрегата равно мощности битмапа.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompletionBitmaps {
+
+    private final LessonProgressRepository lessonProgressRepository;
+    private final LessonOrdinals lessonOrdinals;
+
+    /**
+     * Отмечает уроки в битмапе и пересчитывает счетчики агрегата. Вызывать в транзакции,
+     * заблокировавшей строку агрегата; {@code totalLessons == null} оставляет прежнее число уроков курса.
+     */
+    public void markCompleted(CourseProgressSummary summary, Collection<UUID> lessonIds, Long totalLessons) {
+        RoaringBitmap bitmap = summary.getCompletedBitmap() == null
+            ? rebuild(summary)
+            : deserialize(summary.getCompletedBitmap());
+        lessonOrdinals.ordinalsOf(summary.getCourseId(), lessonIds).values().forEach(bitmap::add);
+
+        long completed = bitmap.getLongCardinality();
+        long total = totalLessons != null ? totalLessons : summary.getTotalLessons();
+        summary.setCompletedBitmap(serialize(bitmap));
+        summary.setCompletedLessons(completed);
+        summary.setTotalLessons(total);
+        summary.setCompletionPercentage(completionPercentage(completed, total));
+    }
+
+    /**
+     * Процент с двумя знаками после запятой; так же считает {@code CourseProgressSummaryRepository.updateTotalLessons}.
+     */
+    public static double completionPercentage(long completed, long total) {
+        return total > 0
+            ? Math.min(100.0, Math.round((double) completed / total * 100 * 100.0) / 100.0)
+            : 0.0;
+    }
+
+    public List<UUID> completedLessonIds(CourseProgressSummary summary) {
+        return lessonIds(summary.getCourseId(), bitmapOf(summary));
+    }
+
+    public List<UUID> lessonIds(UUID courseId, RoaringBitmap bitmap) {
+        return lessonOrdinals.lessonIds(courseId, bitmap);
+    }
+
+    /**
+     * Битмап агрегата для чтения; строки, которые еще не переписывались с битмапом, собираются из lesson_progress.
+     */
+    public RoaringBitmap bitmapOf(CourseProgressSummary summary) {
+        return summary.getCompletedBitmap() == null ? rebuild(summary) : deserialize(summary.getCompletedBitmap());
+    }
+
+    private RoaringBitmap rebuild(CourseProgressSummary summary) {
+        List<UUID> lessonIds = lessonProgressRepository.findCompletedLessonIds(summary.getUserId(), summary.getCourseId());
+        RoaringBitmap bitmap = new RoaringBitmap();
+        if (!lessonIds.isEmpty()) {
+            lessonOrdinals.ordinalsOf(summary.getCourseId(), lessonIds).values().forEach(bitmap::add);
+        }
+        return bitmap;
+    }
+
+    static RoaringBitmap deserialize(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupted completion bitmap", e);
+        }
+        return bitmap;
+    }
+
+    static byte[] serialize(RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return buffer.array();
+    }
+}
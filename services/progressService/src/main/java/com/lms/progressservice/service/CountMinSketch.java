@@ -0,0 +1,149 @@
+package com.lms.progressService.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Count-min sketch для частот курсов: 4 строки по 2048 счетчиков. Оценка никогда не меньше настоящей частоты
+ * и с вероятностью 98% превышает ее не больше чем на e/2048 (~0,13%) от общего числа событий.
+ * Сам эскиз не помнит ключи, поэтому рядом хранится ограниченный набор кандидатов в top-N:
+ * ключ попадает в него, если его оценка выше порога, с которым набор в последний раз обрезался.
+ * Не потокобезопасен.
+ */
+public final class CountMinSketch {
+
+    static final int DEPTH = 4;
+    static final int WIDTH = 2048;
+    static final int CANDIDATES = 100;
+
+    private final long[] counts = new long[DEPTH * WIDTH];
+    private final Set<UUID> candidates = new HashSet<>();
+    private long total;
+    private long admissionThreshold;
+
+    public void add(UUID key, long count) {
+        long hash = HyperLogLog.hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int cell = cell(hash, row);
+            counts[cell] += count;
+            estimate = Math.min(estimate, counts[cell]);
+        }
+        total += count;
+        if (estimate > admissionThreshold && candidates.add(key) && candidates.size() > 2 * CANDIDATES) {
+            trimCandidates();
+        }
+    }
+
+    public long estimate(UUID key) {
+        long hash = HyperLogLog.hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counts[cell(hash, row)]);
+        }
+        return estimate;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Верхняя граница завышения оценки: e / width от общего числа событий.
+     */
+    public long errorBound() {
+        return (long) Math.ceil(Math.E / WIDTH * total);
+    }
+
+    public void merge(CountMinSketch other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        candidates.addAll(other.candidates);
+        if (candidates.size() > 2 * CANDIDATES) {
+            trimCandidates();
+        }
+    }
+
+    public List<Frequency> top(int limit) {
+        return candidates.stream()
+            .map(key -> new Frequency(key, estimate(key)))
+            .sorted(Comparator.comparingLong(Frequency::count).reversed().thenComparing(Frequency::key))
+            .limit(limit)
+            .toList();
+    }
+
+    /**
+     * Счетчики пишутся varint-ами: у дня с небольшим числом курсов большинство из них нули по одному байту.
+     */
+    public byte[] serialize() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(counts.length + 16 * candidates.size() + 16);
+        writeVarLong(out, total);
+        for (long count : counts) {
+            writeVarLong(out, count);
+        }
+        writeVarLong(out, candidates.size());
+        ByteBuffer key = ByteBuffer.allocate(16);
+        for (UUID candidate : candidates) {
+            key.clear();
+            out.write(key.putLong(candidate.getMostSignificantBits()).putLong(candidate.getLeastSignificantBits()).array(), 0, 16);
+        }
+        return out.toByteArray();
+    }
+
+    public static CountMinSketch deserialize(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        CountMinSketch sketch = new CountMinSketch();
+        sketch.total = readVarLong(buffer);
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = readVarLong(buffer);
+        }
+        long candidates = readVarLong(buffer);
+        for (long i = 0; i < candidates; i++) {
+            sketch.candidates.add(new UUID(buffer.getLong(), buffer.getLong()));
+        }
+        return sketch;
+    }
+
+    private void trimCandidates() {
+        List<Frequency> kept = top(CANDIDATES);
+        candidates.clear();
+        kept.forEach(frequency -> candidates.add(frequency.key()));
+        admissionThreshold = kept.get(kept.size() - 1).count();
+    }
+
+    private static int cell(long hash, int row) {
+        // две половины одного хеша дают DEPTH независимых позиций (Kirsch-Mitzenmacher)
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return row * WIDTH + (combined & (WIDTH - 1));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    public record Frequency(UUID key, long count) {
+    }
+}
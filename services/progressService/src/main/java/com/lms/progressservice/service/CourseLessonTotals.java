@@ -0,0 +1,53 @@
+package com.lms.progressService.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lms.progressService.client.CourseStructureClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import ru.lms_project.common.http.DownstreamUnavailableException;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Число уроков курса из course-structure-service с коротким локальным кешем,
+ * чтобы завершение урока не ходило в соседний сервис на каждый запрос.
+ */
+@Slf4j
+@Component
+public class CourseLessonTotals {
+
+    private final CourseStructureClient courseStructureClient;
+    private final Cache<UUID, Long> totals;
+
+    public CourseLessonTotals(CourseStructureClient courseStructureClient,
+                              @Value("${progress.lesson-totals.max-size:10000}") long maxSize,
+                              @Value("${progress.lesson-totals.ttl:PT5M}") Duration ttl) {
+        this.courseStructureClient = courseStructureClient;
+        this.totals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * @return число уроков курса или {@code null}, если course-structure-service недоступен
+     */
+    public Long get(UUID courseId, String authorization) {
+        Long cached = totals.getIfPresent(courseId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            long total = courseStructureClient.getTotalLessons(courseId, authorization);
+            totals.put(courseId, total);
+            return total;
+        } catch (RestClientException | DownstreamUnavailableException e) {
+            log.warn("Не удалось получить число уроков курса {}: {}", courseId, e.getMessage());
+            return null;
+        }
+    }
+}
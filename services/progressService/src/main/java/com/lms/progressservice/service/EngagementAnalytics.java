@@ -0,0 +1,326 @@
+package com.lms.progressService.service;
+
+import com.lms.progressService.dto.TopCoursesDto;
+import com.lms.progressService.dto.UniqueViewersDto;
+import com.lms.progressService.model.EngagementSketch;
+import com.lms.progressService.model.EngagementSketch.Kind;
+import com.lms.progressService.repository.EngagementSketchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Приблизительная аналитика вовлеченности: уникальные зрители уроков и курсов (HyperLogLog) и самые активные
+ * курсы (count-min sketch) по суткам UTC. События копятся в памяти в эскизах-приращениях, периодически
+ * вливаются в сохраненные эскизы и еще раз при остановке сервиса. Запрос за период объединяет не больше
+ * {@code progress.analytics.max-days} эскизов фиксированного размера, поэтому его цена не зависит
+ * от числа событий. Данные других экземпляров сервиса видны после их следующего сброса.
+ */
+@Slf4j
+@Component
+public class EngagementAnalytics {
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::kind)
+        .thenComparing(Key::subjectId)
+        .thenComparing(Key::bucket);
+
+    private final EngagementSketchRepository engagementSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Stripe[] stripes;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxDays;
+    private final int retentionDays;
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter dropped;
+    private final Counter flushFailures;
+    private final Counter flushedSketches;
+    private final Timer flushTimer;
+
+    public EngagementAnalytics(EngagementSketchRepository engagementSketchRepository,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${progress.analytics.stripes:64}") int stripes,
+                               @Value("${progress.analytics.capacity:50000}") int capacity,
+                               @Value("${progress.analytics.batch-size:100}") int batchSize,
+                               @Value("${progress.analytics.max-days:92}") int maxDays,
+                               @Value("${progress.analytics.retention-days:400}") int retentionDays) {
+        this.engagementSketchRepository = engagementSketchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxDays = maxDays;
+        this.retentionDays = retentionDays;
+
+        Gauge.builder("progress.analytics.buffer.size", size, AtomicInteger::get)
+                .description("Viewer sketches waiting to be merged into the database")
+                .register(meterRegistry);
+        dropped = Counter.builder("progress.analytics.dropped")
+                .description("Views not counted because the sketch buffer was full")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("progress.analytics.flush.failures")
+                .description("Flush batches that failed and were put back into the buffer")
+                .register(meterRegistry);
+        flushedSketches = Counter.builder("progress.analytics.flushed")
+                .description("Sketches merged into the database")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("progress.analytics.flush")
+                .description("Time to merge the whole buffer")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Учитывает обращение пользователя к уроку: зритель урока и курса, одно событие курса.
+     */
+    public void record(UUID userId, UUID lessonId, UUID courseId) {
+        record(userId, lessonId, courseId, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    void record(UUID userId, UUID lessonId, UUID courseId, LocalDate day) {
+        Stripe stripe = stripes[Math.floorMod(lessonId.hashCode(), stripes.length)];
+        stripe.lock.lock();
+        try {
+            boolean counted = addViewer(stripe, new Key(Kind.LESSON_VIEWERS, lessonId, day), userId);
+            counted &= addViewer(stripe, new Key(Kind.COURSE_VIEWERS, courseId, day), userId);
+            if (!counted) {
+                dropped.increment();
+            }
+            stripe.activity.computeIfAbsent(day, d -> new CountMinSketch()).add(courseId, 1);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public UniqueViewersDto lessonViewers(UUID lessonId, LocalDate from, LocalDate to) {
+        return uniqueViewers(Kind.LESSON_VIEWERS, lessonId, from, to);
+    }
+
+    public UniqueViewersDto courseViewers(UUID courseId, LocalDate from, LocalDate to) {
+        return uniqueViewers(Kind.COURSE_VIEWERS, courseId, from, to);
+    }
+
+    public TopCoursesDto topCourses(LocalDate from, LocalDate to, int limit) {
+        if (limit < 1 || limit > CountMinSketch.CANDIDATES) {
+            throw new IllegalArgumentException("invalid_limit");
+        }
+        LocalDate end = to == null ? LocalDate.now(ZoneOffset.UTC) : to;
+        LocalDate start = checkRange(from, end);
+
+        CountMinSketch activity = new CountMinSketch();
+        engagementSketchRepository.findByKindAndSubjectIdAndBucketBetween(
+                Kind.COURSE_ACTIVITY, EngagementSketch.ALL_COURSES, start, end)
+            .forEach(sketch -> activity.merge(CountMinSketch.deserialize(sketch.getData())));
+        List<TopCoursesDto.CourseActivity> courses = activity.top(limit).stream()
+            .map(frequency -> new TopCoursesDto.CourseActivity(frequency.key(), frequency.count()))
+            .toList();
+        return new TopCoursesDto(start, end, activity.total(), activity.errorBound(), courses);
+    }
+
+    @Scheduled(fixedDelayString = "${progress.analytics.flush-interval:PT1M}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            long start = System.nanoTime();
+            Map<Key, Object> drained = drain();
+            if (drained.isEmpty()) {
+                return;
+            }
+            // строки блокируются в одном порядке, чтобы сбросы разных экземпляров не взаимоблокировались
+            List<Key> keys = new ArrayList<>(drained.keySet());
+            keys.sort(KEY_ORDER);
+            for (int from = 0; from < keys.size(); from += batchSize) {
+                writeBatch(keys.subList(from, Math.min(from + batchSize, keys.size())), drained);
+            }
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(cron = "${progress.analytics.purge-cron:0 30 3 * * *}", zone = "UTC")
+    public void purge() {
+        LocalDate before = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        Integer deleted = transactionTemplate.execute(status -> engagementSketchRepository.deleteOlderThan(before));
+        log.info("Удалено эскизов аналитики старше {}: {}", before, deleted);
+    }
+
+    private UniqueViewersDto uniqueViewers(Kind kind, UUID id, LocalDate from, LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now(ZoneOffset.UTC) : to;
+        LocalDate start = checkRange(from, end);
+
+        HyperLogLog viewers = new HyperLogLog();
+        engagementSketchRepository.findByKindAndSubjectIdAndBucketBetween(kind, id, start, end)
+            .forEach(sketch -> viewers.merge(HyperLogLog.deserialize(sketch.getData())));
+        return new UniqueViewersDto(id, start, end, viewers.estimate(), HyperLogLog.RELATIVE_ERROR);
+    }
+
+    /**
+     * @return начало периода; без {@code from} - последние 7 дней по {@code to} включительно
+     */
+    private LocalDate checkRange(LocalDate from, LocalDate to) {
+        LocalDate start = from == null ? to.minusDays(6) : from;
+        if (start.isAfter(to)) {
+            throw new IllegalArgumentException("invalid_date_range");
+        }
+        if (ChronoUnit.DAYS.between(start, to) >= maxDays) {
+            throw new IllegalArgumentException("date_range_too_large");
+        }
+        return start;
+    }
+
+    private void writeBatch(List<Key> keys, Map<Key, Object> drained) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (Key key : keys) {
+                    Object delta = drained.get(key);
+                    EngagementSketch stored = engagementSketchRepository
+                        .findForUpdate(key.kind(), key.subjectId(), key.bucket())
+                        .orElse(null);
+                    byte[] data;
+                    if (stored == null) {
+                        data = serialize(delta);
+                    } else if (delta instanceof HyperLogLog viewers) {
+                        HyperLogLog merged = HyperLogLog.deserialize(stored.getData());
+                        merged.merge(viewers);
+                        data = merged.serialize();
+                    } else {
+                        CountMinSketch merged = CountMinSketch.deserialize(stored.getData());
+                        merged.merge((CountMinSketch) delta);
+                        data = merged.serialize();
+                    }
+                    engagementSketchRepository.save(
+                        new EngagementSketch(key.kind(), key.subjectId(), key.bucket(), data, now));
+                }
+            });
+            flushedSketches.increment(keys.size());
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.warn("Не удалось сохранить эскизы аналитики ({}), они останутся в буфере до следующего сброса", keys.size(), e);
+            putBack(keys, drained);
+        }
+    }
+
+    private void putBack(List<Key> keys, Map<Key, Object> drained) {
+        Stripe stripe = stripes[0];
+        stripe.lock.lock();
+        try {
+            for (Key key : keys) {
+                Object delta = drained.get(key);
+                if (delta instanceof HyperLogLog viewers) {
+                    HyperLogLog current = stripe.viewers.get(key);
+                    if (current != null) {
+                        current.merge(viewers);
+                    } else if (size.incrementAndGet() <= capacity) {
+                        stripe.viewers.put(key, viewers);
+                    } else {
+                        size.decrementAndGet();
+                        dropped.increment();
+                    }
+                } else {
+                    stripe.activity.merge(key.bucket(), (CountMinSketch) delta, (current, added) -> {
+                        current.merge(added);
+                        return current;
+                    });
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private boolean addViewer(Stripe stripe, Key key, UUID userId) {
+        HyperLogLog viewers = stripe.viewers.get(key);
+        if (viewers == null) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            viewers = new HyperLogLog();
+            stripe.viewers.put(key, viewers);
+        }
+        viewers.add(userId);
+        return true;
+    }
+
+    /**
+     * Забирает приращения из всех полос. Один и тот же ключ может оказаться в нескольких полосах
+     * (эскиз курса пишется в полосу урока), такие приращения объединяются.
+     */
+    private Map<Key, Object> drain() {
+        Map<Key, HyperLogLog> viewers = new HashMap<>();
+        Map<LocalDate, CountMinSketch> activity = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Key, HyperLogLog> stripeViewers;
+            Map<LocalDate, CountMinSketch> stripeActivity;
+            stripe.lock.lock();
+            try {
+                stripeViewers = stripe.viewers;
+                stripeActivity = stripe.activity;
+                stripe.viewers = new HashMap<>();
+                stripe.activity = new HashMap<>();
+                size.addAndGet(-stripeViewers.size());
+            } finally {
+                stripe.lock.unlock();
+            }
+            stripeViewers.forEach((key, sketch) -> viewers.merge(key, sketch, (current, added) -> {
+                current.merge(added);
+                return current;
+            }));
+            stripeActivity.forEach((day, sketch) -> activity.merge(day, sketch, (current, added) -> {
+                current.merge(added);
+                return current;
+            }));
+        }
+
+        Map<Key, Object> drained = new HashMap<>(viewers);
+        activity.forEach((day, sketch) -> drained.put(new Key(Kind.COURSE_ACTIVITY, EngagementSketch.ALL_COURSES, day), sketch));
+        return drained;
+    }
+
+    private static byte[] serialize(Object delta) {
+        return delta instanceof HyperLogLog viewers ? viewers.serialize() : ((CountMinSketch) delta).serialize();
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Key, HyperLogLog> viewers = new HashMap<>();
+        private Map<LocalDate, CountMinSketch> activity = new HashMap<>();
+    }
+
+    private record Key(Kind kind, UUID subjectId, LocalDate bucket) {
+    }
+}
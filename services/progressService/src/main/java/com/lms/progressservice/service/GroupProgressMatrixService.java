@@ -0,0 +1,200 @@
+package com.lms.progressService.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.lms.progressService.client.CourseStructureClient;
+import com.lms.progressService.client.GroupClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Матрица "студенты x уроки" для группы. Столбцы - все уроки курса из course-structure-service в порядке
+ * модулей, поэтому урок, который никто не завершал, виден как пустой столбец. Строки читаются одной выборкой
+ * lesson_progress по курсу группы и ее участникам, упорядоченной по студенту, и пишутся в ответ по мере
+ * чтения курсора: в памяти только битсет текущего студента.
+ */
+@Service
+public class GroupProgressMatrixService {
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
+    // один параметр-массив вместо IN (?, ...): у generic-плана PostgreSQL список из сотен параметров
+    // уходит из условия индекса в Filter, и запрос на группу в 500 человек замедляется в ~10 раз
+    private static final String COMPLETED_SQL = "SELECT user_id, lesson_id FROM lesson_progress"
+        + " WHERE course_id = ? AND completed = true AND user_id = ANY (?) ORDER BY user_id";
+
+    private final GroupClient groupClient;
+    private final CourseStructureClient courseStructureClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxStudents;
+
+    public GroupProgressMatrixService(GroupClient groupClient, CourseStructureClient courseStructureClient,
+                                      DataSource dataSource, PlatformTransactionManager transactionManager,
+                                      @Value("${progress.export.fetch-size:1000}") int fetchSize,
+                                      @Value("${progress.matrix.max-students:5000}") int maxStudents) {
+        this.groupClient = groupClient;
+        this.courseStructureClient = courseStructureClient;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxStudents = maxStudents;
+    }
+
+    /**
+     * Столбцы и строки матрицы; отметки о завершении читаются из базы уже при записи ответа.
+     *
+     * @param lessons  id уроков курса в course-structure-service, столбец i - урок {@code lessons.get(i)};
+     *                 строки, а не UUID: там это ObjectId. Урок попадает в столбец, если его id совпадает
+     *                 с lesson_id в lesson_progress
+     * @param students участники группы без повторов
+     */
+    public record Matrix(UUID groupId, UUID courseId, List<String> lessons, List<UUID> students) {
+    }
+
+    /**
+     * Группа, участники и уроки курса запрашиваются у соседних сервисов до того, как начнется ответ,
+     * чтобы их ошибки вернулись обычным статусом.
+     *
+     * @return пусто, если группы нет
+     */
+    public Optional<Matrix> build(UUID groupId, String authorization) {
+        Optional<GroupClient.GroupInfo> group = groupClient.getGroup(groupId, authorization);
+        if (group.isEmpty()) {
+            return Optional.empty();
+        }
+        UUID courseId = group.get().courseId();
+        if (courseId == null) {
+            throw new IllegalArgumentException("group_has_no_course");
+        }
+        List<UUID> students = groupClient.getMemberIds(groupId, authorization);
+        if (students.size() > maxStudents) {
+            throw new IllegalArgumentException("group_too_large");
+        }
+        List<String> lessons = courseStructureClient.getLessonIds(courseId, authorization);
+        return Optional.of(new Matrix(groupId, courseId, List.copyOf(new LinkedHashSet<>(lessons)),
+            List.copyOf(new LinkedHashSet<>(students))));
+    }
+
+    /**
+     * Пишет матрицу как
+     * {@code {"groupId":..,"courseId":..,"lessons":[..],"students":[{"userId":..,"completedCount":n,"completed":"base64"}]}}.
+     * {@code completed} - байты битсета в base64, бит i лежит в байте i / 8 под маской {@code 1 << (i % 8)}.
+     * Сначала идут студенты с завершенными уроками в порядке user_id, затем остальные в порядке группы.
+     * Завершенные уроки, которых уже нет в курсе, не попадают в матрицу.
+     */
+    public void write(Matrix matrix, OutputStream out) throws IOException {
+        Map<String, Integer> columns = new HashMap<>(matrix.lessons().size() * 2);
+        for (String lessonId : matrix.lessons()) {
+            columns.put(lessonId, columns.size());
+        }
+
+        try (JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("groupId", matrix.groupId().toString());
+            json.writeStringField("courseId", matrix.courseId().toString());
+            json.writeArrayFieldStart("lessons");
+            for (String lessonId : matrix.lessons()) {
+                json.writeString(lessonId);
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("students");
+            // столбцы и начало ответа уходят клиенту до того, как база вернет первую порцию строк
+            json.flush();
+
+            Set<UUID> pending = new LinkedHashSet<>(matrix.students());
+            if (!pending.isEmpty()) {
+                RowWriter rows = new RowWriter(json, columns, pending);
+                UUID[] userIds = pending.toArray(UUID[]::new);
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    jdbcTemplate.query(COMPLETED_SQL, ps -> {
+                        ps.setObject(1, matrix.courseId());
+                        ps.setArray(2, ps.getConnection().createArrayOf("uuid", userIds));
+                    }, rs -> {
+                        rows.add(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class).toString());
+                    });
+                    rows.finish();
+                });
+            }
+            for (UUID student : pending) {
+                writeRow(json, student, new BitSet());
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeRow(JsonGenerator json, UUID student, BitSet completed) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("userId", student.toString());
+        json.writeNumberField("completedCount", completed.cardinality());
+        json.writeFieldName("completed");
+        json.writeBinary(completed.toByteArray());
+        json.writeEndObject();
+    }
+
+    /**
+     * Собирает строку текущего студента и пишет ее, как только курсор переходит к следующему.
+     */
+    private static final class RowWriter {
+
+        private final JsonGenerator json;
+        private final Map<String, Integer> columns;
+        private final Set<UUID> pending;
+        private UUID student;
+        private BitSet completed;
+
+        RowWriter(JsonGenerator json, Map<String, Integer> columns, Set<UUID> pending) {
+            this.json = json;
+            this.columns = columns;
+            this.pending = pending;
+        }
+
+        void add(UUID userId, String lessonId) {
+            if (!userId.equals(student)) {
+                finish();
+                student = userId;
+                completed = new BitSet(columns.size());
+            }
+            Integer column = columns.get(lessonId);
+            if (column != null) {
+                completed.set(column);
+            }
+        }
+
+        void finish() {
+            if (student == null) {
+                return;
+            }
+            try {
+                writeRow(json, student, completed);
+            } catch (IOException e) {
+                // клиент закрыл соединение: исключение откатывает транзакцию и закрывает курсор
+                throw new UncheckedIOException(e);
+            }
+            pending.remove(student);
+            student = null;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.lms.progressService.service;
+
+import com.lms.progressService.repository.LessonProgressBatchRepository.AccessedLesson;
+import com.lms.progressService.repository.LessonProgressRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind буфер отметок доступа к урокам. Для каждой пары (userId, lessonId) хранится только
+ * самое позднее время; буфер периодически сбрасывается в БД пакетами и еще раз при остановке сервиса.
+ * Карта разбита на полосы со своими блокировками, так что запись конкурирует только внутри полосы,
+ * а сброс забирает полосу целиком заменой карты.
+ */
+@Slf4j
+@Component
+public class HeartbeatBuffer {
+
+    private final LessonProgressRepository lessonProgressRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Stripe[] stripes;
+    private final int capacity;
+    private final int batchSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter droppedBufferFull;
+    private final Counter droppedShutdown;
+    private final Counter flushFailures;
+    private final Counter flushedRows;
+    private final Timer flushTimer;
+
+    public HeartbeatBuffer(LessonProgressRepository lessonProgressRepository,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${progress.heartbeat.stripes:16}") int stripes,
+                           @Value("${progress.heartbeat.capacity:100000}") int capacity,
+                           @Value("${progress.heartbeat.batch-size:500}") int batchSize) {
+        this.lessonProgressRepository = lessonProgressRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+
+        Gauge.builder("progress.heartbeat.buffer.size", size, AtomicInteger::get)
+                .description("Lesson heartbeats waiting to be written")
+                .register(meterRegistry);
+        droppedBufferFull = dropped(meterRegistry, "buffer_full");
+        droppedShutdown = dropped(meterRegistry, "shutdown");
+        flushFailures = Counter.builder("progress.heartbeat.flush.failures")
+                .description("Flush batches that failed and were put back into the buffer")
+                .register(meterRegistry);
+        flushedRows = Counter.builder("progress.heartbeat.flushed")
+                .description("Heartbeats written to the database")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("progress.heartbeat.flush")
+                .description("Time to write out the whole buffer")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code false}, если буфер заполнен и отметка отброшена
+     */
+    public boolean record(UUID userId, UUID lessonId, UUID courseId, LocalDateTime accessedAt) {
+        if (!merge(new Key(userId, lessonId), courseId, accessedAt)) {
+            droppedBufferFull.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    @Scheduled(fixedDelayString = "${progress.heartbeat.flush-interval:PT5S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            long start = System.nanoTime();
+            List<AccessedLesson> drained = drain();
+            if (drained.isEmpty()) {
+                return;
+            }
+            for (int from = 0; from < drained.size(); from += batchSize) {
+                writeBatch(drained.subList(from, Math.min(from + batchSize, drained.size())));
+            }
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        int lost = drain().size();
+        if (lost > 0) {
+            droppedShutdown.increment(lost);
+            log.warn("При остановке не записано отметок доступа к урокам: {}", lost);
+        }
+    }
+
+    private void writeBatch(List<AccessedLesson> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> lessonProgressRepository.touchAccessedBatch(batch));
+            flushedRows.increment(batch.size());
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.warn("Не удалось записать отметки доступа к урокам ({}), они останутся в буфере до следующего сброса", batch.size(), e);
+            for (AccessedLesson lesson : batch) {
+                if (!merge(new Key(lesson.userId(), lesson.lessonId()), lesson.courseId(), lesson.accessedAt())) {
+                    droppedBufferFull.increment();
+                }
+            }
+        }
+    }
+
+    private boolean merge(Key key, UUID courseId, LocalDateTime accessedAt) {
+        Stripe stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+        stripe.lock.lock();
+        try {
+            Heartbeat current = stripe.entries.get(key);
+            if (current != null) {
+                if (accessedAt.isAfter(current.accessedAt())) {
+                    stripe.entries.put(key, new Heartbeat(courseId, accessedAt));
+                }
+                return true;
+            }
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            stripe.entries.put(key, new Heartbeat(courseId, accessedAt));
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private List<AccessedLesson> drain() {
+        List<AccessedLesson> drained = new ArrayList<>(size.get());
+        for (Stripe stripe : stripes) {
+            Map<Key, Heartbeat> entries;
+            stripe.lock.lock();
+            try {
+                entries = stripe.entries;
+                stripe.entries = new HashMap<>();
+                size.addAndGet(-entries.size());
+            } finally {
+                stripe.lock.unlock();
+            }
+            entries.forEach((key, heartbeat) ->
+                    drained.add(new AccessedLesson(key.userId(), key.lessonId(), heartbeat.courseId(), heartbeat.accessedAt())));
+        }
+        return drained;
+    }
+
+    private static Counter dropped(MeterRegistry registry, String reason) {
+        return Counter.builder("progress.heartbeat.dropped")
+                .description("Heartbeats that were never written")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<Key, Heartbeat> entries = new HashMap<>();
+    }
+
+    private record Key(UUID userId, UUID lessonId) {
+    }
+
+    private record Heartbeat(UUID courseId, LocalDateTime accessedAt) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.lms.progressService.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * HyperLogLog с 2^14 регистрами: оценка числа различных значений с относительной ошибкой около 0,8%
+ * независимо от их количества. Пока заполнено меньше 1/8 регистров, хранятся только ненулевые
+ * (отсортированный массив {@code индекс << 8 | ранг}), так что эскиз урока с десятком зрителей занимает
+ * десятки байт, а плотный массив больше 16 КБ не растет. Не потокобезопасен.
+ */
+public final class HyperLogLog {
+
+    static final int PRECISION = 14;
+    static final int REGISTERS = 1 << PRECISION;
+    /** Относительная стандартная ошибка оценки, 1.04 / sqrt(m). */
+    public static final double RELATIVE_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final int SPARSE_LIMIT = REGISTERS / 8;
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+
+    private int[] sparse = new int[4];
+    private int sparseSize;
+    private byte[] dense;
+
+    public void add(UUID value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // позиция первой единицы в оставшихся битах; подставленная единица ограничивает ранг значением 64 - p + 1
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        set(index, rank);
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.dense != null) {
+            if (dense == null) {
+                toDense();
+            }
+            for (int i = 0; i < REGISTERS; i++) {
+                if (dense[i] < other.dense[i]) {
+                    dense[i] = other.dense[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (dense != null) {
+            for (byte register : dense) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = REGISTERS - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xFF));
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // малые значения: linear counting по пустым регистрам точнее
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        return dense == null && sparseSize == 0;
+    }
+
+    public byte[] serialize() {
+        if (dense != null) {
+            return ByteBuffer.allocate(2 + REGISTERS).put(DENSE).put((byte) PRECISION).put(dense).array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 3 * sparseSize)
+            .put(SPARSE).put((byte) PRECISION).putShort((short) sparseSize);
+        for (int i = 0; i < sparseSize; i++) {
+            buffer.putShort((short) (sparse[i] >>> 8)).put((byte) sparse[i]);
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog deserialize(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte format = buffer.get();
+        if (buffer.get() != PRECISION) {
+            throw new IllegalArgumentException("Unsupported HyperLogLog precision");
+        }
+        HyperLogLog sketch = new HyperLogLog();
+        if (format == DENSE) {
+            sketch.dense = new byte[REGISTERS];
+            buffer.get(sketch.dense);
+        } else if (format == SPARSE) {
+            int size = Short.toUnsignedInt(buffer.getShort());
+            sketch.sparse = new int[Math.max(size, 4)];
+            for (int i = 0; i < size; i++) {
+                sketch.sparse[i] = Short.toUnsignedInt(buffer.getShort()) << 8 | Byte.toUnsignedInt(buffer.get());
+            }
+            sketch.sparseSize = size;
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog format " + format);
+        }
+        return sketch;
+    }
+
+    /**
+     * 64-битный хеш UUID (финализатор MurmurHash3): v4 UUID и так случайны, но v1/v3 и тестовые - нет.
+     */
+    public static long hash(UUID value) {
+        return mix(value.getMostSignificantBits() ^ mix(value.getLeastSignificantBits()));
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void set(int index, int rank) {
+        if (dense != null) {
+            if (dense[index] < rank) {
+                dense[index] = (byte) rank;
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(sparse, 0, sparseSize, index << 8);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (position < sparseSize && sparse[position] >>> 8 == index) {
+            if ((sparse[position] & 0xFF) < rank) {
+                sparse[position] = index << 8 | rank;
+            }
+            return;
+        }
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            dense[index] = (byte) rank;
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparse.length * 2);
+        }
+        System.arraycopy(sparse, position, sparse, position + 1, sparseSize - position);
+        sparse[position] = index << 8 | rank;
+        sparseSize++;
+    }
+
+    private void toDense() {
+        dense = new byte[REGISTERS];
+        for (int i = 0; i < sparseSize; i++) {
+            dense[sparse[i] >>> 8] = (byte) sparse[i];
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+}
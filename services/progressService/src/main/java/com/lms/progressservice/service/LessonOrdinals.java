@@ -0,0 +1,171 @@
+package com.lms.progressService.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lms.progressService.model.CourseLessonOrdinal;
+import com.lms.progressService.repository.CourseLessonOrdinalRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Словарь "урок - порядковый номер в курсе" для битмапов завершения. Номера не меняются после выдачи,
+ * поэтому словарь курса кешируется целиком и перечитывается, только когда в нем не находится номер.
+ * Словари с номерами, выданными в еще не завершенной транзакции, в кеш не попадают: при откате
+ * эти номера достанутся другим урокам.
+ */
+@Component
+public class LessonOrdinals {
+
+    private final CourseLessonOrdinalRepository ordinalRepository;
+    private final Cache<UUID, CourseOrdinals> courses;
+
+    public LessonOrdinals(CourseLessonOrdinalRepository ordinalRepository,
+                          @Value("${progress.lesson-ordinals.max-courses:10000}") long maxCourses) {
+        this.ordinalRepository = ordinalRepository;
+        this.courses = Caffeine.newBuilder()
+                .maximumSize(maxCourses)
+                .build();
+    }
+
+    /**
+     * Номера уроков курса; недостающие выдаются. Вызывать в транзакции записи.
+     */
+    public Map<UUID, Integer> ordinalsOf(UUID courseId, Collection<UUID> lessonIds) {
+        CourseOrdinals known = dictionary(courseId);
+        if (!known.containsAll(lessonIds)) {
+            known = reload(courseId);
+            List<UUID> missing = new ArrayList<>();
+            for (UUID lessonId : lessonIds) {
+                if (known.ordinal(lessonId) == null) {
+                    missing.add(lessonId);
+                }
+            }
+            if (!missing.isEmpty()) {
+                ordinalRepository.lockCourse(courseId);
+                missing.forEach(lessonId -> ordinalRepository.assign(courseId, lessonId));
+                markAssigned(courseId);
+                known = load(courseId);
+            }
+        }
+
+        Map<UUID, Integer> ordinals = new HashMap<>();
+        for (UUID lessonId : lessonIds) {
+            ordinals.put(lessonId, known.ordinal(lessonId));
+        }
+        return ordinals;
+    }
+
+    /**
+     * Известные номера уроков курса, без выдачи новых.
+     */
+    public Map<UUID, Integer> knownOrdinals(UUID courseId) {
+        return Collections.unmodifiableMap(dictionary(courseId).byLesson());
+    }
+
+    /**
+     * Уроки курса по порядку номеров, не меньше {@code size} первых.
+     */
+    public List<UUID> lessonsByOrdinal(UUID courseId, int size) {
+        CourseOrdinals known = dictionary(courseId);
+        if (known.byOrdinal().length < size) {
+            known = reload(courseId);
+        }
+        return Collections.unmodifiableList(Arrays.asList(known.byOrdinal()));
+    }
+
+    /**
+     * Уроки, соответствующие установленным битам, в порядке номеров.
+     */
+    public List<UUID> lessonIds(UUID courseId, RoaringBitmap bitmap) {
+        if (bitmap.isEmpty()) {
+            return List.of();
+        }
+        CourseOrdinals known = dictionary(courseId);
+        if (bitmap.last() >= known.byOrdinal().length) {
+            known = reload(courseId);
+        }
+
+        UUID[] byOrdinal = known.byOrdinal();
+        List<UUID> lessonIds = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((int ordinal) -> {
+            if (ordinal < byOrdinal.length && byOrdinal[ordinal] != null) {
+                lessonIds.add(byOrdinal[ordinal]);
+            }
+        });
+        return lessonIds;
+    }
+
+    private CourseOrdinals dictionary(UUID courseId) {
+        return assignedInCurrentTransaction(courseId) ? load(courseId) : courses.get(courseId, this::load);
+    }
+
+    private CourseOrdinals reload(UUID courseId) {
+        CourseOrdinals known = load(courseId);
+        if (!assignedInCurrentTransaction(courseId)) {
+            courses.put(courseId, known);
+        }
+        return known;
+    }
+
+    private boolean assignedInCurrentTransaction(UUID courseId) {
+        @SuppressWarnings("unchecked")
+        Set<UUID> assigned = (Set<UUID>) TransactionSynchronizationManager.getResource(this);
+        return assigned != null && assigned.contains(courseId);
+    }
+
+    private void markAssigned(UUID courseId) {
+        @SuppressWarnings("unchecked")
+        Set<UUID> assigned = (Set<UUID>) TransactionSynchronizationManager.getResource(this);
+        if (assigned == null) {
+            Set<UUID> courseIds = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, courseIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LessonOrdinals.this);
+                    courses.invalidateAll(courseIds);
+                }
+            });
+            assigned = courseIds;
+        }
+        assigned.add(courseId);
+    }
+
+    private CourseOrdinals load(UUID courseId) {
+        List<CourseLessonOrdinal> rows = ordinalRepository.findByCourseId(courseId);
+        Map<UUID, Integer> byLesson = new HashMap<>(rows.size() * 2);
+        int size = 0;
+        for (CourseLessonOrdinal row : rows) {
+            byLesson.put(row.getLessonId(), row.getOrdinal());
+            size = Math.max(size, row.getOrdinal() + 1);
+        }
+        UUID[] byOrdinal = new UUID[size];
+        byLesson.forEach((lessonId, ordinal) -> byOrdinal[ordinal] = lessonId);
+        return new CourseOrdinals(byLesson, byOrdinal);
+    }
+
+    private record CourseOrdinals(Map<UUID, Integer> byLesson, UUID[] byOrdinal) {
+
+        Integer ordinal(UUID lessonId) {
+            return byLesson.get(lessonId);
+        }
+
+        boolean containsAll(Collection<UUID> lessonIds) {
+            return byLesson.keySet().containsAll(lessonIds);
+        }
+    }
+}
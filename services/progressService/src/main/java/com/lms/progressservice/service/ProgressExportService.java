@@ -0,0 +1,205 @@
+package com.lms.progressService.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Выгрузка строк lesson_progress курса. Строки читаются курсором по {@code fetchSize} штук и сразу пишутся
+ * в ответ, поэтому память не зависит от размера курса. PostgreSQL отдает строки курсором только при
+ * выключенном autocommit, отсюда read-only транзакция на все время выгрузки.
+ */
+@Slf4j
+@Service
+public class ProgressExportService {
+
+    private static final String CSV_HEADER = "id,user_id,lesson_id,course_id,completed,completed_at,last_accessed_at\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration timeout;
+
+    public ProgressExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 @Value("${progress.export.fetch-size:1000}") int fetchSize,
+                                 @Value("${progress.export.timeout:PT30M}") Duration timeout) {
+        this.timeout = timeout;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * Формат по расширению без учета регистра: {@code csv}, {@code NDJSON} и т.п.
+         */
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("invalid_format");
+        }
+    }
+
+    /**
+     * Сколько может длиться одна выгрузка. Задается на запрос выгрузки, а не через
+     * {@code spring.mvc.async.request-timeout}, чтобы остальные асинхронные ответы сервиса не ждали 30 минут.
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    /**
+     * Пишет строки курса в {@code out} в порядке (user_id, lesson_id). Интервал {@code from}-{@code to}
+     * относится ко времени завершения, если выгружаются только завершенные уроки, иначе ко времени последнего доступа.
+     *
+     * @return число выгруженных строк
+     */
+    public long export(UUID courseId, LocalDateTime from, LocalDateTime to, Boolean completed,
+                       Format format, OutputStream out) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("invalid_date_range");
+        }
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT id, user_id, lesson_id, course_id, completed, completed_at, last_accessed_at"
+                + " FROM lesson_progress WHERE course_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(courseId);
+        if (completed != null) {
+            sql.append(" AND completed = ?");
+            args.add(completed);
+        }
+        String timeColumn = Boolean.TRUE.equals(completed) ? "completed_at" : "last_accessed_at";
+        if (from != null) {
+            sql.append(" AND ").append(timeColumn).append(" >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(timeColumn).append(" < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY user_id, lesson_id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = new RowWriter(writer, format);
+        try {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            // заголовок уходит клиенту до того, как база вернет первую порцию строк
+            writer.flush();
+            readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(sql.toString(), rowWriter, args.toArray()));
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Выгружено {} строк прогресса курса {} ({})", rowWriter.rows, courseId, format);
+        return rowWriter.rows;
+    }
+
+    private static final class RowWriter implements RowCallbackHandler {
+
+        private final Writer writer;
+        private final Format format;
+        private long rows;
+
+        RowWriter(Writer writer, Format format) {
+            this.writer = writer;
+            this.format = format;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String id = rs.getString("id");
+            String userId = rs.getString("user_id");
+            String lessonId = rs.getString("lesson_id");
+            String courseId = rs.getString("course_id");
+            boolean completed = rs.getBoolean("completed");
+            LocalDateTime completedAt = rs.getObject("completed_at", LocalDateTime.class);
+            LocalDateTime lastAccessedAt = rs.getObject("last_accessed_at", LocalDateTime.class);
+            try {
+                if (format == Format.CSV) {
+                    writer.write(id);
+                    writer.write(',');
+                    writer.write(userId);
+                    writer.write(',');
+                    writer.write(lessonId);
+                    writer.write(',');
+                    writer.write(courseId);
+                    writer.write(',');
+                    writer.write(Boolean.toString(completed));
+                    writer.write(',');
+                    writer.write(completedAt == null ? "" : completedAt.toString());
+                    writer.write(',');
+                    writer.write(lastAccessedAt == null ? "" : lastAccessedAt.toString());
+                } else {
+                    // все значения - UUID, boolean или ISO-время, экранировать нечего
+                    writer.write("{\"id\":\"");
+                    writer.write(id);
+                    writer.write("\",\"userId\":\"");
+                    writer.write(userId);
+                    writer.write("\",\"lessonId\":\"");
+                    writer.write(lessonId);
+                    writer.write("\",\"courseId\":\"");
+                    writer.write(courseId);
+                    writer.write("\",\"completed\":");
+                    writer.write(Boolean.toString(completed));
+                    writer.write(",\"completedAt\":");
+                    writer.write(completedAt == null ? "null" : "\"" + completedAt + "\"");
+                    writer.write(",\"lastAccessedAt\":");
+                    writer.write(lastAccessedAt == null ? "null" : "\"" + lastAccessedAt + "\"");
+                    writer.write('}');
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                // клиент закрыл соединение: исключение откатывает транзакцию и закрывает курсор
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+    }
+}
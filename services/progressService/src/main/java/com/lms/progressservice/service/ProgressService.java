@@ -1,15 +1,34 @@
 package com.lms.progressService.service;
 
+import com.lms.progressService.dto.CompletedLessonsDto;
 import com.lms.progressService.dto.CourseProgressStatsDto;
+import com.lms.progressService.dto.LessonCompletionItem;
+import com.lms.progressService.dto.LessonCompletionResultDto;
 import com.lms.progressService.dto.LessonProgressDto;
+import com.lms.progressService.model.CourseProgressSummary;
+import com.lms.progressService.model.CourseProgressSummaryId;
 import com.lms.progressService.model.LessonProgress;
+import com.lms.progressService.repository.CourseProgressSummaryRepository;
+import com.lms.progressService.repository.LessonProgressBatchRepository.CompletedLesson;
 import com.lms.progressService.repository.LessonProgressRepository;
 import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lms_project.common.pagination.CursorPage;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -19,23 +38,127 @@ import java.util.stream.Collectors;
 public class ProgressService {
 
     private final LessonProgressRepository lessonProgressRepository;
+    private final CourseProgressSummaryRepository courseProgressSummaryRepository;
+    private final CourseLessonTotals courseLessonTotals;
+    private final TransactionTemplate transactionTemplate;
+    private final HeartbeatBuffer heartbeatBuffer;
+    private final CompletionBitmaps completionBitmaps;
+    private final EngagementAnalytics engagementAnalytics;
 
-    public LessonProgressDto completeLessonProgress(UUID userId, UUID lessonId, UUID courseId) {
-        LessonProgress progress = lessonProgressRepository
-            .findByUserIdAndLessonId(userId, lessonId)
-            .orElse(new LessonProgress());
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize = 50;
 
-        progress.setUserId(userId);
-        progress.setLessonId(lessonId);
-        progress.setCourseId(courseId);
-        progress.setCompleted(true);
-        progress.setCompletedAt(LocalDateTime.now());
-        progress.setLastAccessedAt(LocalDateTime.now());
+    @Value("${pagination.max-page-size:500}")
+    private int maxPageSize = 500;
 
-        LessonProgress saved = lessonProgressRepository.save(progress);
+    @Value("${progress.batch.max-items:500}")
+    private int maxBatchItems = 500;
+
+    @Value("${progress.intersection.max-users:1000}")
+    private int maxIntersectionUsers = 1000;
+
+    @Value("${progress.stats.max-courses:200}")
+    private int maxStatsCourses = 200;
+
+    /**
+     * Число уроков курса запрашивается до начала транзакции, чтобы не держать соединение с БД
+     * на время вызова course-structure-service. Строка урока и агрегат курса обновляются в одной транзакции.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LessonProgressDto completeLessonProgress(UUID userId, UUID lessonId, UUID courseId, String authorization) {
+        Long totalLessons = courseLessonTotals.get(courseId, authorization);
+        LocalDateTime now = LocalDateTime.now();
+
+        LessonProgress saved = transactionTemplate.execute(status -> {
+            CourseProgressSummary summary = courseProgressSummaryRepository.lockForUpdate(userId, courseId, now);
+            LessonProgress progress = lessonProgressRepository
+                .upsertCompleted(UUID.randomUUID(), userId, lessonId, courseId, now);
+            completionBitmaps.markCompleted(summary, List.of(lessonId), totalLessons);
+            return progress;
+        });
+        engagementAnalytics.record(userId, lessonId, courseId);
         return convertToDto(saved);
     }
 
+    /**
+     * Пакетное завершение уроков, например при синхронизации офлайн-клиента. Все строки уроков
+     * записываются многострочным upsert, агрегаты затронутых курсов обновляются в той же транзакции.
+     * Повторы одного урока в пакете схлопываются в одну строку с самым ранним временем завершения; у уже
+     * завершенного урока сохраняется более раннее из сохраненного и пришедшего времени (офлайн-клиент может
+     * прислать старую отметку повторно).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<LessonCompletionResultDto> completeLessonsBatch(UUID userId, List<LessonCompletionItem> items,
+                                                                String authorization) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("items_required");
+        }
+        if (items.size() > maxBatchItems) {
+            throw new IllegalArgumentException("batch_too_large");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, CompletedLesson> lessons = new LinkedHashMap<>();
+        for (LessonCompletionItem item : items) {
+            if (!isValid(item)) {
+                continue;
+            }
+            LocalDateTime completedAt = item.getCompletedAt() == null || item.getCompletedAt().isAfter(now)
+                ? now : item.getCompletedAt();
+            lessons.merge(item.getLessonId(), new CompletedLesson(item.getLessonId(), item.getCourseId(), completedAt),
+                (prev, next) -> next.completedAt().isBefore(prev.completedAt()) ? next : prev);
+        }
+
+        // Блокировки агрегатов берутся в одном порядке, чтобы параллельные пакеты не взаимоблокировались
+        TreeSet<UUID> courseIds = new TreeSet<>();
+        lessons.values().forEach(lesson -> courseIds.add(lesson.courseId()));
+        Map<UUID, Long> totals = new HashMap<>();
+        courseIds.forEach(courseId -> totals.put(courseId, courseLessonTotals.get(courseId, authorization)));
+
+        Map<UUID, LessonProgress> saved = new HashMap<>();
+        if (!lessons.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<UUID, CourseProgressSummary> summaries = new HashMap<>();
+                courseIds.forEach(courseId ->
+                    summaries.put(courseId, courseProgressSummaryRepository.lockForUpdate(userId, courseId, now)));
+                lessonProgressRepository.upsertCompletedBatch(userId, lessons.values())
+                    .forEach(progress -> saved.put(progress.getLessonId(), progress));
+                Map<UUID, List<UUID>> lessonsByCourse = lessons.values().stream()
+                    .collect(Collectors.groupingBy(CompletedLesson::courseId,
+                        Collectors.mapping(CompletedLesson::lessonId, Collectors.toList())));
+                courseIds.forEach(courseId -> completionBitmaps.markCompleted(
+                    summaries.get(courseId), lessonsByCourse.get(courseId), totals.get(courseId)));
+            });
+            lessons.values().forEach(lesson -> engagementAnalytics.record(userId, lesson.lessonId(), lesson.courseId()));
+        }
+
+        List<LessonCompletionResultDto> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            LessonCompletionItem item = items.get(i);
+            results.add(isValid(item)
+                ? new LessonCompletionResultDto(i, item.getLessonId(), LessonCompletionResultDto.Status.COMPLETED,
+                    null, convertToDto(saved.get(item.getLessonId())))
+                : new LessonCompletionResultDto(i, item == null ? null : item.getLessonId(),
+                    LessonCompletionResultDto.Status.REJECTED, "lesson_and_course_required", null));
+        }
+        return results;
+    }
+
+    private static boolean isValid(LessonCompletionItem item) {
+        return item != null && item.getLessonId() != null && item.getCourseId() != null;
+    }
+
+    /**
+     * Отметка открытия урока. Попадает в буфер и записывается в БД при следующем сбросе.
+     *
+     * @return {@code false}, если буфер заполнен и отметка отброшена
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean recordLessonAccess(UUID userId, UUID lessonId, UUID courseId) {
+        engagementAnalytics.record(userId, lessonId, courseId);
+        return heartbeatBuffer.record(userId, lessonId, courseId, LocalDateTime.now());
+    }
+
     public List<LessonProgressDto> getCourseProgress(UUID userId, UUID courseId) {
         List<LessonProgress> progressList = lessonProgressRepository
             .findByUserIdAndCourseId(userId, courseId);
@@ -45,26 +168,126 @@ public class ProgressService {
             .collect(Collectors.toList());
     }
 
-    public List<LessonProgressDto> getAllUserProgress(UUID userId) {
-        List<LessonProgress> progressList = lessonProgressRepository
-            .findByUserId(userId);
+    public CursorPage<LessonProgressDto> getAllUserProgress(UUID userId, String cursor, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        UUID after = CursorPage.decodeUuid(cursor);
+        List<LessonProgress> progressList = after == null
+            ? lessonProgressRepository.findByUserIdOrderByIdAsc(userId, Limit.of(pageSize + 1))
+            : lessonProgressRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, after, Limit.of(pageSize + 1));
 
-        return progressList.stream()
-            .map(this::convertToDto)
+        return CursorPage.of(progressList, pageSize, LessonProgress::getId, this::convertToDto);
+    }
+
+    /**
+     * Число уроков в агрегате записано при последнем завершении урока и могло устареть: курс изменился
+     * или course-structure-service был недоступен при первом завершении (тогда там 0). Поэтому при чтении
+     * оно сверяется с {@link CourseLessonTotals} (до обращения к БД, как и при завершении), и разошедшаяся
+     * строка агрегата исправляется.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CourseProgressStatsDto getCourseStats(UUID userId, UUID courseId, String authorization) {
+        Long totalLessons = courseLessonTotals.get(courseId, authorization);
+        return courseProgressSummaryRepository
+            .findById(new CourseProgressSummaryId(userId, courseId))
+            .map(summary -> toStatsDto(summary, totalLessons))
+            .orElseGet(() -> new CourseProgressStatsDto(courseId, totalLessons == null ? 0 : totalLessons, 0, 0.0, null));
+    }
+
+    /**
+     * Статистика по нескольким курсам одним запросом к агрегатам. Без {@code courseIds} возвращаются
+     * все курсы, где у пользователя есть прогресс; для запрошенных курсов без прогресса - нули.
+     * Число уроков сверяется так же, как в {@link #getCourseStats}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CourseProgressStatsDto> getCoursesStats(UUID userId, Collection<UUID> courseIds, String authorization) {
+        if (courseIds == null || courseIds.isEmpty()) {
+            return courseProgressSummaryRepository.findByUserId(userId).stream()
+                .map(summary -> toStatsDto(summary, courseLessonTotals.get(summary.getCourseId(), authorization)))
+                .collect(Collectors.toList());
+        }
+
+        List<UUID> requested = courseIds.stream().distinct().toList();
+        if (requested.size() > maxStatsCourses) {
+            throw new IllegalArgumentException("too_many_courses");
+        }
+        Map<UUID, CourseProgressSummary> summaries = courseProgressSummaryRepository
+            .findByUserIdAndCourseIdIn(userId, requested).stream()
+            .collect(Collectors.toMap(CourseProgressSummary::getCourseId, summary -> summary));
+        return requested.stream()
+            .map(courseId -> {
+                CourseProgressSummary summary = summaries.get(courseId);
+                return summary != null
+                    ? toStatsDto(summary, courseLessonTotals.get(courseId, authorization))
+                    : new CourseProgressStatsDto(courseId, 0, 0, 0.0, null);
+            })
             .collect(Collectors.toList());
     }
 
-    public CourseProgressStatsDto getCourseStats(UUID userId, UUID courseId) {
-        long completedLessons = lessonProgressRepository
-            .countCompletedLessonsByCourseAndUser(userId, courseId);
-        long totalLessons = lessonProgressRepository
-            .countTotalLessonsByCourse(courseId);
+    /**
+     * @param totalLessons актуальное число уроков курса или {@code null}, если course-structure-service недоступен
+     */
+    private CourseProgressStatsDto toStatsDto(CourseProgressSummary summary, Long totalLessons) {
+        if (totalLessons == null || totalLessons == summary.getTotalLessons()) {
+            return new CourseProgressStatsDto(summary.getCourseId(), summary.getTotalLessons(),
+                summary.getCompletedLessons(), summary.getCompletionPercentage(), summary.getLastActivityAt());
+        }
+        courseProgressSummaryRepository.updateTotalLessons(summary.getUserId(), summary.getCourseId(), totalLessons);
+        return new CourseProgressStatsDto(summary.getCourseId(), totalLessons, summary.getCompletedLessons(),
+            CompletionBitmaps.completionPercentage(summary.getCompletedLessons(), totalLessons),
+            summary.getLastActivityAt());
+    }
 
-        double completionPercentage = totalLessons > 0 ?
-            (double) completedLessons / totalLessons * 100 : 0.0;
+    /**
+     * Завершенные уроки курса из битмапа агрегата, без чтения строк lesson_progress.
+     */
+    public CompletedLessonsDto getCompletedLessons(UUID userId, UUID courseId) {
+        return courseProgressSummaryRepository
+            .findById(new CourseProgressSummaryId(userId, courseId))
+            .map(this::toCompletedLessons)
+            .orElseGet(() -> new CompletedLessonsDto(courseId, 0, List.of()));
+    }
+
+    public List<CompletedLessonsDto> getAllCompletedLessons(UUID userId) {
+        return courseProgressSummaryRepository.findByUserId(userId).stream()
+            .map(this::toCompletedLessons)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Уроки курса, завершенные каждым из пользователей, например всеми участниками группы.
+     * Пользователь без прогресса по курсу дает пустой результат.
+     */
+    public CompletedLessonsDto getLessonsCompletedByAll(UUID courseId, Collection<UUID> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new IllegalArgumentException("users_required");
+        }
+        if (userIds.size() > maxIntersectionUsers) {
+            throw new IllegalArgumentException("too_many_users");
+        }
+
+        List<CourseProgressSummary> summaries = courseProgressSummaryRepository.findAllById(userIds.stream()
+            .distinct()
+            .map(userId -> new CourseProgressSummaryId(userId, courseId))
+            .toList());
+        if (summaries.size() < userIds.stream().distinct().count()) {
+            return new CompletedLessonsDto(courseId, 0, List.of());
+        }
+
+        RoaringBitmap common = null;
+        for (CourseProgressSummary summary : summaries) {
+            RoaringBitmap bitmap = completionBitmaps.bitmapOf(summary);
+            common = common == null ? bitmap : RoaringBitmap.and(common, bitmap);
+            if (common.isEmpty()) {
+                break;
+            }
+        }
+        List<UUID> lessonIds = completionBitmaps.lessonIds(courseId, common);
+        return new CompletedLessonsDto(courseId, lessonIds.size(), lessonIds);
+    }
 
-        return new CourseProgressStatsDto(courseId, totalLessons,
-            completedLessons, Math.round(completionPercentage * 100.0) / 100.0);
+    private CompletedLessonsDto toCompletedLessons(CourseProgressSummary summary) {
+        List<UUID> lessonIds = completionBitmaps.completedLessonIds(summary);
+        return new CompletedLessonsDto(summary.getCourseId(), lessonIds.size(), lessonIds);
     }
 
     private LessonProgressDto convertToDto(LessonProgress progress) {
@@ -0,0 +1,188 @@
+package com.lms.progressService.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lms.progressService.model.LessonProgress;
+import com.lms.progressService.repository.LessonProgressRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Переводит lesson_progress тестовой базы на партиции и проверяет через EXPLAIN, что SQL, который
+ * генерирует Hibernate для запросов одного пользователя, читает одну партицию. Только PostgreSQL:
+ * SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/lms_db ./gradlew :services:progressService:test
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=update",
+    "progress.partitioning.enabled=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.lms.progressService.config.LessonProgressPartitioningTest$CapturedSql"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LessonProgressPartitioning.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+class LessonProgressPartitioningTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private LessonProgressPartitioning partitioning;
+
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID courseId = UUID.randomUUID();
+    private List<LessonProgress> rows;
+
+    @BeforeEach
+    void setUp() {
+        rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(new LessonProgress(null, userId, UUID.randomUUID(), courseId, i == 0, null, null));
+        }
+        rows = lessonProgressRepository.saveAll(rows);
+        CapturedSql.STATEMENTS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lessonProgressRepository.deleteAll(lessonProgressRepository.findByUserId(userId));
+    }
+
+    @Test
+    void migrate_ShouldPartitionTableByUserId() {
+        // Then
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT partstrat::text FROM pg_partitioned_table WHERE partrelid = 'lesson_progress'::regclass",
+            String.class)).isEqualTo("h");
+        assertThat(partitionCount()).isGreaterThan(1);
+        assertThat(partitioning.migrate()).isFalse();
+    }
+
+    @Test
+    void migrate_ShouldMoveExistingRowsIntoPartitions() {
+        // Given: таблица снова обычная, как до включения партиционирования
+        long total = jdbcTemplate.queryForObject("SELECT count(*) FROM lesson_progress", Long.class);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE lesson_progress_plain AS SELECT * FROM lesson_progress");
+            jdbcTemplate.execute("DROP TABLE lesson_progress");
+            jdbcTemplate.execute("ALTER TABLE lesson_progress_plain RENAME TO lesson_progress");
+        });
+
+        // When
+        boolean migrated = partitioning.migrate();
+
+        // Then
+        assertThat(migrated).isTrue();
+        assertThat(partitionCount()).isGreaterThan(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM lesson_progress", Long.class)).isEqualTo(total);
+        assertThat(lessonProgressRepository.findByUserIdAndCourseId(userId, courseId)).hasSize(3);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(DISTINCT tableoid) FROM lesson_progress WHERE user_id = ?", Long.class, userId)).isEqualTo(1);
+    }
+
+    @Test
+    void userQueries_ShouldTouchSinglePartition() {
+        UUID lessonId = rows.get(0).getLessonId();
+        UUID firstId = rows.get(0).getId();
+
+        assertSinglePartition(() -> lessonProgressRepository.findByUserIdAndLessonId(userId, lessonId), userId, lessonId);
+        assertSinglePartition(() -> lessonProgressRepository.findByUserIdAndCourseId(userId, courseId), userId, courseId);
+        assertSinglePartition(() -> lessonProgressRepository.findCompletedLessonIds(userId, courseId), userId, courseId);
+        assertSinglePartition(() -> lessonProgressRepository.findByUserId(userId), userId);
+        assertSinglePartition(() -> lessonProgressRepository.findByUserIdOrderByIdAsc(userId, Limit.of(2)), userId, 2);
+        assertSinglePartition(() -> lessonProgressRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+            userId, firstId, Limit.of(2)), userId, firstId, 2);
+        // удаление сущности: @PartitionKey добавляет user_id к условию по id
+        assertSinglePartition(() -> {
+            lessonProgressRepository.delete(rows.get(2));
+            return null;
+        }, rows.get(2).getId(), userId);
+    }
+
+    private void assertSinglePartition(Supplier<?> query, Object... args) {
+        CapturedSql.STATEMENTS.clear();
+        query.get();
+        String sql = CapturedSql.STATEMENTS.stream()
+            .filter(statement -> statement.contains("lesson_progress"))
+            .reduce((first, second) -> second)
+            .orElseThrow();
+
+        assertThat(scannedRelations(sql, false, args)).as(sql).hasSize(1)
+            .allMatch(relation -> relation.startsWith("lesson_progress_p"));
+        // generic-план подготовленного запроса: партиция выбирается при старте выполнения
+        assertThat(scannedRelations(sql, true, args)).as("generic plan: " + sql).hasSize(1);
+    }
+
+    private Set<String> scannedRelations(String sql, boolean genericPlan, Object... args) {
+        String plan = new TransactionTemplate(transactionManager).execute(status -> {
+            if (genericPlan) {
+                jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+            }
+            return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, args);
+        });
+        Set<String> relations = new TreeSet<>();
+        try {
+            collectRelations(MAPPER.readTree(plan).get(0).get("Plan"), relations);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return relations;
+    }
+
+    private static void collectRelations(JsonNode node, Set<String> relations) {
+        // у ModifyTable в Relation Name родительская таблица, читаемые партиции - в дочерних узлах
+        if (node.has("Relation Name") && !"ModifyTable".equals(node.get("Node Type").asText())) {
+            relations.add(node.get("Relation Name").asText());
+        }
+        if (node.has("Plans")) {
+            node.get("Plans").forEach(child -> collectRelations(child, relations));
+        }
+    }
+
+    private int partitionCount() {
+        return jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM pg_inherits WHERE inhparent = 'lesson_progress'::regclass", Integer.class);
+    }
+
+    public static class CapturedSql implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
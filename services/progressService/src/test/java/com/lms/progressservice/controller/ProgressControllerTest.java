@@ -1,28 +1,45 @@
 package com.lms.progressService.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lms.progressService.dto.CompletedLessonsDto;
 import com.lms.progressService.dto.CourseProgressStatsDto;
 import com.lms.progressService.dto.LessonProgressDto;
+import com.lms.progressService.dto.UserIdsRequest;
+import com.lms.progressService.service.EngagementAnalytics;
+import com.lms.progressService.service.GroupProgressMatrixService;
+import com.lms.progressService.service.ProgressExportService;
 import com.lms.progressService.service.ProgressService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.lms_project.common.pagination.CursorPage;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProgressController.class)
+@AutoConfigureMockMvc(addFilters = false)
 class ProgressControllerTest {
 
     @Autowired
@@ -31,6 +48,15 @@ class ProgressControllerTest {
     @MockBean
     private ProgressService progressService;
 
+    @MockBean
+    private ProgressExportService progressExportService;
+
+    @MockBean
+    private GroupProgressMatrixService groupProgressMatrixService;
+
+    @MockBean
+    private EngagementAnalytics engagementAnalytics;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -58,7 +84,7 @@ class ProgressControllerTest {
     @Test
     void completeLesson_ShouldReturnProgress() throws Exception {
         // Given
-        when(progressService.completeLessonProgress(any(UUID.class), any(UUID.class), any(UUID.class)))
+        when(progressService.completeLessonProgress(any(UUID.class), any(UUID.class), any(UUID.class), any()))
             .thenReturn(lessonProgressDto);
 
         // When & Then
@@ -93,8 +119,8 @@ class ProgressControllerTest {
     void getAllMyProgress_ShouldReturnAllProgress() throws Exception {
         // Given
         List<LessonProgressDto> progressList = Arrays.asList(lessonProgressDto);
-        when(progressService.getAllUserProgress(any(UUID.class)))
-            .thenReturn(progressList);
+        when(progressService.getAllUserProgress(any(UUID.class), any(), any()))
+            .thenReturn(new CursorPage<>(progressList, null));
 
         // When & Then
         mockMvc.perform(get("/progress/users/me")
@@ -107,8 +133,8 @@ class ProgressControllerTest {
     @Test
     void getCourseStats_ShouldReturnStats() throws Exception {
         // Given
-        CourseProgressStatsDto stats = new CourseProgressStatsDto(courseId, 10L, 6L, 60.0);
-        when(progressService.getCourseStats(any(UUID.class), any(UUID.class)))
+        CourseProgressStatsDto stats = new CourseProgressStatsDto(courseId, 10L, 6L, 60.0, LocalDateTime.now());
+        when(progressService.getCourseStats(any(UUID.class), any(UUID.class), any()))
             .thenReturn(stats);
 
         // When & Then
@@ -120,4 +146,80 @@ class ProgressControllerTest {
                 .andExpect(jsonPath("$.completedLessons").value(6))
                 .andExpect(jsonPath("$.completionPercentage").value(60.0));
     }
+
+    @Test
+    void getLessonsCompletedByAll_ShouldReturnIntersectionForTeacher() throws Exception {
+        // Given
+        UUID otherUserId = UUID.randomUUID();
+        CompletedLessonsDto completed = new CompletedLessonsDto(courseId, 1L, List.of(lessonId));
+        when(progressService.getLessonsCompletedByAll(courseId, List.of(userId, otherUserId)))
+            .thenReturn(completed);
+
+        // When & Then
+        mockMvc.perform(post("/progress/courses/{courseId}/completed-lessons/intersection", courseId)
+                .header("X-User-Roles", "TEACHER")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserIdsRequest(List.of(userId, otherUserId)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lessonIds[0]").value(lessonId.toString()));
+    }
+
+    @Test
+    void getLessonsCompletedByAll_ShouldRejectStudent() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/progress/courses/{courseId}/completed-lessons/intersection", courseId)
+                .header("X-User-Roles", "STUDENT")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserIdsRequest(List.of(userId)))))
+                .andExpect(status().isForbidden());
+
+        verify(progressService, never()).getLessonsCompletedByAll(any(), any());
+    }
+
+    @Test
+    void exportCourseProgress_ShouldStreamCsvWhenFormatIsMissing() throws Exception {
+        // Given
+        when(progressExportService.timeout()).thenReturn(Duration.ofMinutes(30));
+        doAnswer(invocation -> {
+            invocation.getArgument(5, OutputStream.class).write("id\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(progressExportService).export(eq(courseId), any(), any(), any(),
+            eq(ProgressExportService.Format.CSV), any(OutputStream.class));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/progress/courses/{courseId}/export", courseId)
+                .header("X-User-Roles", "TEACHER"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id\n"));
+    }
+
+    @Test
+    void exportCourseProgress_ShouldAcceptFormatInAnyCase() throws Exception {
+        // Given
+        when(progressExportService.timeout()).thenReturn(Duration.ofMinutes(30));
+
+        // When & Then
+        mockMvc.perform(get("/progress/courses/{courseId}/export", courseId)
+                .param("format", "NDJSON")
+                .header("X-User-Roles", "ADMIN"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"));
+    }
+
+    @Test
+    void exportCourseProgress_ShouldRejectUnknownFormat() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/progress/courses/{courseId}/export", courseId)
+                .param("format", "xml")
+                .header("X-User-Roles", "TEACHER"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("invalid_format"));
+    }
 }
@@ -0,0 +1,99 @@
+package com.lms.progressService.service;
+
+import com.lms.progressService.model.CourseProgressSummary;
+import com.lms.progressService.repository.LessonProgressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CompletionBitmapsTest {
+
+    @Mock
+    private LessonProgressRepository lessonProgressRepository;
+
+    @Mock
+    private LessonOrdinals lessonOrdinals;
+
+    @InjectMocks
+    private CompletionBitmaps completionBitmaps;
+
+    private UUID userId;
+    private UUID courseId;
+    private UUID lessonId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        courseId = UUID.randomUUID();
+        lessonId = UUID.randomUUID();
+    }
+
+    @Test
+    void markCompleted_ShouldAddOrdinalAndRecount() {
+        // Given
+        CourseProgressSummary summary = summary(CompletionBitmaps.serialize(RoaringBitmap.bitmapOf(0, 1)), 4L);
+        when(lessonOrdinals.ordinalsOf(courseId, List.of(lessonId))).thenReturn(Map.of(lessonId, 3));
+
+        // When
+        completionBitmaps.markCompleted(summary, List.of(lessonId), null);
+
+        // Then
+        assertThat(CompletionBitmaps.deserialize(summary.getCompletedBitmap())).isEqualTo(RoaringBitmap.bitmapOf(0, 1, 3));
+        assertThat(summary.getCompletedLessons()).isEqualTo(3);
+        assertThat(summary.getTotalLessons()).isEqualTo(4);
+        assertThat(summary.getCompletionPercentage()).isEqualTo(75.0);
+        verifyNoInteractions(lessonProgressRepository);
+    }
+
+    @Test
+    void markCompleted_ShouldNotCountRepeatedCompletion() {
+        // Given
+        CourseProgressSummary summary = summary(CompletionBitmaps.serialize(RoaringBitmap.bitmapOf(3)), 3L);
+        when(lessonOrdinals.ordinalsOf(courseId, List.of(lessonId))).thenReturn(Map.of(lessonId, 3));
+
+        // When
+        completionBitmaps.markCompleted(summary, List.of(lessonId), 3L);
+
+        // Then
+        assertThat(summary.getCompletedLessons()).isEqualTo(1);
+        assertThat(summary.getCompletionPercentage()).isEqualTo(33.33);
+    }
+
+    @Test
+    void markCompleted_ShouldRebuildFromLessonRows_WhenBitmapIsMissing() {
+        // Given
+        UUID earlierLessonId = UUID.randomUUID();
+        CourseProgressSummary summary = summary(null, 0L);
+        when(lessonProgressRepository.findCompletedLessonIds(userId, courseId)).thenReturn(List.of(earlierLessonId));
+        when(lessonOrdinals.ordinalsOf(courseId, List.of(earlierLessonId))).thenReturn(Map.of(earlierLessonId, 0));
+        when(lessonOrdinals.ordinalsOf(courseId, List.of(lessonId))).thenReturn(Map.of(lessonId, 1));
+
+        // When
+        completionBitmaps.markCompleted(summary, List.of(lessonId), 1L);
+
+        // Then
+        assertThat(summary.getCompletedLessons()).isEqualTo(2);
+        assertThat(summary.getCompletionPercentage()).isEqualTo(100.0);
+    }
+
+    private CourseProgressSummary summary(byte[] bitmap, long totalLessons) {
+        CourseProgressSummary summary = new CourseProgressSummary();
+        summary.setUserId(userId);
+        summary.setCourseId(courseId);
+        summary.setTotalLessons(totalLessons);
+        summary.setCompletedBitmap(bitmap);
+        return summary;
+    }
+}
@@ -0,0 +1,62 @@
+package com.lms.progressService.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountMinSketchTest {
+
+    @Test
+    void top_ShouldFindHeavyCourses_AmongManySmallOnes() {
+        // Given: 5 курсов по 10000 событий и 20000 курсов по 1-3 события вперемешку;
+        // граница завышения вероятностная, поэтому ключи фиксированы
+        Random random = new Random(42);
+        CountMinSketch sketch = new CountMinSketch();
+        List<UUID> heavy = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            heavy.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        for (int round = 0; round < 10_000; round++) {
+            for (int i = 0; i < heavy.size(); i++) {
+                sketch.add(heavy.get(i), 1);
+            }
+            sketch.add(new UUID(random.nextLong(), random.nextLong()), 1 + round % 3);
+            sketch.add(new UUID(random.nextLong(), random.nextLong()), 1);
+        }
+
+        // When
+        List<CountMinSketch.Frequency> top = sketch.top(5);
+
+        // Then
+        assertThat(top).extracting(CountMinSketch.Frequency::key).containsExactlyInAnyOrderElementsOf(heavy);
+        assertThat(top).allSatisfy(frequency -> assertThat(frequency.count())
+            .isBetween(10_000L, 10_000L + sketch.errorBound()));
+    }
+
+    @Test
+    void merge_ShouldAddCounts_AndSurviveSerialization() {
+        // Given
+        UUID course = UUID.randomUUID();
+        CountMinSketch monday = new CountMinSketch();
+        CountMinSketch tuesday = new CountMinSketch();
+        monday.add(course, 7);
+        tuesday.add(course, 5);
+        tuesday.add(UUID.randomUUID(), 2);
+
+        // When
+        byte[] data = monday.serialize();
+        CountMinSketch week = CountMinSketch.deserialize(data);
+        week.merge(CountMinSketch.deserialize(tuesday.serialize()));
+
+        // Then: нулевые счетчики занимают по байту
+        assertThat(data.length).isLessThan(CountMinSketch.DEPTH * CountMinSketch.WIDTH + 64);
+        assertThat(week.estimate(course)).isEqualTo(12);
+        assertThat(week.total()).isEqualTo(14);
+        assertThat(week.top(1)).containsExactly(new CountMinSketch.Frequency(course, 12));
+    }
+}
@@ -0,0 +1,97 @@
+package com.lms.progressService.service;
+
+import com.lms.progressService.dto.TopCoursesDto;
+import com.lms.progressService.model.EngagementSketch;
+import com.lms.progressService.repository.EngagementSketchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest
+@Import({EngagementAnalytics.class, SimpleMeterRegistry.class})
+class EngagementAnalyticsTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private EngagementAnalytics engagementAnalytics;
+
+    @Autowired
+    private EngagementSketchRepository engagementSketchRepository;
+
+    private final UUID lessonId = UUID.randomUUID();
+    private final UUID courseId = UUID.randomUUID();
+    private final UUID otherCourseId = UUID.randomUUID();
+
+    @Test
+    void lessonViewers_ShouldCountDistinctUsersAcrossFlushesAndDays() {
+        // Given: 300 зрителей в понедельник, 200 из них и еще 100 новых во вторник, повторные просмотры
+        for (int i = 0; i < 300; i++) {
+            engagementAnalytics.record(new UUID(0, i), lessonId, courseId, MONDAY);
+        }
+        engagementAnalytics.flush();
+        for (int i = 100; i < 400; i++) {
+            engagementAnalytics.record(new UUID(0, i), lessonId, courseId, MONDAY.plusDays(1));
+            engagementAnalytics.record(new UUID(0, i), lessonId, courseId, MONDAY.plusDays(1));
+        }
+        engagementAnalytics.flush();
+        for (int i = 0; i < 50; i++) {
+            engagementAnalytics.record(new UUID(0, i), lessonId, courseId, MONDAY);
+        }
+        engagementAnalytics.flush();
+
+        // When / Then
+        assertThat(engagementAnalytics.lessonViewers(lessonId, MONDAY, MONDAY).getUniqueViewers()).isCloseTo(300L, within(7L));
+        assertThat(engagementAnalytics.lessonViewers(lessonId, MONDAY, MONDAY.plusDays(6)).getUniqueViewers()).isCloseTo(400L, within(9L));
+        assertThat(engagementAnalytics.courseViewers(courseId, null, MONDAY.plusDays(6)).getFrom()).isEqualTo(MONDAY);
+        // приращения влились в одну строку на день, а не добавились рядом
+        assertThat(engagementSketchRepository.findByKindAndSubjectIdAndBucketBetween(
+            EngagementSketch.Kind.LESSON_VIEWERS, lessonId, MONDAY, MONDAY.plusDays(6))).hasSize(2);
+    }
+
+    @Test
+    void topCourses_ShouldRankCoursesByEventsInPeriod() {
+        // Given
+        for (int i = 0; i < 30; i++) {
+            engagementAnalytics.record(UUID.randomUUID(), lessonId, courseId, MONDAY);
+        }
+        for (int i = 0; i < 20; i++) {
+            engagementAnalytics.record(UUID.randomUUID(), UUID.randomUUID(), otherCourseId, MONDAY.plusDays(2));
+        }
+        engagementAnalytics.flush();
+        for (int i = 0; i < 25; i++) {
+            engagementAnalytics.record(UUID.randomUUID(), UUID.randomUUID(), otherCourseId, MONDAY.plusDays(3));
+        }
+        engagementAnalytics.flush();
+
+        // When
+        TopCoursesDto week = engagementAnalytics.topCourses(MONDAY, MONDAY.plusDays(6), 10);
+        TopCoursesDto monday = engagementAnalytics.topCourses(MONDAY, MONDAY, 10);
+
+        // Then
+        assertThat(week.getTotalEvents()).isEqualTo(75);
+        assertThat(week.getCourses()).containsExactly(
+            new TopCoursesDto.CourseActivity(otherCourseId, 45),
+            new TopCoursesDto.CourseActivity(courseId, 30));
+        assertThat(monday.getCourses()).containsExactly(new TopCoursesDto.CourseActivity(courseId, 30));
+    }
+
+    @Test
+    void queries_ShouldRejectInvalidPeriodAndLimit() {
+        assertThatThrownBy(() -> engagementAnalytics.lessonViewers(lessonId, MONDAY.plusDays(1), MONDAY))
+            .hasMessage("invalid_date_range");
+        assertThatThrownBy(() -> engagementAnalytics.courseViewers(courseId, MONDAY.minusYears(1), MONDAY))
+            .hasMessage("date_range_too_large");
+        assertThatThrownBy(() -> engagementAnalytics.topCourses(MONDAY, MONDAY, 0))
+            .hasMessage("invalid_limit");
+    }
+}
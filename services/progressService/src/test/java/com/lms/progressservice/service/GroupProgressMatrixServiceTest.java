@@ -0,0 +1,202 @@
+package com.lms.progressService.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lms.progressService.client.CourseStructureClient;
+import com.lms.progressService.client.GroupClient;
+import com.lms.progressService.model.LessonProgress;
+import com.lms.progressService.repository.LessonProgressRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.lms_project.common.http.DownstreamClients;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import(GroupProgressMatrixService.class)
+class GroupProgressMatrixServiceTest {
+
+    @Autowired
+    private GroupProgressMatrixService groupProgressMatrixService;
+
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    @MockitoBean
+    private GroupClient groupClient;
+
+    @MockitoBean
+    private CourseStructureClient courseStructureClient;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UUID groupId = UUID.randomUUID();
+    private final UUID courseId = UUID.randomUUID();
+    private final UUID student = UUID.randomUUID();
+    private final UUID otherStudent = UUID.randomUUID();
+    private final UUID outsider = UUID.randomUUID();
+    private final List<UUID> lessons = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+        UUID.randomUUID());
+
+    @BeforeEach
+    void setUp() {
+        lessonProgressRepository.saveAllAndFlush(List.of(
+            progress(student, lessons.get(0), true),
+            progress(student, lessons.get(2), true),
+            progress(otherStudent, lessons.get(1), false),
+            progress(outsider, lessons.get(1), true)));
+        when(groupClient.getGroup(groupId, "Bearer token"))
+            .thenReturn(Optional.of(new GroupClient.GroupInfo(groupId, "Group", courseId)));
+        when(groupClient.getMemberIds(groupId, "Bearer token")).thenReturn(List.of(otherStudent, student, student));
+        when(courseStructureClient.getLessonIds(courseId, "Bearer token")).thenReturn(ids(lessons));
+    }
+
+    @Test
+    void build_ShouldTakeColumnsFromCourseLessons() {
+        // When
+        GroupProgressMatrixService.Matrix matrix = groupProgressMatrixService.build(groupId, "Bearer token").orElseThrow();
+
+        // Then
+        assertThat(matrix.courseId()).isEqualTo(courseId);
+        assertThat(matrix.lessons()).containsExactlyElementsOf(ids(lessons));
+        assertThat(matrix.students()).containsExactly(otherStudent, student);
+    }
+
+    @Test
+    void write_ShouldStreamCompactJson() throws Exception {
+        // Given
+        GroupProgressMatrixService.Matrix matrix = groupProgressMatrixService.build(groupId, "Bearer token").orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        groupProgressMatrixService.write(matrix, out);
+
+        // Then
+        // lessons.get(3) nobody completed: still a column; students without completions come last
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        assertThat(json.get("lessons")).hasSize(4);
+        assertThat(json.get("students")).hasSize(2);
+        JsonNode first = json.get("students").get(0);
+        assertThat(first.get("userId").asText()).isEqualTo(student.toString());
+        assertThat(first.get("completedCount").asInt()).isEqualTo(2);
+        assertThat(Base64.getDecoder().decode(first.get("completed").asText())).containsExactly(0b101);
+        JsonNode second = json.get("students").get(1);
+        assertThat(second.get("userId").asText()).isEqualTo(otherStudent.toString());
+        assertThat(second.get("completed").asText()).isEmpty();
+    }
+
+    @Test
+    void write_ShouldSkipCompletedLessonsNoLongerInCourse() throws Exception {
+        // Given
+        when(courseStructureClient.getLessonIds(courseId, "Bearer token")).thenReturn(ids(List.of(lessons.get(2))));
+        GroupProgressMatrixService.Matrix matrix = groupProgressMatrixService.build(groupId, "Bearer token").orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        groupProgressMatrixService.write(matrix, out);
+
+        // Then
+        JsonNode first = new ObjectMapper().readTree(out.toByteArray()).get("students").get(0);
+        assertThat(first.get("userId").asText()).isEqualTo(student.toString());
+        assertThat(first.get("completedCount").asInt()).isEqualTo(1);
+        assertThat(Base64.getDecoder().decode(first.get("completed").asText())).containsExactly(0b1);
+    }
+
+    @Test
+    void write_ShouldKeepObjectIdLessonsOfCourseTreeAsColumns() throws Exception {
+        // Given: course-structure-service answers with Mongo ObjectId lesson ids next to a UUID one
+        String objectId = "65f1c2a9e4b0a1d2c3f4e5a6";
+        String tree = "{\"courseId\":\"" + courseId + "\",\"modules\":[{\"id\":\"65f1c2a9e4b0a1d2c3f4e5a0\","
+            + "\"title\":\"Module\",\"orderIndex\":1,\"lessons\":[{\"id\":\"" + objectId + "\",\"title\":\"Intro\"},"
+            + "{\"id\":\"" + lessons.get(0).toString().toUpperCase(Locale.ROOT) + "\",\"title\":\"Lesson\"}]}]}";
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/v1/courses/", exchange -> {
+            byte[] body = tree.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        DownstreamClients downstreamClients = new DownstreamClients(new MockEnvironment(), new SimpleMeterRegistry());
+        try {
+            CourseStructureClient client = new CourseStructureClient(downstreamClients,
+                "http://localhost:" + server.getAddress().getPort());
+            GroupProgressMatrixService service = new GroupProgressMatrixService(groupClient, client,
+                dataSource, transactionManager, 1000, 5000);
+            GroupProgressMatrixService.Matrix matrix = service.build(groupId, "Bearer token").orElseThrow();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            // When
+            service.write(matrix, out);
+
+            // Then
+            JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+            assertThat(json.get("lessons").get(0).asText()).isEqualTo(objectId);
+            assertThat(json.get("lessons").get(1).asText()).isEqualTo(lessons.get(0).toString());
+            JsonNode first = json.get("students").get(0);
+            assertThat(first.get("userId").asText()).isEqualTo(student.toString());
+            assertThat(first.get("completedCount").asInt()).isEqualTo(1);
+            assertThat(Base64.getDecoder().decode(first.get("completed").asText())).containsExactly(0b10);
+        } finally {
+            downstreamClients.destroy();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void build_ShouldReturnEmpty_WhenGroupIsMissing() {
+        when(groupClient.getGroup(groupId, null)).thenReturn(Optional.empty());
+
+        assertThat(groupProgressMatrixService.build(groupId, null)).isEmpty();
+    }
+
+    @Test
+    void build_ShouldRejectGroupWithoutCourse() {
+        when(groupClient.getGroup(groupId, null))
+            .thenReturn(Optional.of(new GroupClient.GroupInfo(groupId, "Group", null)));
+
+        assertThatThrownBy(() -> groupProgressMatrixService.build(groupId, null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("group_has_no_course");
+    }
+
+    private static List<String> ids(List<UUID> lessonIds) {
+        return lessonIds.stream().map(UUID::toString).toList();
+    }
+
+    private LessonProgress progress(UUID userId, UUID lessonId, boolean completed) {
+        LessonProgress progress = new LessonProgress();
+        progress.setUserId(userId);
+        progress.setLessonId(lessonId);
+        progress.setCourseId(courseId);
+        progress.setCompleted(completed);
+        return progress;
+    }
+}
@@ -0,0 +1,139 @@
+package com.lms.progressService.service;
+
+import com.lms.progressService.repository.LessonProgressBatchRepository.AccessedLesson;
+import com.lms.progressService.repository.LessonProgressRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeartbeatBufferTest {
+
+    @Mock
+    private LessonProgressRepository lessonProgressRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HeartbeatBuffer buffer;
+    private final List<List<AccessedLesson>> written = new ArrayList<>();
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID courseId = UUID.randomUUID();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new HeartbeatBuffer(lessonProgressRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry, 4, 3, 2);
+    }
+
+    @Test
+    void record_ShouldKeepLatestTimestampPerLesson() {
+        // Given
+        UUID lessonId = UUID.randomUUID();
+        captureWrites();
+
+        // When
+        buffer.record(userId, lessonId, courseId, now);
+        buffer.record(userId, lessonId, courseId, now.plusSeconds(30));
+        buffer.record(userId, lessonId, courseId, now.plusSeconds(10));
+        buffer.flush();
+
+        // Then
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0)).singleElement()
+            .satisfies(lesson -> assertThat(lesson.accessedAt()).isEqualTo(now.plusSeconds(30)));
+        assertThat(buffer.size()).isZero();
+        assertThat(meterRegistry.get("progress.heartbeat.flushed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void record_ShouldDropNewLessons_WhenBufferIsFull() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            assertThat(buffer.record(userId, UUID.randomUUID(), courseId, now)).isTrue();
+        }
+
+        // When
+        boolean accepted = buffer.record(userId, UUID.randomUUID(), courseId, now);
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(buffer.size()).isEqualTo(3);
+        assertThat(meterRegistry.get("progress.heartbeat.dropped").tag("reason", "buffer_full").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("progress.heartbeat.buffer.size").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void flush_ShouldWriteInBatches() {
+        // Given
+        captureWrites();
+        for (int i = 0; i < 3; i++) {
+            buffer.record(userId, UUID.randomUUID(), courseId, now);
+        }
+
+        // When
+        buffer.flush();
+
+        // Then
+        assertThat(written).extracting(List::size).containsExactly(2, 1);
+        assertThat(meterRegistry.get("progress.heartbeat.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_ShouldKeepHeartbeats_WhenWriteFails() {
+        // Given
+        when(lessonProgressRepository.touchAccessedBatch(anyCollection()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        buffer.record(userId, UUID.randomUUID(), courseId, now);
+
+        // When
+        buffer.flush();
+
+        // Then
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("progress.heartbeat.flush.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void flushOnShutdown_ShouldCountHeartbeatsThatCouldNotBeWritten() {
+        // Given
+        when(lessonProgressRepository.touchAccessedBatch(anyCollection()))
+            .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        buffer.record(userId, UUID.randomUUID(), courseId, now);
+        buffer.record(userId, UUID.randomUUID(), courseId, now);
+
+        // When
+        buffer.flushOnShutdown();
+
+        // Then
+        assertThat(buffer.size()).isZero();
+        assertThat(meterRegistry.get("progress.heartbeat.dropped").tag("reason", "shutdown").counter().count())
+            .isEqualTo(2);
+    }
+
+    private void captureWrites() {
+        when(lessonProgressRepository.touchAccessedBatch(anyCollection())).thenAnswer(invocation -> {
+            Collection<AccessedLesson> batch = invocation.getArgument(0);
+            written.add(List.copyOf(batch));
+            return batch.size();
+        });
+    }
+}
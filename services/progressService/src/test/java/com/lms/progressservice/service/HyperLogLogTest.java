@@ -0,0 +1,53 @@
+package com.lms.progressService.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_ShouldStayWithinErrorBound_WhenSwitchingFromSparseToDense() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+        int[] checkpoints = {10, 1_000, 100_000};
+        int added = 0;
+
+        for (int checkpoint : checkpoints) {
+            // When
+            for (; added < checkpoint; added++) {
+                UUID viewer = new UUID(0, added);
+                sketch.add(viewer);
+                sketch.add(viewer);
+            }
+
+            // Then: три стандартные ошибки
+            assertThat((double) sketch.estimate()).isCloseTo(checkpoint,
+                offset(Math.max(1, 3 * HyperLogLog.RELATIVE_ERROR * checkpoint)));
+        }
+    }
+
+    @Test
+    void merge_ShouldEqualUnion_AndSurviveSerialization() {
+        // Given: пересекающиеся множества по 3000 зрителей, объединение 4000
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (int i = 0; i < 3000; i++) {
+            monday.add(new UUID(1, i));
+            tuesday.add(new UUID(1, i + 1000));
+        }
+        byte[] sparse = HyperLogLog.deserialize(new HyperLogLog().serialize()).serialize();
+
+        // When
+        HyperLogLog week = HyperLogLog.deserialize(monday.serialize());
+        week.merge(HyperLogLog.deserialize(tuesday.serialize()));
+
+        // Then
+        assertThat(sparse).hasSize(4);
+        assertThat((double) week.estimate()).isCloseTo(4000, offset(4000 * 3 * HyperLogLog.RELATIVE_ERROR));
+        assertThat(HyperLogLog.deserialize(week.serialize()).estimate()).isEqualTo(week.estimate());
+    }
+}
@@ -0,0 +1,316 @@
+package com.lms.progressService.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lms.progressService.client.CourseStructureClient;
+import com.lms.progressService.client.GroupClient;
+import com.lms.progressService.dto.CompletedLessonsDto;
+import com.lms.progressService.dto.CourseProgressStatsDto;
+import com.lms.progressService.dto.LessonCompletionItem;
+import com.lms.progressService.dto.LessonCompletionResultDto;
+import com.lms.progressService.dto.LessonProgressDto;
+import com.lms.progressService.model.CourseLessonOrdinal;
+import com.lms.progressService.model.CourseProgressSummary;
+import com.lms.progressService.model.CourseProgressSummaryId;
+import com.lms.progressService.model.LessonProgress;
+import com.lms.progressService.repository.CourseLessonOrdinalRepository;
+import com.lms.progressService.repository.CourseProgressSummaryRepository;
+import com.lms.progressService.repository.LessonProgressRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Upsert использует ON CONFLICT, которого нет в H2, поэтому тест запускается только на PostgreSQL:
+ * SPRING_DATASOURCE_URL=jdbc:postgresql://localhost:5432/lms_db ./gradlew :services:progressService:test
+ */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=update", "progress.batch.max-items=1000"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProgressService.class, HeartbeatBuffer.class, CompletionBitmaps.class, LessonOrdinals.class,
+    GroupProgressMatrixService.class, EngagementAnalytics.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+class LessonProgressUpsertConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int COMPLETIONS = 200;
+    private static final long COURSE_LESSONS = 400;
+
+    @Autowired
+    private ProgressService progressService;
+
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    @Autowired
+    private CourseProgressSummaryRepository courseProgressSummaryRepository;
+
+    @Autowired
+    private CourseLessonOrdinalRepository courseLessonOrdinalRepository;
+
+    @Autowired
+    private HeartbeatBuffer heartbeatBuffer;
+
+    @Autowired
+    private GroupProgressMatrixService groupProgressMatrixService;
+
+    @MockitoBean
+    private CourseLessonTotals courseLessonTotals;
+
+    @MockitoBean
+    private GroupClient groupClient;
+
+    @MockitoBean
+    private CourseStructureClient courseStructureClient;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID lessonId = UUID.randomUUID();
+    private final UUID courseId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(courseLessonTotals.get(any(), any())).thenReturn(COURSE_LESSONS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lessonProgressRepository.deleteAll(lessonProgressRepository.findByUserId(userId));
+        courseProgressSummaryRepository.deleteById(new CourseProgressSummaryId(userId, courseId));
+        courseLessonOrdinalRepository.deleteAll(courseLessonOrdinalRepository.findByCourseId(courseId));
+    }
+
+    @Test
+    void completeLessonProgress_ShouldKeepSingleRow_WhenCompletedConcurrently() throws Exception {
+        // When
+        List<LessonProgressDto> results = runConcurrently(
+            () -> progressService.completeLessonProgress(userId, lessonId, courseId, null));
+
+        // Then
+        List<LessonProgress> rows = lessonProgressRepository.findByUserId(userId);
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getLessonId()).isEqualTo(lessonId);
+        assertThat(rows.get(0).getCompleted()).isTrue();
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.getId()).isEqualTo(rows.get(0).getId());
+            assertThat(result.getCompleted()).isTrue();
+        });
+
+        CourseProgressStatsDto stats = progressService.getCourseStats(userId, courseId, null);
+        assertThat(stats.getCompletedLessons()).isEqualTo(1);
+        assertThat(stats.getTotalLessons()).isEqualTo(COURSE_LESSONS);
+        assertThat(stats.getCompletionPercentage()).isEqualTo(0.25);
+    }
+
+    @Test
+    void completeLessonProgress_ShouldKeepFirstCompletionTime_WhenCompletedAgain() {
+        // Given
+        LessonProgressDto first = progressService.completeLessonProgress(userId, lessonId, courseId, null);
+        LocalDateTime lastAccessedAt = first.getLastAccessedAt().plusHours(1);
+        heartbeatBuffer.record(userId, lessonId, courseId, lastAccessedAt);
+        heartbeatBuffer.flush();
+
+        // When
+        LessonProgressDto repeated = progressService.completeLessonProgress(userId, lessonId, courseId, null);
+
+        // Then
+        assertThat(repeated.getId()).isEqualTo(first.getId());
+        assertThat(repeated.getCompleted()).isTrue();
+        assertThat(repeated.getCompletedAt()).isEqualTo(first.getCompletedAt());
+        assertThat(repeated.getLastAccessedAt()).isEqualTo(lastAccessedAt);
+        assertThat(progressService.getCourseStats(userId, courseId, null).getCompletedLessons()).isEqualTo(1);
+    }
+
+    @Test
+    void getCourseStats_ShouldStoreFreshTotal_WhenCourseStructureWasUnavailableOnCompletion() {
+        // Given
+        when(courseLessonTotals.get(any(), any())).thenReturn(null);
+        progressService.completeLessonProgress(userId, lessonId, courseId, null);
+        assertThat(courseProgressSummaryRepository.findById(new CourseProgressSummaryId(userId, courseId)))
+            .get().extracting(CourseProgressSummary::getTotalLessons).isEqualTo(0L);
+        when(courseLessonTotals.get(any(), any())).thenReturn(COURSE_LESSONS);
+
+        // When
+        CourseProgressStatsDto stats = progressService.getCourseStats(userId, courseId, null);
+
+        // Then
+        assertThat(stats.getTotalLessons()).isEqualTo(COURSE_LESSONS);
+        assertThat(stats.getCompletionPercentage()).isEqualTo(0.25);
+        CourseProgressSummary stored = courseProgressSummaryRepository.findById(new CourseProgressSummaryId(userId, courseId)).orElseThrow();
+        assertThat(stored.getTotalLessons()).isEqualTo(COURSE_LESSONS);
+        assertThat(stored.getCompletionPercentage()).isEqualTo(0.25);
+    }
+
+    @Test
+    void completeLessonProgress_ShouldCountEveryLesson_WhenDifferentLessonsCompletedConcurrently() throws Exception {
+        // When
+        runConcurrently(() -> progressService.completeLessonProgress(userId, UUID.randomUUID(), courseId, null));
+
+        // Then
+        CourseProgressStatsDto stats = progressService.getCourseStats(userId, courseId, null);
+        assertThat(stats.getCompletedLessons()).isEqualTo(COMPLETIONS);
+        assertThat(stats.getCompletionPercentage()).isEqualTo(50.0);
+        assertThat(stats.getLastActivityAt()).isNotNull();
+
+        CompletedLessonsDto completed = progressService.getCompletedLessons(userId, courseId);
+        assertThat(completed.getLessonIds()).doesNotHaveDuplicates()
+            .containsExactlyInAnyOrderElementsOf(lessonProgressRepository.findCompletedLessonIds(userId, courseId));
+        assertThat(courseLessonOrdinalRepository.findByCourseId(courseId))
+            .extracting(CourseLessonOrdinal::getOrdinal)
+            .containsExactlyInAnyOrderElementsOf(IntStream.range(0, COMPLETIONS).boxed().toList());
+    }
+
+    @Test
+    void completeLessonsBatch_ShouldUpsertEveryLessonAcrossStatements() {
+        // Given
+        progressService.completeLessonProgress(userId, lessonId, courseId, null);
+        LocalDateTime completedAt = LocalDateTime.now().minusHours(1).withNano(0);
+        List<LessonCompletionItem> items = new ArrayList<>();
+        items.add(new LessonCompletionItem(lessonId, courseId, completedAt));
+        for (int i = 1; i < 550; i++) {
+            items.add(new LessonCompletionItem(UUID.randomUUID(), courseId, completedAt));
+        }
+        items.add(new LessonCompletionItem(lessonId, courseId, completedAt.minusMinutes(5)));
+
+        // When
+        List<LessonCompletionResultDto> results = progressService.completeLessonsBatch(userId, items, null);
+
+        // Then
+        assertThat(results).hasSize(551)
+            .allSatisfy(result -> assertThat(result.getStatus()).isEqualTo(LessonCompletionResultDto.Status.COMPLETED));
+        assertThat(results.get(0).getProgress().getCompletedAt()).isEqualTo(completedAt.minusMinutes(5));
+        assertThat(lessonProgressRepository.findByUserId(userId)).hasSize(550);
+
+        // Повторная отправка с более поздним временем не сдвигает время завершения вперед
+        List<LessonCompletionResultDto> resent = progressService.completeLessonsBatch(userId,
+            List.of(new LessonCompletionItem(lessonId, courseId, completedAt.plusMinutes(30))), null);
+        assertThat(resent.get(0).getProgress().getCompletedAt()).isEqualTo(completedAt.minusMinutes(5));
+
+        CourseProgressStatsDto stats = progressService.getCourseStats(userId, courseId, null);
+        assertThat(stats.getCompletedLessons()).isEqualTo(550);
+        assertThat(stats.getCompletionPercentage()).isEqualTo(100.0);
+
+        UUID classmateId = UUID.randomUUID();
+        try {
+            progressService.completeLessonProgress(classmateId, lessonId, courseId, null);
+            progressService.completeLessonProgress(classmateId, UUID.randomUUID(), courseId, null);
+            CompletedLessonsDto common = progressService.getLessonsCompletedByAll(courseId, List.of(userId, classmateId));
+            assertThat(common.getLessonIds()).containsExactly(lessonId);
+        } finally {
+            lessonProgressRepository.deleteAll(lessonProgressRepository.findByUserId(classmateId));
+            courseProgressSummaryRepository.deleteById(new CourseProgressSummaryId(classmateId, courseId));
+        }
+    }
+
+    @Test
+    void heartbeatFlush_ShouldMoveLastAccessForwardOnly() throws Exception {
+        // Given
+        LessonProgressDto completed = progressService.completeLessonProgress(userId, lessonId, courseId, null);
+        UUID openedLessonId = UUID.randomUUID();
+        LocalDateTime base = completed.getLastAccessedAt();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100; i++) {
+                    heartbeatBuffer.record(userId, lessonId, courseId, base.plusSeconds(offset * 100L + i));
+                    heartbeatBuffer.record(userId, openedLessonId, courseId, base.plusSeconds(offset * 100L + i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        heartbeatBuffer.record(userId, lessonId, courseId, base.minusDays(1));
+
+        // When
+        heartbeatBuffer.flush();
+
+        // Then
+        LocalDateTime latest = base.plusSeconds((THREADS - 1) * 100L + 99);
+        assertThat(heartbeatBuffer.size()).isZero();
+        assertThat(lessonProgressRepository.findByUserIdAndLessonId(userId, lessonId)).hasValueSatisfying(progress -> {
+            assertThat(progress.getCompleted()).isTrue();
+            assertThat(progress.getLastAccessedAt()).isEqualTo(latest);
+        });
+        assertThat(lessonProgressRepository.findByUserIdAndLessonId(userId, openedLessonId)).hasValueSatisfying(progress -> {
+            assertThat(progress.getCompleted()).isFalse();
+            assertThat(progress.getCompletedAt()).isNull();
+            assertThat(progress.getLastAccessedAt()).isEqualTo(latest);
+        });
+    }
+
+    @Test
+    void groupMatrix_ShouldStreamCourseLessonsIncludingOnesNobodyCompleted() throws Exception {
+        // Given
+        progressService.completeLessonProgress(userId, lessonId, courseId, null);
+        UUID otherStudent = UUID.randomUUID();
+        UUID groupId = UUID.randomUUID();
+        when(groupClient.getGroup(groupId, null)).thenReturn(Optional.of(new GroupClient.GroupInfo(groupId, "Group", courseId)));
+        when(groupClient.getMemberIds(groupId, null)).thenReturn(List.of(otherStudent, userId));
+        when(courseStructureClient.getLessonIds(courseId, null)).thenReturn(List.of("65f1c2a9e4b0a1d2c3f4e5a6", lessonId.toString()));
+        GroupProgressMatrixService.Matrix matrix = groupProgressMatrixService.build(groupId, null).orElseThrow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        groupProgressMatrixService.write(matrix, out);
+
+        // Then
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        assertThat(json.get("lessons")).hasSize(2);
+        JsonNode first = json.get("students").get(0);
+        assertThat(first.get("userId").asText()).isEqualTo(userId.toString());
+        assertThat(Base64.getDecoder().decode(first.get("completed").asText())).containsExactly(0b10);
+        assertThat(json.get("students").get(1).get("userId").asText()).isEqualTo(otherStudent.toString());
+        assertThat(json.get("students").get(1).get("completedCount").asInt()).isZero();
+    }
+
+    private List<LessonProgressDto> runConcurrently(Supplier<LessonProgressDto> completion) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LessonProgressDto>> futures = new ArrayList<>(COMPLETIONS);
+        try {
+            for (int i = 0; i < COMPLETIONS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return completion.get();
+                }));
+            }
+            start.countDown();
+
+            List<LessonProgressDto> results = new ArrayList<>(COMPLETIONS);
+            for (Future<LessonProgressDto> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.lms.progressService.service;
+
+import com.lms.progressService.model.LessonProgress;
+import com.lms.progressService.repository.LessonProgressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "progress.export.fetch-size=2")
+@Import(ProgressExportService.class)
+class ProgressExportServiceTest {
+
+    @Autowired
+    private ProgressExportService progressExportService;
+
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    private final UUID courseId = UUID.randomUUID();
+    private final UUID userId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private final UUID otherUserId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private final LocalDateTime base = LocalDateTime.of(2026, 9, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        lessonProgressRepository.saveAllAndFlush(List.of(
+            progress(otherUserId, courseId, true, base.plusDays(2)),
+            progress(userId, courseId, true, base),
+            progress(userId, courseId, false, null),
+            progress(userId, UUID.randomUUID(), true, base)));
+    }
+
+    @Test
+    void export_ShouldWriteCsvOfCourseOrderedByUser() {
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = progressExportService.export(courseId, null, null, null, ProgressExportService.Format.CSV, out);
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).isEqualTo("id,user_id,lesson_id,course_id,completed,completed_at,last_accessed_at");
+        assertThat(lines.subList(1, 4)).allSatisfy(line -> assertThat(line).contains("," + courseId + ","));
+        assertThat(lines.get(3)).startsWith(lessonProgressRepository.findByUserId(otherUserId).get(0).getId() + ",")
+            .contains(",true," + base.plusDays(2) + ",");
+    }
+
+    @Test
+    void export_ShouldFilterCompletedByCompletionTime() {
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = progressExportService.export(courseId, base.plusDays(1), base.plusDays(3), true,
+            ProgressExportService.Format.NDJSON, out);
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines).singleElement().satisfies(line -> assertThat(line)
+            .startsWith("{\"id\":\"")
+            .contains("\"userId\":\"" + otherUserId + "\"", "\"completed\":true",
+                "\"completedAt\":\"" + base.plusDays(2) + "\""));
+    }
+
+    @Test
+    void export_ShouldRejectInvertedRange() {
+        assertThatThrownBy(() -> progressExportService.export(courseId, base, base.minusDays(1), null,
+            ProgressExportService.Format.CSV, new ByteArrayOutputStream()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("invalid_date_range");
+    }
+
+    private LessonProgress progress(UUID user, UUID course, boolean completed, LocalDateTime completedAt) {
+        LessonProgress progress = new LessonProgress();
+        progress.setUserId(user);
+        progress.setLessonId(UUID.randomUUID());
+        progress.setCourseId(course);
+        progress.setCompleted(completed);
+        progress.setCompletedAt(completedAt);
+        progress.setLastAccessedAt(completedAt == null ? base.plusDays(5) : completedAt);
+        return progress;
+    }
+}
@@ -1,23 +1,42 @@
 package com.lms.progressService.service;
 
+import com.lms.progressService.dto.CompletedLessonsDto;
 import com.lms.progressService.dto.CourseProgressStatsDto;
+import com.lms.progressService.dto.LessonCompletionItem;
+import com.lms.progressService.dto.LessonCompletionResultDto;
 import com.lms.progressService.dto.LessonProgressDto;
+import com.lms.progressService.model.CourseProgressSummary;
+import com.lms.progressService.model.CourseProgressSummaryId;
 import com.lms.progressService.model.LessonProgress;
+import com.lms.progressService.repository.CourseProgressSummaryRepository;
+import com.lms.progressService.repository.LessonProgressBatchRepository.CompletedLesson;
 import com.lms.progressService.repository.LessonProgressRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lms_project.common.pagination.CursorPage;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -27,6 +46,24 @@ class ProgressServiceTest {
     @Mock
     private LessonProgressRepository lessonProgressRepository;
 
+    @Mock
+    private CourseProgressSummaryRepository courseProgressSummaryRepository;
+
+    @Mock
+    private CourseLessonTotals courseLessonTotals;
+
+    @Mock
+    private HeartbeatBuffer heartbeatBuffer;
+
+    @Mock
+    private CompletionBitmaps completionBitmaps;
+
+    @Mock
+    private EngagementAnalytics engagementAnalytics;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private ProgressService progressService;
 
@@ -52,15 +89,17 @@ class ProgressServiceTest {
     }
 
     @Test
-    void completeLessonProgress_ShouldCreateNewProgress_WhenNotExists() {
+    void completeLessonProgress_ShouldUpsertLessonAndRefreshSummary() {
         // Given
-        when(lessonProgressRepository.findByUserIdAndLessonId(userId, lessonId))
-            .thenReturn(Optional.empty());
-        when(lessonProgressRepository.save(any(LessonProgress.class)))
+        CourseProgressSummary summary = new CourseProgressSummary();
+        when(courseLessonTotals.get(courseId, "Bearer token")).thenReturn(5L);
+        when(courseProgressSummaryRepository.lockForUpdate(eq(userId), eq(courseId), any(LocalDateTime.class)))
+            .thenReturn(summary);
+        when(lessonProgressRepository.upsertCompleted(any(UUID.class), eq(userId), eq(lessonId), eq(courseId), any(LocalDateTime.class)))
             .thenReturn(lessonProgress);
 
         // When
-        LessonProgressDto result = progressService.completeLessonProgress(userId, lessonId, courseId);
+        LessonProgressDto result = progressService.completeLessonProgress(userId, lessonId, courseId, "Bearer token");
 
         // Then
         assertThat(result).isNotNull();
@@ -69,7 +108,27 @@ class ProgressServiceTest {
         assertThat(result.getCourseId()).isEqualTo(courseId);
         assertThat(result.getCompleted()).isTrue();
 
-        verify(lessonProgressRepository).save(any(LessonProgress.class));
+        verify(lessonProgressRepository, never()).findByUserIdAndLessonId(any(), any());
+        verify(lessonProgressRepository, never()).save(any(LessonProgress.class));
+
+        InOrder inOrder = inOrder(courseProgressSummaryRepository, lessonProgressRepository, completionBitmaps);
+        inOrder.verify(courseProgressSummaryRepository).lockForUpdate(eq(userId), eq(courseId), any(LocalDateTime.class));
+        inOrder.verify(lessonProgressRepository).upsertCompleted(any(UUID.class), eq(userId), eq(lessonId), eq(courseId), any(LocalDateTime.class));
+        inOrder.verify(completionBitmaps).markCompleted(summary, List.of(lessonId), 5L);
+    }
+
+    @Test
+    void completeLessonProgress_ShouldKeepStoredTotal_WhenStructureServiceIsUnavailable() {
+        // Given
+        when(courseLessonTotals.get(courseId, null)).thenReturn(null);
+        when(lessonProgressRepository.upsertCompleted(any(UUID.class), eq(userId), eq(lessonId), eq(courseId), any(LocalDateTime.class)))
+            .thenReturn(lessonProgress);
+
+        // When
+        progressService.completeLessonProgress(userId, lessonId, courseId, null);
+
+        // Then
+        verify(completionBitmaps).markCompleted(any(), eq(List.of(lessonId)), isNull());
     }
 
     @Test
@@ -89,20 +148,246 @@ class ProgressServiceTest {
     }
 
     @Test
-    void getCourseStats_ShouldCalculateCorrectPercentage() {
+    void getAllUserProgress_ShouldPageByIdWithCursor() {
+        // Given
+        LessonProgress next = new LessonProgress();
+        next.setId(UUID.randomUUID());
+        next.setUserId(userId);
+        when(lessonProgressRepository.findByUserIdOrderByIdAsc(userId, Limit.of(2)))
+            .thenReturn(List.of(lessonProgress, next));
+        when(lessonProgressRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, lessonProgress.getId(), Limit.of(2)))
+            .thenReturn(List.of(next));
+
+        // When
+        CursorPage<LessonProgressDto> first = progressService.getAllUserProgress(userId, null, 1);
+        CursorPage<LessonProgressDto> second = progressService.getAllUserProgress(userId, first.nextCursor(), 1);
+
+        // Then
+        assertThat(first.items()).extracting(LessonProgressDto::getId).containsExactly(lessonProgress.getId());
+        assertThat(first.nextCursor()).isNotNull();
+        assertThat(second.items()).extracting(LessonProgressDto::getId).containsExactly(next.getId());
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void getAllUserProgress_ShouldRejectInvalidCursor() {
+        assertThatThrownBy(() -> progressService.getAllUserProgress(userId, "%%%", null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("invalid_cursor");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void completeLessonsBatch_ShouldUpsertOnceAndReportEveryItem() {
+        // Given
+        UUID otherLessonId = UUID.randomUUID();
+        LocalDateTime earlier = LocalDateTime.now().minusHours(2);
+        LocalDateTime later = earlier.plusMinutes(30);
+        List<LessonCompletionItem> items = Arrays.asList(
+            new LessonCompletionItem(lessonId, courseId, later),
+            new LessonCompletionItem(otherLessonId, courseId, LocalDateTime.now().plusDays(1)),
+            new LessonCompletionItem(lessonId, courseId, earlier),
+            new LessonCompletionItem(UUID.randomUUID(), null, earlier),
+            null
+        );
+        LessonProgress other = new LessonProgress();
+        other.setId(UUID.randomUUID());
+        other.setUserId(userId);
+        other.setLessonId(otherLessonId);
+        other.setCourseId(courseId);
+        other.setCompleted(true);
+        CourseProgressSummary summary = new CourseProgressSummary();
+        when(courseLessonTotals.get(courseId, null)).thenReturn(10L);
+        when(courseProgressSummaryRepository.lockForUpdate(eq(userId), eq(courseId), any(LocalDateTime.class)))
+            .thenReturn(summary);
+        when(lessonProgressRepository.upsertCompletedBatch(eq(userId), any()))
+            .thenReturn(List.of(lessonProgress, other));
+
+        // When
+        List<LessonCompletionResultDto> results = progressService.completeLessonsBatch(userId, items, null);
+
+        // Then
+        assertThat(results).extracting(LessonCompletionResultDto::getStatus).containsExactly(
+            LessonCompletionResultDto.Status.COMPLETED,
+            LessonCompletionResultDto.Status.COMPLETED,
+            LessonCompletionResultDto.Status.COMPLETED,
+            LessonCompletionResultDto.Status.REJECTED,
+            LessonCompletionResultDto.Status.REJECTED);
+        assertThat(results.get(0).getProgress().getId()).isEqualTo(lessonProgress.getId());
+        assertThat(results.get(2).getProgress().getId()).isEqualTo(lessonProgress.getId());
+        assertThat(results.get(3).getError()).isEqualTo("lesson_and_course_required");
+
+        ArgumentCaptor<Collection<CompletedLesson>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(lessonProgressRepository).upsertCompletedBatch(eq(userId), rows.capture());
+        List<CompletedLesson> upserted = new ArrayList<>(rows.getValue());
+        assertThat(upserted).extracting(CompletedLesson::lessonId).containsExactly(lessonId, otherLessonId);
+        assertThat(upserted.get(0).completedAt()).isEqualTo(earlier);
+        assertThat(upserted.get(1).completedAt()).isBefore(LocalDateTime.now().plusSeconds(1));
+
+        verify(courseProgressSummaryRepository).lockForUpdate(eq(userId), eq(courseId), any(LocalDateTime.class));
+        verify(completionBitmaps).markCompleted(summary, List.of(lessonId, otherLessonId), 10L);
+    }
+
+    @Test
+    void completeLessonsBatch_ShouldRejectTooLargeBatch() {
+        List<LessonCompletionItem> items = Collections.nCopies(501, new LessonCompletionItem(lessonId, courseId, null));
+
+        assertThatThrownBy(() -> progressService.completeLessonsBatch(userId, items, null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("batch_too_large");
+        verifyNoInteractions(lessonProgressRepository, courseProgressSummaryRepository);
+    }
+
+    @Test
+    void recordLessonAccess_ShouldOnlyBufferHeartbeat() {
+        // Given
+        when(heartbeatBuffer.record(eq(userId), eq(lessonId), eq(courseId), any(LocalDateTime.class))).thenReturn(true);
+
+        // When
+        boolean accepted = progressService.recordLessonAccess(userId, lessonId, courseId);
+
+        // Then
+        assertThat(accepted).isTrue();
+        verify(engagementAnalytics).record(userId, lessonId, courseId);
+        verifyNoInteractions(lessonProgressRepository, courseProgressSummaryRepository);
+    }
+
+    @Test
+    void getCourseStats_ShouldReadSummaryRow() {
         // Given
-        when(lessonProgressRepository.countCompletedLessonsByCourseAndUser(userId, courseId))
-            .thenReturn(3L);
-        when(lessonProgressRepository.countTotalLessonsByCourse(courseId))
-            .thenReturn(5L);
+        LocalDateTime lastActivity = LocalDateTime.now();
+        when(courseLessonTotals.get(courseId, "Bearer token")).thenReturn(5L);
+        when(courseProgressSummaryRepository.findById(new CourseProgressSummaryId(userId, courseId)))
+            .thenReturn(Optional.of(new CourseProgressSummary(userId, courseId, 3L, 5L, 60.0, lastActivity, null)));
 
         // When
-        CourseProgressStatsDto result = progressService.getCourseStats(userId, courseId);
+        CourseProgressStatsDto result = progressService.getCourseStats(userId, courseId, "Bearer token");
 
         // Then
         assertThat(result.getCourseId()).isEqualTo(courseId);
         assertThat(result.getTotalLessons()).isEqualTo(5L);
         assertThat(result.getCompletedLessons()).isEqualTo(3L);
         assertThat(result.getCompletionPercentage()).isEqualTo(60.0);
+        assertThat(result.getLastActivityAt()).isEqualTo(lastActivity);
+        verify(courseProgressSummaryRepository, never()).updateTotalLessons(any(), any(), anyLong());
+        verifyNoInteractions(lessonProgressRepository);
+    }
+
+    @Test
+    void getCourseStats_ShouldRefreshStaleTotal() {
+        // Given: при первом завершении course-structure-service был недоступен, в агрегате 0 уроков
+        when(courseLessonTotals.get(courseId, null)).thenReturn(8L);
+        when(courseProgressSummaryRepository.findById(new CourseProgressSummaryId(userId, courseId)))
+            .thenReturn(Optional.of(new CourseProgressSummary(userId, courseId, 2L, 0L, 0.0, LocalDateTime.now(), null)));
+
+        // When
+        CourseProgressStatsDto result = progressService.getCourseStats(userId, courseId, null);
+
+        // Then
+        assertThat(result.getTotalLessons()).isEqualTo(8L);
+        assertThat(result.getCompletionPercentage()).isEqualTo(25.0);
+        verify(courseProgressSummaryRepository).updateTotalLessons(userId, courseId, 8L);
+    }
+
+    @Test
+    void getCourseStats_ShouldKeepStoredTotal_WhenCourseStructureUnavailable() {
+        // Given
+        when(courseLessonTotals.get(courseId, null)).thenReturn(null);
+        when(courseProgressSummaryRepository.findById(new CourseProgressSummaryId(userId, courseId)))
+            .thenReturn(Optional.of(new CourseProgressSummary(userId, courseId, 2L, 4L, 50.0, LocalDateTime.now(), null)));
+
+        // When
+        CourseProgressStatsDto result = progressService.getCourseStats(userId, courseId, null);
+
+        // Then
+        assertThat(result.getTotalLessons()).isEqualTo(4L);
+        assertThat(result.getCompletionPercentage()).isEqualTo(50.0);
+        verify(courseProgressSummaryRepository, never()).updateTotalLessons(any(), any(), anyLong());
+    }
+
+    @Test
+    void getCourseStats_ShouldReturnZeros_WhenNothingCompleted() {
+        // Given
+        when(courseProgressSummaryRepository.findById(new CourseProgressSummaryId(userId, courseId)))
+            .thenReturn(Optional.empty());
+
+        // When
+        CourseProgressStatsDto result = progressService.getCourseStats(userId, courseId, null);
+
+        // Then
+        assertThat(result.getCompletedLessons()).isZero();
+        assertThat(result.getCompletionPercentage()).isZero();
+        assertThat(result.getLastActivityAt()).isNull();
+    }
+
+    @Test
+    void getCoursesStats_ShouldReadRequestedCoursesInOneQuery() {
+        // Given
+        UUID otherCourseId = UUID.randomUUID();
+        when(courseProgressSummaryRepository.findByUserIdAndCourseIdIn(userId, List.of(courseId, otherCourseId)))
+            .thenReturn(List.of(new CourseProgressSummary(userId, otherCourseId, 2L, 4L, 50.0, LocalDateTime.now(), null)));
+        when(courseLessonTotals.get(otherCourseId, null)).thenReturn(4L);
+
+        // When
+        List<CourseProgressStatsDto> result = progressService.getCoursesStats(userId, List.of(courseId, otherCourseId, courseId), null);
+
+        // Then
+        assertThat(result).extracting(CourseProgressStatsDto::getCourseId).containsExactly(courseId, otherCourseId);
+        assertThat(result.get(0).getCompletedLessons()).isZero();
+        assertThat(result.get(1).getCompletionPercentage()).isEqualTo(50.0);
+        verify(courseProgressSummaryRepository, never()).findById(any());
+        verifyNoInteractions(lessonProgressRepository);
+    }
+
+    @Test
+    void getCoursesStats_ShouldReturnEveryCourseWithProgress_WhenNoCoursesGiven() {
+        // Given
+        when(courseProgressSummaryRepository.findByUserId(userId))
+            .thenReturn(List.of(new CourseProgressSummary(userId, courseId, 1L, 10L, 10.0, LocalDateTime.now(), null)));
+
+        // When
+        List<CourseProgressStatsDto> result = progressService.getCoursesStats(userId, null, null);
+
+        // Then
+        assertThat(result).singleElement().satisfies(stats -> {
+            assertThat(stats.getCourseId()).isEqualTo(courseId);
+            assertThat(stats.getCompletedLessons()).isEqualTo(1L);
+        });
+    }
+
+    @Test
+    void getLessonsCompletedByAll_ShouldIntersectMemberBitmaps() {
+        // Given
+        UUID otherUserId = UUID.randomUUID();
+        CourseProgressSummary first = new CourseProgressSummary();
+        first.setUserId(userId);
+        CourseProgressSummary second = new CourseProgressSummary();
+        second.setUserId(otherUserId);
+        when(courseProgressSummaryRepository.findAllById(List.of(
+            new CourseProgressSummaryId(userId, courseId), new CourseProgressSummaryId(otherUserId, courseId))))
+            .thenReturn(List.of(first, second));
+        when(completionBitmaps.bitmapOf(first)).thenReturn(RoaringBitmap.bitmapOf(0, 1, 2, 5));
+        when(completionBitmaps.bitmapOf(second)).thenReturn(RoaringBitmap.bitmapOf(1, 2, 3));
+        when(completionBitmaps.lessonIds(courseId, RoaringBitmap.bitmapOf(1, 2))).thenReturn(List.of(lessonId));
+
+        // When
+        CompletedLessonsDto result = progressService.getLessonsCompletedByAll(courseId, List.of(userId, otherUserId, userId));
+
+        // Then
+        assertThat(result.getCompletedLessons()).isEqualTo(1);
+        assertThat(result.getLessonIds()).containsExactly(lessonId);
+    }
+
+    @Test
+    void getLessonsCompletedByAll_ShouldReturnEmpty_WhenMemberHasNoProgress() {
+        // Given
+        when(courseProgressSummaryRepository.findAllById(any())).thenReturn(List.of());
+
+        // When
+        CompletedLessonsDto result = progressService.getLessonsCompletedByAll(courseId, List.of(userId));
+
+        // Then
+        assertThat(result.getLessonIds()).isEmpty();
+        verifyNoInteractions(completionBitmaps);
     }
 }
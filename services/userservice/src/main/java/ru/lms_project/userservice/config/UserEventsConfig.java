@@ -0,0 +1,26 @@
+package ru.lms_project.userservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.lms_project.userservice.events.RedisUserEventPublisher;
+
+import java.time.Duration;
+
+@Configuration
+public class UserEventsConfig {
+
+    // without this bean user changes are not announced and authservice relies on its cache TTL
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "userservice.events.redis.enabled", havingValue = "true")
+    public RedisUserEventPublisher redisUserEventPublisher(
+            @Value("${userservice.events.redis.url:redis://localhost:6379}") String url,
+            @Value("${userservice.events.redis.timeout:PT0.2S}") Duration timeout,
+            @Value("${userservice.events.redis.channel:lms:user-events}") String channel,
+            ObjectMapper objectMapper
+    ) {
+        return new RedisUserEventPublisher(url, timeout, channel, objectMapper);
+    }
+}
@@ -2,14 +2,19 @@ package ru.lms_project.userservice.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import ru.lms_project.common.pagination.InvalidPageRequestException;
+import ru.lms_project.common.pagination.web.CursorPageResponses;
 import ru.lms_project.userservice.dto.UserCreateRequest;
 import ru.lms_project.userservice.dto.UserCreateResponse;
 import ru.lms_project.userservice.dto.UserDto;
+import ru.lms_project.userservice.dto.UserPatchRequest;
 import ru.lms_project.userservice.service.UserService;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,8 +27,10 @@ public class UserController {
     private final UserService userService;
 
     @GetMapping
-    public List<UserDto> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<List<UserDto>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return CursorPageResponses.ok(userService.getAllUsers(cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -58,4 +65,37 @@ public class UserController {
     public UserCreateResponse createUser(@RequestBody UserCreateRequest req) {
         return userService.create(req);
     }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<UserDto> patchUser(
+            @PathVariable UUID id,
+            @RequestBody UserPatchRequest req,
+            @RequestHeader(value = "X-User-Roles", required = false) String roles) {
+        if (!isAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(userService.patch(id, req));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteUser(
+            @PathVariable UUID id,
+            @RequestHeader(value = "X-User-Roles", required = false) String roles) {
+        if (!isAdmin(roles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        userService.deleteById(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ProblemDetail handleInvalidPageRequest(InvalidPageRequestException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getReason());
+    }
+
+    private static boolean isAdmin(String roles) {
+        return roles != null && Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .anyMatch("ADMIN"::equals);
+    }
 }
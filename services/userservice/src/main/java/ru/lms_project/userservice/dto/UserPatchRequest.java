@@ -0,0 +1,16 @@
+package ru.lms_project.userservice.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial update: fields left null are not changed.
+ */
+@Data
+@NoArgsConstructor
+public class UserPatchRequest {
+    private String firstName;
+    private String lastName;
+    private String role;
+    private Boolean active;
+}
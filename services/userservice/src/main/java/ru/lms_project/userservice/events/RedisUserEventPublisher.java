@@ -0,0 +1,94 @@
+package ru.lms_project.userservice.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes user events to a Redis pub/sub channel. Errors are logged and not rethrown:
+ * the change itself is already saved.
+ * <p>
+ * The connection is opened on a background thread, so the service starts without Redis; a failed attempt
+ * is repeated every {@link #RECONNECT_INTERVAL}. Until the first connect succeeds events are dropped,
+ * afterwards Lettuce reconnects by itself and commands fail at once while it is disconnected.
+ */
+@Slf4j
+public class RedisUserEventPublisher implements UserEventPublisher, AutoCloseable {
+
+    static final Duration RECONNECT_INTERVAL = Duration.ofSeconds(5);
+
+    private final RedisClient client;
+    private final ScheduledExecutorService connector;
+    private final String channel;
+    private final ObjectMapper objectMapper;
+
+    private volatile StatefulRedisConnection<String, String> connection;
+
+    public RedisUserEventPublisher(String url, Duration timeout, String channel, ObjectMapper objectMapper) {
+        RedisURI uri = RedisURI.create(url);
+        uri.setTimeout(timeout);
+        this.client = RedisClient.create(uri);
+        this.client.setOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+        this.channel = channel;
+        this.objectMapper = objectMapper;
+        this.connector = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "redis-user-events-connect");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connector.execute(this::connect);
+    }
+
+    @Override
+    public void publish(UserChangedEvent event) {
+        StatefulRedisConnection<String, String> current = connection;
+        if (current == null) {
+            log.warn("Redis is not connected, dropping {} of user {}", event.change(), event.userId());
+            return;
+        }
+        try {
+            current.sync().publish(channel, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            log.warn("Failed to publish {} of user {}", event.change(), event.userId(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        connector.shutdownNow();
+        StatefulRedisConnection<String, String> current = connection;
+        if (current != null) {
+            current.close();
+        }
+        client.shutdown();
+    }
+
+    private void connect() {
+        try {
+            StatefulRedisConnection<String, String> opened = client.connect();
+            if (connector.isShutdown()) {
+                opened.close();
+                return;
+            }
+            connection = opened;
+        } catch (RuntimeException e) {
+            log.warn("Cannot connect to Redis, user events are not published, retrying in {}: {}",
+                    RECONNECT_INTERVAL, e.getMessage());
+            if (!connector.isShutdown()) {
+                connector.schedule(this::connect, RECONNECT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
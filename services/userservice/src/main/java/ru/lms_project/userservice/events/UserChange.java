@@ -0,0 +1,8 @@
+package ru.lms_project.userservice.events;
+
+public enum UserChange {
+    ACTIVATED,
+    DEACTIVATED,
+    ROLE_CHANGED,
+    DELETED
+}
@@ -0,0 +1,10 @@
+package ru.lms_project.userservice.events;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Sent after a change that other services may have cached (authservice keeps active and role per user).
+ */
+public record UserChangedEvent(UUID userId, UserChange change, Instant changedAt) {
+}
@@ -0,0 +1,10 @@
+package ru.lms_project.userservice.events;
+
+/**
+ * Best-effort notification of user changes; a lost event only means subscribers keep
+ * a cached value until its TTL.
+ */
+public interface UserEventPublisher {
+
+    void publish(UserChangedEvent event);
+}
@@ -1,9 +1,11 @@
 package ru.lms_project.userservice.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.lms_project.userservice.model.User;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,4 +13,7 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    List<User> findAllByOrderByIdAsc(Limit limit);
+    List<User> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
 }
\ No newline at end of file
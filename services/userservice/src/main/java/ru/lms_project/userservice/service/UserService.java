@@ -1,16 +1,29 @@
 package ru.lms_project.userservice.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
+import ru.lms_project.common.pagination.CursorPage;
 import ru.lms_project.userservice.dto.UserCreateRequest;
 import ru.lms_project.userservice.dto.UserCreateResponse;
 import ru.lms_project.userservice.dto.UserDto;
+import ru.lms_project.userservice.dto.UserPatchRequest;
+import ru.lms_project.userservice.events.UserChange;
+import ru.lms_project.userservice.events.UserChangedEvent;
+import ru.lms_project.userservice.events.UserEventPublisher;
 import ru.lms_project.userservice.model.Role;
 import ru.lms_project.userservice.model.User;
 import ru.lms_project.userservice.repository.UserRepository;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -20,15 +33,25 @@ import java.util.UUID;
 @Service
 public class UserService {
 	private final UserRepository userRepository;
+	private final ObjectProvider<UserEventPublisher> userEventPublisher;
 
-	public List<UserDto> getAllUsers() {
-		return userRepository.findAll().stream().map(this::toDto).toList();
+	@Value("${pagination.default-page-size:50}")
+	private int defaultPageSize = 50;
+
+	@Value("${pagination.max-page-size:500}")
+	private int maxPageSize = 500;
+
+	public CursorPage<UserDto> getAllUsers(String cursor, Integer limit) {
+		int pageSize = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+		UUID after = CursorPage.decodeUuid(cursor);
+		List<User> rows = after == null
+				? userRepository.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+				: userRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1));
+		return CursorPage.of(rows, pageSize, User::getId, this::toDto);
 	}
 
 	public UserDto getById(UUID id) {
-		User u = userRepository.findById(id)
-				.orElseThrow(() -> new RuntimeException("user_not_found"));
-		return toDto(u);
+		return toDto(findOrNotFound(id));
 	}
 
 	public UserDto getByEmail(String rawEmail) {
@@ -58,8 +81,71 @@ public class UserService {
 		return new UserCreateResponse(saved.getId());
 	}
 
+	/**
+	 * Changing {@code active} or {@code role} is announced to {@link UserEventPublisher} once the
+	 * transaction commits, so subscribers never re-read the old row.
+	 */
+	@Transactional
+	public UserDto patch(UUID id, UserPatchRequest req) {
+		User u = findOrNotFound(id);
+		List<UserChange> changes = new ArrayList<>(2);
+
+		if (req.getFirstName() != null) u.setFirstName(req.getFirstName());
+		if (req.getLastName() != null) u.setLastName(req.getLastName());
+		if (req.getRole() != null) {
+			Role role = parseRole(req.getRole());
+			if (role != u.getRole()) {
+				u.setRole(role);
+				changes.add(UserChange.ROLE_CHANGED);
+			}
+		}
+		if (req.getActive() != null && req.getActive() != u.isActive()) {
+			u.setActive(req.getActive());
+			changes.add(req.getActive() ? UserChange.ACTIVATED : UserChange.DEACTIVATED);
+		}
+
+		User saved = userRepository.save(u);
+		changes.forEach(change -> publish(id, change));
+		return toDto(saved);
+	}
+
+	@Transactional
 	public void deleteById(UUID id) {
+		if (!userRepository.existsById(id)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "user_not_found");
+		}
 		userRepository.deleteById(id);
+		publish(id, UserChange.DELETED);
+	}
+
+	private User findOrNotFound(UUID id) {
+		return userRepository.findById(id)
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "user_not_found"));
+	}
+
+	private Role parseRole(String role) {
+		try {
+			return Role.valueOf(role);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid_role");
+		}
+	}
+
+	private void publish(UUID id, UserChange change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			sendEvent(id, change);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				sendEvent(id, change);
+			}
+		});
+	}
+
+	private void sendEvent(UUID id, UserChange change) {
+		userEventPublisher.ifAvailable(publisher -> publisher.publish(new UserChangedEvent(id, change, Instant.now())));
 	}
 
 	private String normalizeEmail(String email) {
@@ -0,0 +1,89 @@
+package ru.lms_project.userservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.lms_project.userservice.dto.UserDto;
+import ru.lms_project.userservice.service.UserService;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserController.class)
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @Test
+    void patchUser_asStudent_returnsForbidden() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        mockMvc.perform(patch("/api/v1/users/{id}", id)
+                        .header("X-User-Roles", "STUDENT")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ADMIN\"}"))
+                .andExpect(status().isForbidden());
+
+        verify(userService, never()).patch(any(), any());
+    }
+
+    @Test
+    void patchUser_withoutRoles_returnsForbidden() throws Exception {
+        mockMvc.perform(patch("/api/v1/users/{id}", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"active\":false}"))
+                .andExpect(status().isForbidden());
+
+        verify(userService, never()).patch(any(), any());
+    }
+
+    @Test
+    void patchUser_asAdmin_updatesUser() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(userService.patch(eq(id), any()))
+                .thenReturn(new UserDto(id, "a@b.c", "hash", "TEACHER", true, null, null));
+
+        mockMvc.perform(patch("/api/v1/users/{id}", id)
+                        .header("X-User-Roles", "TEACHER, ADMIN")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"TEACHER\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.role").value("TEACHER"));
+    }
+
+    @Test
+    void deleteUser_asTeacher_returnsForbidden() throws Exception {
+        mockMvc.perform(delete("/api/v1/users/{id}", UUID.randomUUID())
+                        .header("X-User-Roles", "TEACHER"))
+                .andExpect(status().isForbidden());
+
+        verify(userService, never()).deleteById(any());
+    }
+
+    @Test
+    void deleteUser_asAdmin_returnsNoContent() throws Exception {
+        UUID id = UUID.randomUUID();
+
+        mockMvc.perform(delete("/api/v1/users/{id}", id)
+                        .header("X-User-Roles", "ADMIN"))
+                .andExpect(status().isNoContent());
+
+        verify(userService).deleteById(id);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.lms_project.userservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lms_project.userservice.dto.UserCreateRequest;
+import ru.lms_project.userservice.dto.UserPatchRequest;
+import ru.lms_project.userservice.events.UserChange;
+import ru.lms_project.userservice.events.UserChangedEvent;
+import ru.lms_project.userservice.events.UserEventPublisher;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private UserEventPublisher userEventPublisher;
+
+    @Test
+    void patch_publishesOnlyAfterCommit() {
+        UUID id = createUser();
+        UserPatchRequest req = new UserPatchRequest();
+        req.setActive(false);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.patch(id, req);
+            verify(userEventPublisher, never()).publish(any());
+        });
+
+        verify(userEventPublisher).publish(argThat(event -> isChange(event, id, UserChange.DEACTIVATED)));
+    }
+
+    @Test
+    void patch_rolledBack_publishesNothing() {
+        UUID id = createUser();
+        UserPatchRequest req = new UserPatchRequest();
+        req.setRole("ADMIN");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.patch(id, req);
+            status.setRollbackOnly();
+        });
+
+        verify(userEventPublisher, never()).publish(any());
+    }
+
+    @Test
+    void deleteById_publishesDeletedAfterCommit() {
+        UUID id = createUser();
+
+        userService.deleteById(id);
+
+        verify(userEventPublisher).publish(argThat(event -> isChange(event, id, UserChange.DELETED)));
+    }
+
+    private UUID createUser() {
+        UserCreateRequest req = new UserCreateRequest();
+        req.setEmail(UUID.randomUUID() + "@example.com");
+        req.setPasswordHash("hash");
+        req.setRole("STUDENT");
+        return userService.create(req).getId();
+    }
+
+    private static boolean isChange(UserChangedEvent event, UUID id, UserChange change) {
+        return event.userId().equals(id) && event.change() == change;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.lms_project.common.http;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * Settings of one downstream service, bound from {@code lms.http-clients.<name>.*}.
+ * Every field has a default, so a service only sets what differs.
+ */
+@Getter
+@Setter
+public class DownstreamClientProperties {
+
+    public enum Protocol {
+        /** Pooled Apache HttpClient connections. */
+        HTTP_1_1,
+        /** java.net.http client: HTTP/2 over TLS via ALPN or h2c upgrade, HTTP/1.1 if the server does not speak it. */
+        HTTP_2
+    }
+
+    private Protocol protocol = Protocol.HTTP_1_1;
+
+    /** Pool size for the downstream (HTTP/1.1 only, an HTTP/2 connection multiplexes). */
+    private int maxConnections = 50;
+
+    /** Idle connections are closed after this; keep it below the server's keep-alive timeout (Tomcat: 20s). */
+    private Duration keepAlive = Duration.ofSeconds(15);
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration responseTimeout = Duration.ofSeconds(3);
+
+    /** How long a call waits for a free pooled connection. */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+    private Retry retry = new Retry();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Bulkhead bulkhead = new Bulkhead();
+
+    /** Applied to GET, HEAD, OPTIONS, PUT and DELETE on I/O errors and 502/503/504, not on response timeouts by default. */
+    @Getter
+    @Setter
+    public static class Retry {
+        /** Including the first call; 1 disables retries. */
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(50);
+        private double multiplier = 2.0;
+        /** Each backoff is randomized by +/- this share, so callers that failed together do not retry together. */
+        private double jitter = 0.5;
+        /**
+         * Also retry when no response came within {@code response-timeout}. Off by default: the downstream is
+         * usually still working on the first call, and each attempt holds the caller's thread for the whole timeout.
+         */
+        private boolean onTimeout = false;
+    }
+
+    /** Counts I/O errors and 5xx replies. */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration waitInOpenState = Duration.ofSeconds(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        /** 0 means {@code max-connections}, so callers are turned away instead of queueing for the pool. */
+        private int maxConcurrentCalls = 0;
+        private Duration maxWait = Duration.ofMillis(100);
+    }
+}
@@ -0,0 +1,207 @@
+package ru.lms_project.common.http;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * One {@link RestTemplate} per downstream service, configured by {@code lms.http-clients.<name>.*}
+ * ({@link DownstreamClientProperties}): its own connection pool, retry, circuit breaker and bulkhead.
+ * <p>
+ * Metrics: {@code lms.http.client.calls} (tags {@code client}, {@code method}, {@code outcome}),
+ * {@code lms.http.client.pool.*} (tag {@code client}) and the Resilience4j meters
+ * ({@code resilience4j.circuitbreaker.*}, {@code resilience4j.retry.*}, {@code resilience4j.bulkhead.*})
+ * named after the client.
+ */
+@Slf4j
+public class DownstreamClients implements DisposableBean {
+
+    public static final String PREFIX = "lms.http-clients";
+
+    private final Binder binder;
+    private final MeterRegistry meterRegistry;
+    private final RetryRegistry retries = RetryRegistry.ofDefaults();
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+    private final Map<String, RestTemplate> templates = new ConcurrentHashMap<>();
+    private final List<AutoCloseable> transports = new CopyOnWriteArrayList<>();
+
+    public DownstreamClients(Environment environment, MeterRegistry meterRegistry) {
+        this.binder = Binder.get(environment);
+        this.meterRegistry = meterRegistry;
+        TaggedRetryMetrics.ofRetryRegistry(retries).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    /** The same instance for every call with the same name. */
+    public RestTemplate restTemplate(String name) {
+        return templates.computeIfAbsent(name, n -> create(n, properties(n)));
+    }
+
+    public DownstreamClientProperties properties(String name) {
+        return binder.bind(PREFIX + "." + name, DownstreamClientProperties.class)
+                .orElseGet(DownstreamClientProperties::new);
+    }
+
+    @Override
+    public void destroy() {
+        for (AutoCloseable transport : transports) {
+            try {
+                transport.close();
+            } catch (Exception e) {
+                log.warn("Failed to close HTTP client", e);
+            }
+        }
+    }
+
+    private RestTemplate create(String name, DownstreamClientProperties p) {
+        RestTemplate restTemplate = new RestTemplate(requestFactory(name, p));
+        restTemplate.getInterceptors().add(new ResilienceInterceptor(name, retry(name, p), circuitBreaker(name, p),
+                bulkhead(name, p), p.getCircuitBreaker().getWaitInOpenState(), meterRegistry));
+        log.info("HTTP client '{}': {}, {} connections, keep-alive {}, retry x{}, bulkhead {}",
+                name, p.getProtocol(), p.getMaxConnections(), p.getKeepAlive(),
+                p.getRetry().getMaxAttempts(), concurrentCalls(p));
+        return restTemplate;
+    }
+
+    private ClientHttpRequestFactory requestFactory(String name, DownstreamClientProperties p) {
+        if (p.getProtocol() == DownstreamClientProperties.Protocol.HTTP_2) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(p.getConnectTimeout())
+                    .build();
+            transports.add(client);
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+            factory.setReadTimeout(p.getResponseTimeout());
+            return factory;
+        }
+
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(p.getMaxConnections())
+                .setMaxConnPerRoute(p.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(p.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(p.getResponseTimeout()))
+                        // a connection idle this long is checked before reuse, the server may have closed it
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        TimeValue keepAlive = TimeValue.of(p.getKeepAlive());
+        var client = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(p.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(p.getResponseTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue server = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return server.compareTo(keepAlive) < 0 ? server : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive)
+                // retries are done by ResilienceInterceptor, for idempotent methods only
+                .disableAutomaticRetries()
+                .build();
+        transports.add(client);
+
+        poolGauge("lms.http.client.pool.leased", name, pool, "Connections in use", s -> s.getTotalStats().getLeased());
+        poolGauge("lms.http.client.pool.available", name, pool, "Idle connections kept alive", s -> s.getTotalStats().getAvailable());
+        poolGauge("lms.http.client.pool.pending", name, pool, "Calls waiting for a connection", s -> s.getTotalStats().getPending());
+        poolGauge("lms.http.client.pool.max", name, pool, "Pool size", s -> s.getTotalStats().getMax());
+        return new HttpComponentsClientHttpRequestFactory(client);
+    }
+
+    private Retry retry(String name, DownstreamClientProperties p) {
+        DownstreamClientProperties.Retry r = p.getRetry();
+        return retries.retry(name, RetryConfig.<ClientHttpResponse>custom()
+                .maxAttempts(Math.max(1, r.getMaxAttempts()))
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+                        r.getInitialBackoff(), r.getMultiplier(), r.getJitter()))
+                .retryOnException(e -> e instanceof IOException && (r.isOnTimeout() || !isResponseTimeout(e)))
+                .retryOnResult(ResilienceInterceptor::isRetryable)
+                // the reply that is retried is not returned to the caller, release its connection
+                .consumeResultBeforeRetryAttempt((attempt, response) -> response.close())
+                .build());
+    }
+
+    /** Connect timeouts are not included: the request was not sent, so retrying it costs the downstream nothing. */
+    static boolean isResponseTimeout(Throwable e) {
+        return (e instanceof SocketTimeoutException && !(e instanceof ConnectTimeoutException))
+                || (e instanceof HttpTimeoutException && !(e instanceof HttpConnectTimeoutException));
+    }
+
+    private CircuitBreaker circuitBreaker(String name, DownstreamClientProperties p) {
+        DownstreamClientProperties.CircuitBreaker c = p.getCircuitBreaker();
+        return circuitBreakers.circuitBreaker(name, CircuitBreakerConfig.custom()
+                .failureRateThreshold(c.getFailureRateThreshold())
+                .slidingWindowSize(c.getSlidingWindowSize())
+                .minimumNumberOfCalls(c.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(c.getWaitInOpenState())
+                .recordExceptions(IOException.class)
+                .recordResult(result -> result instanceof ClientHttpResponse response
+                        && ResilienceInterceptor.isServerError(response))
+                .build());
+    }
+
+    private Bulkhead bulkhead(String name, DownstreamClientProperties p) {
+        return bulkheads.bulkhead(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(concurrentCalls(p))
+                .maxWaitDuration(p.getBulkhead().getMaxWait())
+                .build());
+    }
+
+    private static int concurrentCalls(DownstreamClientProperties p) {
+        int configured = p.getBulkhead().getMaxConcurrentCalls();
+        return configured > 0 ? configured : p.getMaxConnections();
+    }
+
+    private void poolGauge(String metric, String name, PoolingHttpClientConnectionManager pool, String description,
+                           ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder(metric, pool, value)
+                .description(description)
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package ru.lms_project.common.http;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The call was not sent: the circuit of the downstream is open or its bulkhead is full.
+ */
+@Getter
+public class DownstreamUnavailableException extends RuntimeException {
+    private final String client;
+    private final String reason;
+    private final Duration retryAfter;
+
+    public DownstreamUnavailableException(String client, String reason, Duration retryAfter, Throwable cause) {
+        super(client + " unavailable: " + reason, cause);
+        this.client = client;
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+}
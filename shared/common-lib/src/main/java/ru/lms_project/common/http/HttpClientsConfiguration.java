@@ -0,0 +1,21 @@
+package ru.lms_project.common.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Picked up by services that scan {@code ru.lms_project.common.http}. Services without actuator have no
+ * {@link MeterRegistry} bean; their client meters go to the global registry.
+ */
+@Configuration
+public class HttpClientsConfiguration {
+
+    @Bean
+    public DownstreamClients downstreamClients(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DownstreamClients(environment, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
@@ -0,0 +1,116 @@
+package ru.lms_project.common.http;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each call as retry(circuit breaker(bulkhead(request))) and records one
+ * {@code lms.http.client.calls} timing per call, retries included.
+ * Must be the last interceptor: a retry executes the rest of the chain again.
+ */
+class ResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Set<HttpMethod> IDEMPOTENT = Set.of(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private final String client;
+    private final Retry retry;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration openRetryAfter;
+    private final MeterRegistry meterRegistry;
+
+    ResilienceInterceptor(String client, Retry retry, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                          Duration openRetryAfter, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.retry = retry;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.openRetryAfter = openRetryAfter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Callable<ClientHttpResponse> call = () -> execution.execute(request, body);
+        call = Bulkhead.decorateCallable(bulkhead, call);
+        call = CircuitBreaker.decorateCallable(circuitBreaker, call);
+        if (IDEMPOTENT.contains(request.getMethod())) {
+            call = Retry.decorateCallable(retry, call);
+        }
+
+        long start = System.nanoTime();
+        String outcome = "IO_ERROR";
+        try {
+            ClientHttpResponse response = call.call();
+            outcome = outcome(response);
+            return response;
+        } catch (CallNotPermittedException e) {
+            outcome = "CIRCUIT_OPEN";
+            throw new DownstreamUnavailableException(client, "circuit_open", openRetryAfter, e);
+        } catch (BulkheadFullException e) {
+            outcome = "BULKHEAD_FULL";
+            throw new DownstreamUnavailableException(client, "bulkhead_full", Duration.ofSeconds(1), e);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            Timer.builder("lms.http.client.calls")
+                    .description("Calls to another service, including retries and time waiting for a connection")
+                    .tag("client", client)
+                    .tag("method", request.getMethod().name())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Replies worth another attempt: the downstream or a proxy in front of it is temporarily unable to answer. */
+    static boolean isRetryable(ClientHttpResponse response) {
+        int status = status(response);
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    static boolean isServerError(ClientHttpResponse response) {
+        return status(response) >= 500;
+    }
+
+    private static String outcome(ClientHttpResponse response) {
+        HttpStatus.Series series = HttpStatus.Series.resolve(status(response));
+        return series == null ? "UNKNOWN" : switch (series) {
+            case INFORMATIONAL -> "INFORMATIONAL";
+            case SUCCESSFUL -> "SUCCESS";
+            case REDIRECTION -> "REDIRECTION";
+            case CLIENT_ERROR -> "CLIENT_ERROR";
+            case SERVER_ERROR -> "SERVER_ERROR";
+        };
+    }
+
+    private static int status(ClientHttpResponse response) {
+        try {
+            return response.getStatusCode().value();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
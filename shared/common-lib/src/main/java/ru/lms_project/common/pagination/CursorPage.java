@@ -0,0 +1,60 @@
+package ru.lms_project.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list. {@code nextCursor} is an opaque token for the next request,
+ * {@code null} on the last page. Controllers return it through
+ * {@code ru.lms_project.common.pagination.web.CursorPageResponses}.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public static int pageSize(Integer requested, int defaultSize, int maxSize) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        if (requested < 1) {
+            throw new InvalidPageRequestException("invalid_limit");
+        }
+        return Math.min(requested, maxSize);
+    }
+
+    /**
+     * {@code rows} must be fetched with {@code pageSize + 1}: the extra row only tells that there is a next page,
+     * so no count query is needed.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int pageSize, Function<E, ?> keyOf, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? encode(String.valueOf(keyOf.apply(page.get(pageSize - 1)))) : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    public static UUID decodeUuid(String cursor) {
+        return decode(cursor, UUID::fromString);
+    }
+
+    /**
+     * @param parser turns the decoded key back into the sort key; an {@link IllegalArgumentException} it throws
+     *               means the cursor was not issued by this list
+     * @return {@code null} for a missing cursor, i.e. the first page
+     */
+    public static <K> K decode(String cursor, Function<String, K> parser) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return parser.apply(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("invalid_cursor");
+        }
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
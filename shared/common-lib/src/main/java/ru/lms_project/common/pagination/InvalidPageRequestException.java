@@ -0,0 +1,16 @@
+package ru.lms_project.common.pagination;
+
+import lombok.Getter;
+
+/**
+ * The client sent a malformed cursor or a non-positive limit. Services map it to 400 in their web layer.
+ */
+@Getter
+public class InvalidPageRequestException extends IllegalArgumentException {
+    private final String reason;
+
+    public InvalidPageRequestException(String reason) {
+        super(reason);
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.lms_project.common.pagination.web;
+
+import org.springframework.http.ResponseEntity;
+import ru.lms_project.common.pagination.CursorPage;
+
+import java.util.List;
+
+/**
+ * Writes a {@link CursorPage} as a list endpoint response: the items as a JSON array body and the next
+ * cursor in the {@value #NEXT_CURSOR_HEADER} header, so {@code CursorPage} itself stays free of Spring Web.
+ */
+public final class CursorPageResponses {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorPageResponses() {
+    }
+
+    public static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+}
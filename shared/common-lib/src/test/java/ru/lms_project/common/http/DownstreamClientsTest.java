@@ -0,0 +1,139 @@
+package ru.lms_project.common.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownstreamClientsTest {
+
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> delaysMillis = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment()
+            .withProperty("lms.http-clients.users.max-connections", "4")
+            .withProperty("lms.http-clients.users.retry.initial-backoff", "1ms");
+
+    private HttpServer server;
+    private String url;
+    private DownstreamClients clients;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            Long delay = delaysMillis.poll();
+            if (delay != null) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Integer status = statuses.poll();
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status == null ? 200 : status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // a delayed reply must not hold up the retry
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/users";
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void get_retriedOnUnavailable() {
+        clients = new DownstreamClients(environment, meterRegistry);
+        statuses.add(503);
+        statuses.add(502);
+
+        assertEquals("ok", clients.restTemplate("users").getForObject(url, String.class));
+
+        assertEquals(3, hits.get());
+        assertEquals(1, meterRegistry.get("lms.http.client.calls")
+                .tags("client", "users", "method", "GET", "outcome", "SUCCESS").timer().count());
+        assertEquals(4, meterRegistry.get("lms.http.client.pool.max").tag("client", "users").gauge().value());
+    }
+
+    @Test
+    void post_notRetried() {
+        clients = new DownstreamClients(environment, meterRegistry);
+        statuses.add(503);
+
+        RestTemplate users = clients.restTemplate("users");
+        assertThrows(HttpServerErrorException.class, () -> users.postForObject(url, "{}", String.class));
+
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void get_notRetriedOnResponseTimeout() {
+        environment.withProperty("lms.http-clients.users.response-timeout", "200ms");
+        clients = new DownstreamClients(environment, meterRegistry);
+        delaysMillis.add(1000L);
+
+        RestTemplate users = clients.restTemplate("users");
+        assertThrows(ResourceAccessException.class, () -> users.getForObject(url, String.class));
+
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void get_retriedOnResponseTimeout_whenEnabled() {
+        environment.withProperty("lms.http-clients.users.response-timeout", "200ms")
+                .withProperty("lms.http-clients.users.retry.on-timeout", "true");
+        clients = new DownstreamClients(environment, meterRegistry);
+        delaysMillis.add(1000L);
+
+        assertEquals("ok", clients.restTemplate("users").getForObject(url, String.class));
+
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void circuitOpens_afterServerErrors() {
+        environment.withProperty("lms.http-clients.users.retry.max-attempts", "1")
+                .withProperty("lms.http-clients.users.circuit-breaker.sliding-window-size", "2")
+                .withProperty("lms.http-clients.users.circuit-breaker.minimum-number-of-calls", "2")
+                .withProperty("lms.http-clients.users.circuit-breaker.wait-in-open-state", "30s");
+        clients = new DownstreamClients(environment, meterRegistry);
+        statuses.add(500);
+        statuses.add(500);
+        RestTemplate users = clients.restTemplate("users");
+
+        assertThrows(HttpServerErrorException.class, () -> users.getForObject(url, String.class));
+        assertThrows(HttpServerErrorException.class, () -> users.getForObject(url, String.class));
+        DownstreamUnavailableException ex = assertThrows(DownstreamUnavailableException.class,
+                () -> users.getForObject(url, String.class));
+
+        assertEquals("circuit_open", ex.getReason());
+        assertEquals(30, ex.getRetryAfter().toSeconds());
+        assertEquals(2, hits.get());
+        assertEquals(1, meterRegistry.get("lms.http.client.calls").tag("outcome", "CIRCUIT_OPEN").timer().count());
+    }
+}
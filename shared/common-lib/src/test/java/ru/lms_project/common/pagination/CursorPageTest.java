@@ -0,0 +1,43 @@
+package ru.lms_project.common.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageTest {
+
+    @Test
+    void of_withExtraRow_returnsPageAndCursorOfItsLastKey() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        CursorPage<String> page = CursorPage.of(List.of(first, second, UUID.randomUUID()), 2,
+                Function.identity(), UUID::toString);
+
+        assertEquals(List.of(first.toString(), second.toString()), page.items());
+        assertEquals(second, CursorPage.decodeUuid(page.nextCursor()));
+    }
+
+    @Test
+    void of_withoutExtraRow_isLastPage() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2), 2, Function.identity(), Function.identity());
+
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void malformedInput_throwsInvalidPageRequest() {
+        assertEquals("invalid_limit",
+                assertThrows(InvalidPageRequestException.class, () -> CursorPage.pageSize(0, 50, 500)).getReason());
+        assertEquals("invalid_cursor",
+                assertThrows(InvalidPageRequestException.class, () -> CursorPage.decodeUuid("not base64!")).getReason());
+        assertEquals("invalid_cursor",
+                assertThrows(InvalidPageRequestException.class, () -> CursorPage.decodeUuid("YWJj")).getReason());
+        assertNull(CursorPage.decodeUuid(null));
+        assertEquals(500, CursorPage.pageSize(10_000, 50, 500));
+    }
+}
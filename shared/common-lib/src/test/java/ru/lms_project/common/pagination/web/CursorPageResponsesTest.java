@@ -0,0 +1,28 @@
+package ru.lms_project.common.pagination.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.lms_project.common.pagination.CursorPage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageResponsesTest {
+
+    @Test
+    void ok_withNextCursor_putsItIntoHeader() {
+        ResponseEntity<List<String>> response = CursorPageResponses.ok(new CursorPage<>(List.of("a", "b"), "Yg"));
+
+        assertEquals(List.of("a", "b"), response.getBody());
+        assertEquals("Yg", response.getHeaders().getFirst(CursorPageResponses.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void ok_onLastPage_omitsHeader() {
+        ResponseEntity<List<Integer>> response = CursorPageResponses.ok(new CursorPage<>(List.of(1, 2), null));
+
+        assertEquals(List.of(1, 2), response.getBody());
+        assertFalse(response.getHeaders().containsKey(CursorPageResponses.NEXT_CURSOR_HEADER));
+    }
+}